@@ -1,7 +1,11 @@
 package com.mobile.demo.config;
 
+import com.mobile.demo.entity.Category;
+import com.mobile.demo.entity.CreditScore;
 import com.mobile.demo.entity.User;
 import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.CreditScoreRepository;
+import com.mobile.demo.service.CategoryService;
 import com.mobile.demo.service.UserService;
 import com.mobile.demo.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +22,12 @@ public class DataLoader implements CommandLineRunner {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CreditScoreRepository creditScoreRepository;
+
     @Override
     public void run(String... args) throws Exception {
         if (userService.findAll().isEmpty()) {
@@ -31,7 +41,19 @@ public class DataLoader implements CommandLineRunner {
             testUser.setPhoneNumber("221701234567");
             testUser.setPurchasingPower(new BigDecimal("1000000"));
             testUser.setRemainingToPay(new BigDecimal("150000"));
-            userService.save(testUser);
+            testUser = userService.save(testUser);
+
+            CreditScore creditScore = new CreditScore();
+            creditScore.setUserId(testUser.getId());
+            creditScore.setScore(650);
+            creditScore.setCreditLimit(new BigDecimal("1000000"));
+            creditScore.setRiskLevel("MEDIUM");
+            creditScoreRepository.save(creditScore);
+
+            Category category = new Category();
+            category.setName("Électronique");
+            category.setDescription("Téléphones, ordinateurs, TV et accessoires");
+            category = categoryService.save(category);
 
             Product[] products = {
                 new Product("iPhone 15 Pro", "Dernier iPhone avec puce A17 Pro", new BigDecimal("850000"), 5),
@@ -43,7 +65,7 @@ public class DataLoader implements CommandLineRunner {
             for (Product product : products) {
                 product.setBrand(product.getName().split(" ")[0]);
                 product.setImageUrl("https://example.com/" + product.getName().toLowerCase().replace(" ", "_") + ".jpg");
-                product.setCategoryId(1L);
+                product.setCategoryId(category.getId());
                 productService.save(product);
             }
 
@@ -0,0 +1,48 @@
+package com.mobile.demo.config;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.entity.User;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.service.OrderService;
+import com.mobile.demo.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+
+// Commandes de démonstration pour les utilisateurs qui n'en ont aucune.
+// Seulement avec le profil dev (spring.profiles.active=dev), après DataLoader.
+@Component
+@Profile("dev")
+public class DevOrderDataLoader {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createTestOrders() {
+        for (User user : userService.findAll()) {
+            if (orderService.countOrdersByUserId(user.getId()) > 0) {
+                continue;
+            }
+            System.out.println("🧪 Création de commandes de test pour user " + user.getId());
+
+            createOrder(user.getId(), "850000", OrderStatus.DELIVERED);
+            createOrder(user.getId(), "450000", OrderStatus.SHIPPED);
+            createOrder(user.getId(), "85000", OrderStatus.PENDING);
+
+            System.out.println("✅ 3 commandes de test créées");
+        }
+    }
+
+    private void createOrder(Long userId, String amount, OrderStatus status) {
+        Order order = new Order(userId, new BigDecimal(amount));
+        order.setStatus(status);
+        orderService.createOrder(order);
+    }
+}
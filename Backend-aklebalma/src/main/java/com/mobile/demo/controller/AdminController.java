@@ -1,11 +1,19 @@
 package com.mobile.demo.controller;
 
 import com.mobile.demo.repository.UserRepository;
+import com.mobile.demo.service.FlashSaleService;
+import com.mobile.demo.service.OrderRollupService;
+import com.mobile.demo.service.OverduePaymentSweeper;
+import com.mobile.demo.service.PaymentPlanService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,6 +24,43 @@ public class AdminController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private PaymentPlanService paymentPlanService;
+
+    @Autowired
+    private OverduePaymentSweeper overduePaymentSweeper;
+
+    private static final int MAX_IMPORT_PLANS = 50000;
+
+    public static class ImportPlanLine {
+        private Long orderId;
+        private Long userId;
+        private BigDecimal totalAmount;
+        private Integer numberOfInstallments;
+        private LocalDateTime startDate;
+
+        public Long getOrderId() { return orderId; }
+        public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+
+        public BigDecimal getTotalAmount() { return totalAmount; }
+        public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+        public Integer getNumberOfInstallments() { return numberOfInstallments; }
+        public void setNumberOfInstallments(Integer numberOfInstallments) { this.numberOfInstallments = numberOfInstallments; }
+
+        public LocalDateTime getStartDate() { return startDate; }
+        public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<?> getStats() {
         try {
@@ -51,4 +96,96 @@ public class AdminController {
             return ResponseEntity.status(500).body("Erreur serveur: " + e.getMessage());
         }
     }
+
+    // Ventes flash en cours
+    @GetMapping("/flash-sales")
+    public ResponseEntity<?> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.getActiveSales());
+    }
+
+    @GetMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> getFlashSale(@PathVariable Long productId) {
+        return ResponseEntity.ok(flashSaleService.getStatus(productId));
+    }
+
+    // Passer un produit en vente flash : son stock est servi par les compteurs en mémoire
+    @PostMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> enableFlashSale(@PathVariable Long productId) {
+        try {
+            return ResponseEntity.ok(flashSaleService.enable(productId));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Terminer la vente flash : dernier report du stock en base
+    @DeleteMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> disableFlashSale(@PathVariable Long productId) {
+        try {
+            return ResponseEntity.ok(flashSaleService.disable(productId));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Recalculer les agrégats de ventes sur l'historique (par défaut les 12 derniers mois)
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<?> backfillRollups(@RequestParam(defaultValue = "12") int months) {
+        try {
+            return ResponseEntity.ok(orderRollupService.backfill(LocalDateTime.now().minusMonths(Math.max(1, months))));
+        } catch (Exception e) {
+            System.err.println("Erreur lors du recalcul des agrégats: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // Import de plans de paiement (migration) : échéanciers générés et insérés par lots
+    @PostMapping("/payment-plans/import")
+    public ResponseEntity<?> importPaymentPlans(@RequestBody List<ImportPlanLine> lines) {
+        try {
+            if (lines == null || lines.isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Aucun plan à importer");
+                return ResponseEntity.badRequest().body(error);
+            }
+            if (lines.size() > MAX_IMPORT_PLANS) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Trop de plans (maximum " + MAX_IMPORT_PLANS + " par requête)");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            List<PaymentPlanService.NewPlan> plans = new ArrayList<>(lines.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (ImportPlanLine line : lines) {
+                plans.add(new PaymentPlanService.NewPlan(line.getOrderId(), line.getUserId(), line.getTotalAmount(),
+                        line.getNumberOfInstallments() == null ? 0 : line.getNumberOfInstallments(),
+                        line.getStartDate() == null ? now : line.getStartDate()));
+            }
+            return ResponseEntity.ok(paymentPlanService.importPlans(plans));
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'import des plans de paiement: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // Lancer immédiatement le balayage des échéances en retard (sinon planifié chaque nuit)
+    @PostMapping("/payments/overdue-sweep")
+    public ResponseEntity<?> sweepOverduePayments() {
+        try {
+            return ResponseEntity.ok(overduePaymentSweeper.sweep());
+        } catch (Exception e) {
+            System.err.println("Erreur lors du balayage des échéances en retard: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.mobile.demo.controller;
+
+import com.mobile.demo.entity.Category;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.service.CategoryService;
+import com.mobile.demo.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/categories")
+@CrossOrigin(origins = "*")
+public class CategoryController {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    // GET /api/categories - Arbre des catégories avec le nombre de produits (total et en stock)
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getCategoryTree() {
+        return ResponseEntity.ok(categoryService.getTree());
+    }
+
+    // GET /api/categories/{id}
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getCategory(@PathVariable Long id) {
+        Category category = categoryService.findById(id);
+        if (category == null) {
+            return ResponseEntity.notFound().build();
+        }
+        long[] counts = categoryService.getCounts(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("category", category);
+        response.put("productCount", counts[0]);
+        response.put("inStockCount", counts[1]);
+        return ResponseEntity.ok(response);
+    }
+
+    // GET /api/categories/{id}/products
+    @GetMapping("/{id}/products")
+    public ResponseEntity<List<Product>> getCategoryProducts(@PathVariable Long id) {
+        return ResponseEntity.ok(productService.findByCategoryId(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createCategory(@RequestBody Category category) {
+        try {
+            category.setId(null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(categoryService.save(category));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur lors de la création: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateCategory(@PathVariable Long id, @RequestBody Category category) {
+        try {
+            Category existing = categoryService.findById(id);
+            if (existing == null) {
+                return ResponseEntity.notFound().build();
+            }
+            existing.setName(category.getName());
+            existing.setDescription(category.getDescription());
+            existing.setParentId(category.getParentId());
+            return ResponseEntity.ok(categoryService.save(existing));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur lors de la modification: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteCategory(@PathVariable Long id) {
+        try {
+            categoryService.deleteById(id);
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Catégorie supprimée");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
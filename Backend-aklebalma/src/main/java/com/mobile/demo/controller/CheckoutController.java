@@ -0,0 +1,95 @@
+package com.mobile.demo.controller;
+
+import com.mobile.demo.service.CheckoutService;
+import com.mobile.demo.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/checkout")
+@CrossOrigin(origins = "*")
+public class CheckoutController {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // DTO du passage de commande : seules les quantités viennent du client, jamais les prix
+    public static class CheckoutRequest {
+        private Long userId;
+        private List<CheckoutLine> items;
+        private Integer numberOfInstallments;
+        private Long deliveryAddressId;
+
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+
+        public List<CheckoutLine> getItems() { return items; }
+        public void setItems(List<CheckoutLine> items) { this.items = items; }
+
+        public Integer getNumberOfInstallments() { return numberOfInstallments; }
+        public void setNumberOfInstallments(Integer numberOfInstallments) { this.numberOfInstallments = numberOfInstallments; }
+
+        public Long getDeliveryAddressId() { return deliveryAddressId; }
+        public void setDeliveryAddressId(Long deliveryAddressId) { this.deliveryAddressId = deliveryAddressId; }
+    }
+
+    public static class CheckoutLine {
+        private Long productId;
+        private Integer quantity;
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+
+    // POST /api/checkout - Panier -> commande, lignes, plan de paiement (une seule transaction).
+    // Avec l'en-tête Idempotency-Key, une nouvelle tentative reçoit la réponse du premier passage.
+    @PostMapping
+    public ResponseEntity<?> checkout(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CheckoutRequest request
+    ) {
+        return idempotencyService.execute(IdempotencyService.scope("POST /api/checkout", request.getUserId()),
+                idempotencyKey, request, () -> placeOrder(request));
+    }
+
+    private ResponseEntity<?> placeOrder(CheckoutRequest request) {
+        try {
+            System.out.println("🧾 POST /api/checkout - user " + request.getUserId());
+
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            if (request.getItems() != null) {
+                for (CheckoutLine line : request.getItems()) {
+                    if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                        throw new RuntimeException("Ligne invalide: " + line.getProductId() + " x " + line.getQuantity());
+                    }
+                    quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+                }
+            }
+
+            Map<String, Object> result = checkoutService.checkout(request.getUserId(), quantities,
+                    request.getNumberOfInstallments(), request.getDeliveryAddressId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+
+        } catch (Exception e) {
+            System.out.println("❌ Erreur checkout: " + e.getMessage());
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Commande impossible");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,20 +1,25 @@
 package com.mobile.demo.controller;
 
 import com.mobile.demo.entity.Order;
-import com.mobile.demo.entity.User;
 import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.repository.InvalidPageRequestException;
+import com.mobile.demo.repository.KeysetPage;
+import com.mobile.demo.service.IdempotencyService;
+import com.mobile.demo.service.OrderExportService;
 import com.mobile.demo.service.OrderService;
-import com.mobile.demo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.HashMap;
 
 @RestController
@@ -26,55 +31,67 @@ public class OrderController {
     private OrderService orderService;
 
     @Autowired
-    private UserService userService;
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private static final int MAX_BATCH_STATUS_ORDERS = 1000;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    public static class BatchStatusRequest {
+        private List<Long> orderIds;
+        private String status;
+
+        public List<Long> getOrderIds() { return orderIds; }
+        public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+    }
 
     // GET /api/users/{userId}/orders - Récupérer les commandes d'un utilisateur
+    // Pagination par curseur (nextCursor) ; page reste accepté sans curseur pour les anciennes versions.
+    // Le total n'est calculé que sur demande (withTotal=true).
     @GetMapping("/users/{userId}/orders")
     public ResponseEntity<?> getUserOrders(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "orderDate") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal
     ) {
         try {
             System.out.println("📋 GET /api/users/" + userId + "/orders");
-            System.out.println("📄 Page: " + page + ", Limit: " + limit);
-
-            // TEMPORAIRE: Créer des commandes de test s'il n'y en a pas
-            createTestOrdersIfEmpty(userId);
+            System.out.println("📄 Page: " + page + ", Limit: " + limit + ", Curseur: " + cursor);
 
-            // Vérifier que l'utilisateur existe
-            User user = userService.findById(userId);
-            if (user == null) {
+            // Lecture seule : existence de l'utilisateur et page de commandes en une requête
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            Optional<KeysetPage<Order>> result = orderService.listUserOrders(userId, sortBy, sortDir, cursor, page, pageSize);
+            if (result.isEmpty()) {
                 System.out.println("❌ Utilisateur non trouvé: " + userId);
                 return ResponseEntity.notFound().build();
             }
-
-            // Créer la pagination (Spring commence à 0)
-            Sort sort = sortDir.equalsIgnoreCase("desc")
-                    ? Sort.by(sortBy).descending()
-                    : Sort.by(sortBy).ascending();
-
-            Pageable pageable = PageRequest.of(page - 1, limit, sort);
-
-            // Récupérer les commandes
-            Page<Order> ordersPage = orderService.findOrdersByUserId(userId, pageable);
-            List<Order> orders = ordersPage.getContent();
+            KeysetPage<Order> ordersPage = result.get();
+            List<Order> orders = ordersPage.getItems();
 
             System.out.println("✅ " + orders.size() + " commandes trouvées pour user " + userId);
 
-            // Préparer la réponse avec format compatible frontend
-            Map<String, Object> response = new HashMap<>();
-            response.put("orders", orders);
-            response.put("currentPage", page);
-            response.put("totalPages", ordersPage.getTotalPages());
-            response.put("totalElements", ordersPage.getTotalElements());
-            response.put("hasNext", ordersPage.hasNext());
-            response.put("hasPrevious", ordersPage.hasPrevious());
-
+            Map<String, Object> response = pageResponse(ordersPage, cursor, page, pageSize,
+                    withTotal ? orderService.countOrders(userId, null) : null);
             return ResponseEntity.ok(response);
 
+        } catch (InvalidPageRequestException e) {
+            System.out.println("❌ Pagination invalide (getUserOrders): " + e.getMessage());
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Tri ou curseur invalide");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+
         } catch (Exception e) {
             System.out.println("❌ Erreur getUserOrders: " + e.getMessage());
             e.printStackTrace();
@@ -86,31 +103,23 @@ public class OrderController {
         }
     }
 
-    // Méthode temporaire pour créer des commandes de test
-    private void createTestOrdersIfEmpty(Long userId) {
-        try {
-            long orderCount = orderService.countOrdersByUserId(userId);
-            if (orderCount == 0) {
-                System.out.println("🧪 Création de commandes de test pour user " + userId);
-
-                // Créer 3 commandes de test
-                Order order1 = new Order(userId, new java.math.BigDecimal("850000"));
-                order1.setStatus(com.mobile.demo.enums.OrderStatus.DELIVERED);
-                orderService.saveOrder(order1);
-
-                Order order2 = new Order(userId, new java.math.BigDecimal("450000"));
-                order2.setStatus(com.mobile.demo.enums.OrderStatus.SHIPPED);
-                orderService.saveOrder(order2);
-
-                Order order3 = new Order(userId, new java.math.BigDecimal("85000"));
-                order3.setStatus(com.mobile.demo.enums.OrderStatus.PENDING);
-                orderService.saveOrder(order3);
-
-                System.out.println("✅ 3 commandes de test créées");
-            }
-        } catch (Exception e) {
-            System.out.println("⚠️ Erreur création commandes test: " + e.getMessage());
+    // Réponse compatible frontend ; currentPage n'a de sens que sans curseur
+    private static Map<String, Object> pageResponse(KeysetPage<Order> ordersPage, String cursor, int page,
+                                                    int pageSize, Long totalElements) {
+        boolean byCursor = cursor != null && !cursor.isBlank();
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", ordersPage.getItems());
+        response.put("nextCursor", ordersPage.getNextCursor());
+        response.put("hasNext", ordersPage.isHasNext());
+        response.put("hasPrevious", byCursor || page > 1);
+        if (!byCursor) {
+            response.put("currentPage", page);
+        }
+        if (totalElements != null) {
+            response.put("totalElements", totalElements);
+            response.put("totalPages", (totalElements + pageSize - 1) / pageSize);
         }
+        return response;
     }
 
     // GET /api/orders/{orderId} - Récupérer une commande spécifique
@@ -140,8 +149,17 @@ public class OrderController {
     }
 
     // POST /api/orders - Créer une nouvelle commande
+    // Avec l'en-tête Idempotency-Key, une nouvelle tentative reçoit la commande déjà créée
     @PostMapping("/orders")
-    public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> orderData) {
+    public ResponseEntity<?> createOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, Object> orderData
+    ) {
+        return idempotencyService.execute(IdempotencyService.scope("POST /api/orders", orderData.get("userId")),
+                idempotencyKey, orderData, () -> placeOrder(orderData));
+    }
+
+    private ResponseEntity<?> placeOrder(Map<String, Object> orderData) {
         try {
             System.out.println("📦 POST /api/orders");
             System.out.println("📋 Order data: " + orderData);
@@ -216,6 +234,39 @@ public class OrderController {
         }
     }
 
+    // PUT /api/orders/status/batch - Changer le statut d'un lot de commandes (admin, logistique)
+    @PutMapping("/orders/status/batch")
+    public ResponseEntity<?> updateOrderStatusBatch(@RequestBody BatchStatusRequest request) {
+        try {
+            System.out.println("🔄 PUT /api/orders/status/batch");
+
+            if (request.getOrderIds() == null || request.getOrderIds().isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Aucune commande à mettre à jour");
+                return ResponseEntity.badRequest().body(error);
+            }
+            if (request.getOrderIds().size() > MAX_BATCH_STATUS_ORDERS) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Trop de commandes (maximum " + MAX_BATCH_STATUS_ORDERS + ")");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            Map<String, Object> result = orderService.updateOrderStatusBatch(request.getOrderIds(), request.getStatus());
+
+            System.out.println("✅ Statut mis à jour pour " + result.get("updated") + " commande(s)");
+            return ResponseEntity.ok(result);
+
+        } catch (Exception e) {
+            System.out.println("❌ Erreur updateOrderStatusBatch: " + e.getMessage());
+            e.printStackTrace();
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la mise à jour du statut");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
     // GET /api/orders/{orderId}/tracking - Récupérer le suivi d'une commande
     @GetMapping("/orders/{orderId}/tracking")
     public ResponseEntity<?> getOrderTracking(@PathVariable Long orderId) {
@@ -266,44 +317,38 @@ public class OrderController {
         }
     }
 
-    // GET /api/orders - Récupérer toutes les commandes (admin)
+    // GET /api/orders - Récupérer toutes les commandes (admin), même pagination que la liste utilisateur
     @GetMapping("/orders")
     public ResponseEntity<?> getAllOrders(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) String status,
-            @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal
     ) {
         try {
             System.out.println("📋 GET /api/orders (admin)");
 
-            Sort sort = sortDir.equalsIgnoreCase("desc")
-                    ? Sort.by(sortBy).descending()
-                    : Sort.by(sortBy).ascending();
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            KeysetPage<Order> ordersPage = orderService.listOrders(status, sortBy, sortDir, cursor, page, pageSize);
 
-            Pageable pageable = PageRequest.of(page - 1, limit, sort);
-
-            Page<Order> ordersPage;
-            if (status != null && !status.isEmpty()) {
-                ordersPage = orderService.findOrdersByStatus(status, pageable);
-            } else {
-                ordersPage = orderService.findAllOrders(pageable);
-            }
-
-            List<Order> orders = ordersPage.getContent();
+            List<Order> orders = ordersPage.getItems();
             System.out.println("✅ " + orders.size() + " commandes trouvées (admin)");
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("orders", orders);
-            response.put("currentPage", page);
-            response.put("totalPages", ordersPage.getTotalPages());
-            response.put("totalElements", ordersPage.getTotalElements());
-            response.put("hasNext", ordersPage.hasNext());
-            response.put("hasPrevious", ordersPage.hasPrevious());
-
+            Map<String, Object> response = pageResponse(ordersPage, cursor, page, pageSize,
+                    withTotal ? orderService.countOrders(null, status) : null);
             return ResponseEntity.ok(response);
 
+        } catch (InvalidPageRequestException e) {
+            System.out.println("❌ Pagination invalide (getAllOrders): " + e.getMessage());
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Tri ou curseur invalide");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+
         } catch (Exception e) {
             System.out.println("❌ Erreur getAllOrders: " + e.getMessage());
             e.printStackTrace();
@@ -315,6 +360,92 @@ public class OrderController {
         }
     }
 
+    // GET /api/orders/search - Recherche admin (statut, paiement, utilisateur, période, montant, préfixe de numéro)
+    // Tous les filtres sont optionnels et combinables ; pagination par curseur, sans total
+    @GetMapping("/orders/search")
+    public ResponseEntity<?> searchOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentStatus,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String orderNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        try {
+            System.out.println("🔎 GET /api/orders/search");
+
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            KeysetPage<Order> result = orderService.searchOrders(status, paymentStatus, userId, from, to,
+                    minAmount, maxAmount, orderNumber, cursor, pageSize);
+
+            System.out.println("✅ " + result.getItems().size() + " commandes trouvées (recherche)");
+            return ResponseEntity.ok(result);
+
+        } catch (InvalidPageRequestException e) {
+            System.out.println("❌ Pagination invalide (searchOrders): " + e.getMessage());
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Tri ou curseur invalide");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+
+        } catch (Exception e) {
+            System.out.println("❌ Erreur searchOrders: " + e.getMessage());
+            e.printStackTrace();
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la recherche des commandes");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // GET /api/orders/export - Export comptable d'une période [from, to) en CSV ou NDJSON, gzip en option.
+    // Les lignes sont envoyées au fil de la lecture : aucune liste complète en mémoire.
+    @GetMapping("/orders/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        System.out.println("📤 GET /api/orders/export " + from + " -> " + to + " (" + format + ")");
+
+        // Les erreurs doivent être détectées avant le premier octet envoyé
+        String exportFormat = format.toLowerCase();
+        if (!OrderExportService.isSupportedFormat(exportFormat)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Format non supporté: " + format + " (csv ou ndjson)");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (!from.isBefore(to)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Période invalide");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String fileName = "commandes-" + from.toLocalDate() + "-" + to.toLocalDate() + "." + exportFormat
+                + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : OrderExportService.FORMAT_CSV.equals(exportFormat)
+                        ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                        : MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+
+        StreamingResponseBody body = out -> {
+            long rows = orderExportService.export(from, to, exportFormat, gzip, out);
+            System.out.println("✅ Export terminé: " + rows + " commande(s)");
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     // GET /api/orders/stats - Statistiques des commandes (admin)
     @GetMapping("/orders/stats")
     public ResponseEntity<?> getOrderStats(
@@ -338,4 +469,28 @@ public class OrderController {
             return ResponseEntity.status(500).body(error);
         }
     }
-}
\ No newline at end of file
+
+    // GET /api/orders/stats/timeseries?granularity=day&from=&to=&status= - Courbes des tableaux de bord (admin)
+    @GetMapping("/orders/stats/timeseries")
+    public ResponseEntity<?> getOrderTimeseries(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String status
+    ) {
+        try {
+            System.out.println("📈 GET /api/orders/stats/timeseries - " + granularity);
+
+            Map<String, Object> series = orderService.getRevenueTimeseries(granularity, from, to, status);
+            return ResponseEntity.ok(series);
+
+        } catch (Exception e) {
+            System.out.println("❌ Erreur getOrderTimeseries: " + e.getMessage());
+
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors du calcul de la série");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
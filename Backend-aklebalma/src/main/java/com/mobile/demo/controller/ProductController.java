@@ -1,10 +1,19 @@
 package com.mobile.demo.controller;
 
 import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.KeysetPage;
+import com.mobile.demo.service.PricedProduct;
+import com.mobile.demo.service.PricingService;
+import com.mobile.demo.service.ProductFacetIndex;
+import com.mobile.demo.service.ProductSearchIndex;
 import com.mobile.demo.service.ProductService;
+import com.mobile.demo.service.ProductSuggestionIndex;
+import com.mobile.demo.service.ProductSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -14,16 +23,37 @@ import java.util.HashMap;
 @CrossOrigin(origins = "*")
 public class ProductController {
 
+    private static final int MAX_STOCK_CHECK_LINES = 100;
+
     @Autowired
     private ProductService productService;
 
+    // Prix effectifs (promotions appliquées) ajoutés aux lectures du catalogue
+    @Autowired
+    private PricingService pricingService;
+
+    // Sans paramètre : liste complète (anciennes versions de l'app).
+    // Avec limit, cursor ou sort : page légère paginée par curseur (recent, price_asc, price_desc)
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort) {
         try {
-            List<Product> products = productService.findAll();
-            return ResponseEntity.ok(products);
+            if (cursor == null && limit == null && sort == null) {
+                List<Product> products = productService.findAll();
+                return ResponseEntity.ok(pricingService.withEffectivePrices(products));
+            }
+
+            int pageSize = limit == null ? 20 : Math.max(1, Math.min(limit, 100));
+            KeysetPage<ProductSummary> page = productService.listProducts(
+                    sort == null ? "recent" : sort, cursor, pageSize);
+            return ResponseEntity.ok(new KeysetPage<>(pricingService.summariesWithEffectivePrices(page.getItems()),
+                    page.getNextCursor(), page.isHasNext()));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         }
     }
 
@@ -32,7 +62,7 @@ public class ProductController {
         try {
             Product product = productService.findById(id);
             if (product != null) {
-                return ResponseEntity.ok(product);
+                return ResponseEntity.ok(pricingService.withEffectivePrice(product));
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -44,20 +74,66 @@ public class ProductController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<List<PricedProduct>> getProductsByCategory(@PathVariable Long categoryId) {
         try {
             List<Product> products = productService.findByCategoryId(categoryId);
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok(pricingService.withEffectivePrices(products));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q) {
+    public ResponseEntity<List<PricedProduct>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<Product> products = productService.searchByName(q);
-            return ResponseEntity.ok(products);
+            ProductSearchIndex.SearchResult result = productService.search(q, page, Math.min(size, 100));
+            // X-Total-Count-Truncated : préfixe trop court, le total annoncé est un minimum
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(result.getTotalResults()))
+                    .header("X-Total-Count-Truncated", String.valueOf(result.isTruncated()))
+                    .body(pricingService.withEffectivePrices(result.getItems()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // GET /api/products/filter?categoryId=1&brand=Samsung&minPrice=&maxPrice=&inStock=true
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter();
+            filter.setCategoryIds(categoryId);
+            filter.setBrands(brand);
+            filter.setMinPrice(minPrice);
+            filter.setMaxPrice(maxPrice);
+            filter.setInStockOnly(inStock);
+
+            ProductFacetIndex.FilterResult result = productService.filterProducts(
+                    filter, Math.max(page, 0), Math.max(1, Math.min(size, 100)));
+            return ResponseEntity.ok(result.withItems(pricingService.summariesWithEffectivePrices(result.getItems())));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionIndex.Suggestion>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            return ResponseEntity.ok(productService.suggest(prefix, Math.min(limit, 10)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -86,6 +162,41 @@ public class ProductController {
         }
     }
 
+    // POST /api/products/stock-check : disponibilité de tout un panier en un aller-retour
+    @PostMapping("/stock-check")
+    public ResponseEntity<?> checkStockBatch(@RequestBody List<StockCheckLine> lines) {
+        try {
+            if (lines == null || lines.isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Aucune ligne à vérifier");
+                return ResponseEntity.badRequest().body(error);
+            }
+            if (lines.size() > MAX_STOCK_CHECK_LINES) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Trop de lignes (maximum " + MAX_STOCK_CHECK_LINES + ")");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            List<Long> productIds = new ArrayList<>(lines.size());
+            List<Integer> quantities = new ArrayList<>(lines.size());
+            for (StockCheckLine line : lines) {
+                if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("message", "Ligne invalide: " + line.getProductId() + " x " + line.getQuantity());
+                    return ResponseEntity.badRequest().body(error);
+                }
+                productIds.add(line.getProductId());
+                quantities.add(line.getQuantity());
+            }
+
+            return ResponseEntity.ok(productService.checkStock(productIds, quantities));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
         try {
@@ -97,4 +208,16 @@ public class ProductController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+
+    // Ligne de vérification de stock
+    public static class StockCheckLine {
+        private Long productId;
+        private Integer quantity;
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
 }
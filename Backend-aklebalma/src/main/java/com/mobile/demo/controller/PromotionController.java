@@ -0,0 +1,129 @@
+package com.mobile.demo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Promotion;
+import com.mobile.demo.service.PriceList;
+import com.mobile.demo.service.PricingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/promotions")
+@CrossOrigin(origins = "*")
+public class PromotionController {
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // DTO pour chiffrer un panier
+    public static class QuoteLine {
+        private Long productId;
+        private Integer quantity;
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+
+    // GET /api/promotions - Toutes les campagnes
+    @GetMapping
+    public ResponseEntity<List<Promotion>> getAllPromotions() {
+        return ResponseEntity.ok(pricingService.findAll());
+    }
+
+    // POST /api/promotions - Créer une campagne
+    @PostMapping
+    public ResponseEntity<?> createPromotion(@RequestBody Promotion promotion) {
+        try {
+            promotion.setId(null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(pricingService.save(promotion));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur lors de la création: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // PUT /api/promotions/{id} - Modifier une campagne
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updatePromotion(@PathVariable Long id, @RequestBody Map<String, Object> body) {
+        try {
+            Promotion existing = pricingService.findById(id);
+            if (existing == null) {
+                return ResponseEntity.notFound().build();
+            }
+            Promotion promotion = objectMapper.convertValue(body, Promotion.class);
+            promotion.setId(id);
+            promotion.setCreatedAt(existing.getCreatedAt());
+            // Champs absents de la requête : valeur actuelle conservée (et non la valeur par défaut
+            // d'une nouvelle campagne, qui réactiverait une promotion désactivée)
+            if (!body.containsKey("active")) {
+                promotion.setActive(existing.getActive());
+            }
+            if (!body.containsKey("stackable")) {
+                promotion.setStackable(existing.getStackable());
+            }
+            if (!body.containsKey("priority")) {
+                promotion.setPriority(existing.getPriority());
+            }
+            return ResponseEntity.ok(pricingService.save(promotion));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Erreur lors de la modification: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // DELETE /api/promotions/{id} - Désactiver une campagne
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deactivatePromotion(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(pricingService.deactivate(id));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // GET /api/promotions/prices/{productId} - Prix effectif d'un produit
+    @GetMapping("/prices/{productId}")
+    public ResponseEntity<?> getPrice(@PathVariable Long productId) {
+        PriceList.ProductPrice price = pricingService.getPrice(productId);
+        if (price == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(price);
+    }
+
+    // POST /api/promotions/quote - Chiffrer un panier avec les promotions en cours
+    @PostMapping("/quote")
+    public ResponseEntity<?> quote(@RequestBody List<QuoteLine> lines) {
+        try {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (QuoteLine line : lines) {
+                if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                    throw new RuntimeException("Ligne invalide: " + line.getProductId() + " x " + line.getQuantity());
+                }
+                quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+            }
+            return ResponseEntity.ok(pricingService.quote(quantities));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mobile.demo.controller;
+
+import com.mobile.demo.entity.StockReservation;
+import com.mobile.demo.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stock/reservations")
+@CrossOrigin(origins = "*")
+public class StockReservationController {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    // DTO pour réserver un panier
+    public static class ReservationRequest {
+        private Long userId;
+        private List<ReservationLine> items;
+        private Integer ttlMinutes;
+
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+
+        public List<ReservationLine> getItems() { return items; }
+        public void setItems(List<ReservationLine> items) { this.items = items; }
+
+        public Integer getTtlMinutes() { return ttlMinutes; }
+        public void setTtlMinutes(Integer ttlMinutes) { this.ttlMinutes = ttlMinutes; }
+    }
+
+    public static class ReservationLine {
+        private Long productId;
+        private Integer quantity;
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+
+    // POST /api/stock/reservations - Réserver le stock d'un panier (tout ou rien)
+    @PostMapping
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request) {
+        // Durée absente : valeur par défaut ; trop longue : ramenée au maximum par le service
+        if (request.getTtlMinutes() != null && request.getTtlMinutes() <= 0) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "ttlMinutes doit être strictement positif");
+            return ResponseEntity.badRequest().body(error);
+        }
+        try {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            if (request.getItems() != null) {
+                for (ReservationLine line : request.getItems()) {
+                    if (line.getQuantity() == null) {
+                        quantities.put(line.getProductId(), null);
+                    } else {
+                        quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+                    }
+                }
+            }
+
+            String reference = request.getTtlMinutes() != null
+                    ? stockReservationService.reserve(request.getUserId(), quantities,
+                            Duration.ofMinutes(request.getTtlMinutes()))
+                    : stockReservationService.reserve(request.getUserId(), quantities);
+
+            List<StockReservation> lines = stockReservationService.findByReference(reference);
+            Map<String, Object> response = new HashMap<>();
+            response.put("reference", reference);
+            response.put("expiresAt", lines.isEmpty() ? null : lines.get(0).getExpiresAt());
+            response.put("items", lines);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Réservation impossible");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    // DELETE /api/stock/reservations/{reference} - Libérer une réservation
+    @DeleteMapping("/{reference}")
+    public ResponseEntity<?> release(@PathVariable String reference) {
+        try {
+            int released = stockReservationService.release(reference);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", released > 0);
+            response.put("releasedLines", released);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la libération de la réservation");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = {
+        @Index(name = "idx_categories_parent", columnList = "parent_id")
+})
 public class Category {
     
     @Id
@@ -17,6 +19,10 @@ public class Category {
     @Column(length = 500)
     private String description;
     
+    // Catégorie parente ; null pour une catégorie racine
+    @Column(name = "parent_id")
+    private Long parentId;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
@@ -34,6 +40,9 @@ public class Category {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
     
+    public Long getParentId() { return parentId; }
+    public void setParentId(Long parentId) { this.parentId = parentId; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,53 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Part du stock d'un produit en vente flash confiée à une instance : retirée de products.stock_quantity,
+// servie par les compteurs en mémoire de cette instance. Les ventes validées sont dans flash_sale_claims
+// jusqu'au report périodique ; après un redémarrage, allocated redonne exactement le stock des compteurs.
+@Entity
+@Table(name = "flash_sale_allocations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_flash_sale_allocations_product_node", columnNames = {"product_id", "node_id"})
+})
+public class FlashSaleAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Identifiant de l'instance (order-number.node-id)
+    @Column(name = "node_id", nullable = false)
+    private Long nodeId;
+
+    // Unités détenues : compteurs + achats validés pas encore reportés
+    @Column(nullable = false)
+    private Long allocated = 0L;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructeurs
+    public FlashSaleAllocation() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Long getNodeId() { return nodeId; }
+    public void setNodeId(Long nodeId) { this.nodeId = nodeId; }
+
+    public Long getAllocated() { return allocated; }
+    public void setAllocated(Long allocated) { this.allocated = allocated; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
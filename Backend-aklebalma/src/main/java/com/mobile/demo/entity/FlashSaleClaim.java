@@ -0,0 +1,50 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Achat (quantité positive) ou remise (négative) sur les compteurs d'une vente flash.
+// Écrit dans la transaction de l'achat : une simple insertion, sans verrou sur la ligne products.
+@Entity
+@Table(name = "flash_sale_claims", indexes = {
+        @Index(name = "idx_flash_sale_claims_product_node", columnList = "product_id, node_id")
+})
+public class FlashSaleClaim {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "node_id", nullable = false)
+    private Long nodeId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructeurs
+    public FlashSaleClaim() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Long getNodeId() { return nodeId; }
+    public void setNodeId(Long nodeId) { this.nodeId = nodeId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
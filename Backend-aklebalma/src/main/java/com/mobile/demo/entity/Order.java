@@ -7,7 +7,15 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Couvre l'agrégat des statistiques : parcours d'index seul sur la période
+        @Index(name = "idx_orders_date_status_amount", columnList = "orderDate, status, totalAmount"),
+        // Listes paginées par clé : un index par filtre et par colonne de tri, id en départage
+        @Index(name = "idx_orders_user_date", columnList = "userId, orderDate, id"),
+        @Index(name = "idx_orders_status_date", columnList = "status, orderDate, id"),
+        @Index(name = "idx_orders_user_amount", columnList = "userId, totalAmount, id"),
+        @Index(name = "idx_orders_status_amount", columnList = "status, totalAmount, id")
+})
 public class Order {
     
     @Id
@@ -27,6 +35,11 @@ public class Order {
     @Column(nullable = false)
     private OrderStatus status = OrderStatus.PENDING;
     
+    // Statut avant la dernière transition (renseigné par OrderStateMachine)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "previous_status")
+    private OrderStatus previousStatus;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus paymentStatus = PaymentStatus.PENDING;
@@ -43,7 +56,6 @@ public class Order {
     // Constructeurs
     public Order() {
         this.orderDate = LocalDateTime.now();
-        this.generateOrderNumber();
     }
     
     public Order(Long userId, BigDecimal totalAmount) {
@@ -68,6 +80,9 @@ public class Order {
     public OrderStatus getStatus() { return status; }
     public void setStatus(OrderStatus status) { this.status = status; }
     
+    public OrderStatus getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(OrderStatus previousStatus) { this.previousStatus = previousStatus; }
+    
     public PaymentStatus getPaymentStatus() { return paymentStatus; }
     public void setPaymentStatus(PaymentStatus paymentStatus) { this.paymentStatus = paymentStatus; }
     
@@ -81,10 +96,7 @@ public class Order {
     public void setDeliveryAddressId(Long deliveryAddressId) { this.deliveryAddressId = deliveryAddressId; }
     
     // Méthodes utiles
-    private void generateOrderNumber() {
-        this.orderNumber = "AKL-" + System.currentTimeMillis();
-    }
-    
+    // (le numéro de commande est attribué par OrderNumberGenerator à l'enregistrement)
     public void confirmOrder() {
         this.status = OrderStatus.CONFIRMED;
     }
@@ -0,0 +1,63 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.RollupGranularity;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Agrégat pré-calculé : commandes et chiffre d'affaires d'une tranche de temps pour un statut.
+// Alimenté par OrderRollupService (mise à jour incrémentale et rattrapage), jamais recalculé à la lecture.
+@Entity
+@Table(name = "order_revenue_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_rollups_bucket", columnNames = {"granularity", "bucket_start", "status"})
+})
+public class OrderRevenueRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    // Début de la tranche (heure, jour ou mois tronqué)
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public RollupGranularity getGranularity() { return granularity; }
+    public void setGranularity(RollupGranularity granularity) { this.granularity = granularity; }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,30 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Événement de commande encore en attente dans l'outbox au moment d'un rattrapage des agrégats :
+// son effet est déjà compté par le recalcul, OrderRollupHandler le consomme sans rien appliquer.
+@Entity
+@Table(name = "order_rollup_skipped_events")
+public class OrderRollupSkippedEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructeurs
+    public OrderRollupSkippedEvent() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
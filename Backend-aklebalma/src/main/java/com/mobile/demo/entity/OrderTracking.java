@@ -0,0 +1,66 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import com.mobile.demo.enums.OrderStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Projection du suivi d'une commande, tenue à jour à chaque transition (voir order_status_events).
+// L'historique est stocké déjà formaté pour être servi tel quel.
+@Entity
+@Table(name = "order_tracking")
+public class OrderTracking {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "order_number", nullable = false)
+    private String orderNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(name = "tracking_number", length = 100)
+    private String trackingNumber;
+
+    @Column(name = "estimated_delivery")
+    private LocalDate estimatedDelivery;
+
+    // Tableau JSON des étapes [{date, description, status}], complété par concaténation
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String history;
+
+    // Incrémentée à chaque transition : le cache mémoire ignore une mise à jour plus ancienne
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters et Setters
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getOrderNumber() { return orderNumber; }
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    public String getTrackingNumber() { return trackingNumber; }
+    public void setTrackingNumber(String trackingNumber) { this.trackingNumber = trackingNumber; }
+
+    public LocalDate getEstimatedDelivery() { return estimatedDelivery; }
+    public void setEstimatedDelivery(LocalDate estimatedDelivery) { this.estimatedDelivery = estimatedDelivery; }
+
+    public String getHistory() { return history; }
+    public void setHistory(String history) { this.history = history; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -7,7 +7,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // Balayage des échéances en retard et des rappels : statut puis plage de dates
+        @Index(name = "idx_payments_status_due", columnList = "status, dueDate")
+})
 public class Payment {
     
     @Id
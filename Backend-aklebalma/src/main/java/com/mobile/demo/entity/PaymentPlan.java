@@ -45,6 +45,13 @@ public class PaymentPlan {
     @Column(precision = 15, scale = 2)
     private BigDecimal remainingAmount;
     
+    // Échéances passées en retard (tenu à jour par OverduePaymentSweeper)
+    @Column(name = "overdue_installments")
+    private Integer overdueInstallments = 0;
+    
+    @Column(name = "overdue_amount", precision = 15, scale = 2)
+    private BigDecimal overdueAmount = BigDecimal.ZERO;
+    
     // Constructeurs
     public PaymentPlan() {
         this.startDate = LocalDateTime.now();
@@ -100,6 +107,12 @@ public class PaymentPlan {
     public BigDecimal getRemainingAmount() { return remainingAmount; }
     public void setRemainingAmount(BigDecimal remainingAmount) { this.remainingAmount = remainingAmount; }
     
+    public Integer getOverdueInstallments() { return overdueInstallments; }
+    public void setOverdueInstallments(Integer overdueInstallments) { this.overdueInstallments = overdueInstallments; }
+    
+    public BigDecimal getOverdueAmount() { return overdueAmount; }
+    public void setOverdueAmount(BigDecimal overdueAmount) { this.overdueAmount = overdueAmount; }
+    
     // Méthodes utiles
     private void calculateInstallmentAmount() {
         if (this.totalAmount != null && this.numberOfInstallments != null && this.numberOfInstallments > 0) {
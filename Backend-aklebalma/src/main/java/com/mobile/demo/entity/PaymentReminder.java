@@ -0,0 +1,45 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Rappel envoyé pour une échéance : une ligne par (paiement, décalage en jours),
+// la contrainte d'unicité empêche tout doublon, y compris après un redémarrage
+@Entity
+@Table(name = "payment_reminders", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payment_reminders_payment_offset", columnNames = {"payment_id", "offset_days"})
+})
+public class PaymentReminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    // Jours avant l'échéance (3 = J-3, 0 = jour J)
+    @Column(name = "offset_days", nullable = false)
+    private Integer offsetDays;
+
+    @Column(nullable = false)
+    private LocalDateTime sentAt;
+
+    // Constructeurs
+    public PaymentReminder() {
+        this.sentAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+
+    public Integer getOffsetDays() { return offsetDays; }
+    public void setOffsetDays(Integer offsetDays) { this.offsetDays = offsetDays; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
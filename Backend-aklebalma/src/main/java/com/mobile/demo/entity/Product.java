@@ -42,6 +42,10 @@ public class Product {
     @Column(name = "category_id")
     private Long categoryId;
     
+    // Stock géré par les compteurs de vente flash : le décrément SQL direct est bloqué
+    @Column(name = "flash_sale")
+    private Boolean flashSale = false;
+    
     // Constructeurs
     public Product() {
         this.dateAdded = LocalDateTime.now();
@@ -89,6 +93,9 @@ public class Product {
     public Long getCategoryId() { return categoryId; }
     public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
     
+    public Boolean getFlashSale() { return flashSale; }
+    public void setFlashSale(Boolean flashSale) { this.flashSale = flashSale; }
+    
     // Méthodes utiles
     public void updateStock(Integer quantity) {
         this.stockQuantity = Math.max(0, this.stockQuantity - quantity);
@@ -0,0 +1,117 @@
+package com.mobile.demo.entity;
+
+import jakarta.persistence.*;
+import com.mobile.demo.enums.PromotionScope;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "promotions", indexes = {
+        @Index(name = "idx_promotions_active_ends", columnList = "active, endsAt")
+})
+public class Promotion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PromotionScope scope;
+
+    // Produit ou catégorie visés (scope PRODUCT ou CATEGORY)
+    @Column(name = "target_id")
+    private Long targetId;
+
+    // Marque visée (scope BRAND), comparée sans tenir compte de la casse
+    @Column
+    private String targetBrand;
+
+    // Remise en pourcentage (ex : 15.00 pour -15 %)
+    @Column(nullable = false, precision = 5, scale = 2)
+    private BigDecimal discountPercentage;
+
+    @Column(nullable = false)
+    private LocalDateTime startsAt;
+
+    @Column(nullable = false)
+    private LocalDateTime endsAt;
+
+    // Cumulable avec les autres promotions cumulables ; sinon elle s'applique seule
+    @Column(nullable = false)
+    private Boolean stackable = false;
+
+    // Départage entre promotions non cumulables de même remise (la plus haute gagne)
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructeurs
+    public Promotion() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Méthodes utiles
+    public boolean isRunningAt(LocalDateTime instant) {
+        return Boolean.TRUE.equals(active) && !instant.isBefore(startsAt) && instant.isBefore(endsAt);
+    }
+
+    public boolean appliesTo(Product product) {
+        switch (scope) {
+            case PRODUCT:
+                return targetId != null && targetId.equals(product.getId());
+            case CATEGORY:
+                return targetId != null && targetId.equals(product.getCategoryId());
+            case BRAND:
+                return targetBrand != null && product.getBrand() != null
+                        && targetBrand.trim().equalsIgnoreCase(product.getBrand().trim());
+            default:
+                return false;
+        }
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public PromotionScope getScope() { return scope; }
+    public void setScope(PromotionScope scope) { this.scope = scope; }
+
+    public Long getTargetId() { return targetId; }
+    public void setTargetId(Long targetId) { this.targetId = targetId; }
+
+    public String getTargetBrand() { return targetBrand; }
+    public void setTargetBrand(String targetBrand) { this.targetBrand = targetBrand; }
+
+    public BigDecimal getDiscountPercentage() { return discountPercentage; }
+    public void setDiscountPercentage(BigDecimal discountPercentage) { this.discountPercentage = discountPercentage; }
+
+    public LocalDateTime getStartsAt() { return startsAt; }
+    public void setStartsAt(LocalDateTime startsAt) { this.startsAt = startsAt; }
+
+    public LocalDateTime getEndsAt() { return endsAt; }
+    public void setEndsAt(LocalDateTime endsAt) { this.endsAt = endsAt; }
+
+    public Boolean getStackable() { return stackable; }
+    public void setStackable(Boolean stackable) { this.stackable = stackable; }
+
+    public Integer getPriority() { return priority; }
+    public void setPriority(Integer priority) { this.priority = priority; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,8 @@
+package com.mobile.demo.enums;
+
+public enum OutboxEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED,
+    ORDER_CANCELLED,
+    PAYMENT_STATUS_CHANGED
+}
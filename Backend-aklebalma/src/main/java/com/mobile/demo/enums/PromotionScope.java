@@ -0,0 +1,7 @@
+package com.mobile.demo.enums;
+
+public enum PromotionScope {
+    PRODUCT,
+    BRAND,
+    CATEGORY
+}
@@ -0,0 +1,8 @@
+package com.mobile.demo.enums;
+
+public enum ReservationStatus {
+    HELD,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
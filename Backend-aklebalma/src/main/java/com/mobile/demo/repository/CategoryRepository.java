@@ -0,0 +1,16 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    Optional<Category> findByName(String name);
+
+    List<Category> findByParentId(Long parentId);
+}
@@ -0,0 +1,11 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.CreditScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CreditScoreRepository extends JpaRepository<CreditScore, Long> {
+
+    CreditScore findByUserId(Long userId);
+}
@@ -0,0 +1,11 @@
+package com.mobile.demo.repository;
+
+// Tri ou curseur de pagination invalide : erreur du client (400), pas du serveur.
+// Hérite de RuntimeException et non d'IllegalArgumentException, que le proxy des repositories
+// traduirait en InvalidDataAccessApiUsageException.
+public class InvalidPageRequestException extends RuntimeException {
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,42 @@
+package com.mobile.demo.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Curseur opaque pour la pagination par clé : (tri, valeur de tri, id) encodés en Base64 URL
+public final class KeysetCursor {
+
+    private final String sort;
+    private final String value;
+    private final Long id;
+
+    public KeysetCursor(String sort, String value, Long id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    public String getSort() { return sort; }
+    public String getValue() { return value; }
+    public Long getId() { return id; }
+
+    public String encode() {
+        String raw = sort + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || last <= first) {
+                throw new InvalidPageRequestException("Curseur invalide: " + cursor);
+            }
+            return new KeysetCursor(raw.substring(0, first), raw.substring(first + 1, last),
+                    Long.valueOf(raw.substring(last + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Curseur invalide: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mobile.demo.repository;
+
+import java.util.List;
+
+// Page obtenue par pagination par clé : pas de numéro de page ni de total, seulement la suite
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public KeysetPage(List<T> items, String nextCursor, boolean hasNext) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasNext() { return hasNext; }
+}
@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
     // Récupérer les commandes d'un utilisateur (triées par date décroissante)
     Page<Order> findByUserIdOrderByOrderDateDesc(Long userId, Pageable pageable);
@@ -24,9 +24,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Récupérer toutes les commandes triées par date
     Page<Order> findAllByOrderByOrderDateDesc(Pageable pageable);
 
-    // Récupérer commandes après une date (pour les stats)
+    // Récupérer commandes après une date
     List<Order> findByOrderDateAfter(LocalDateTime date);
 
+    // Statistiques calculées par la base : une ligne par statut, aucune commande chargée
+    @Query("SELECT o.status AS status, COUNT(o) AS orderCount, SUM(o.totalAmount) AS revenue " +
+           "FROM Order o WHERE o.orderDate > :date GROUP BY o.status")
+    List<OrderStatusStats> aggregateByStatusSince(@Param("date") LocalDateTime date);
+
     // Récupérer commandes d'un utilisateur avec un statut spécifique
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
 
@@ -0,0 +1,27 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Optional;
+
+// Listes de commandes paginées par clé (implémentation : OrderRepositoryImpl)
+public interface OrderRepositoryCustom {
+
+    // Colonnes triables, chacune couverte par un index composite (voir Order)
+    String SORT_ORDER_DATE = "orderDate";
+    String SORT_TOTAL_AMOUNT = "totalAmount";
+
+    // Page suivant le curseur (ou à partir du décalage offset si cursor est null), triée sur (tri, id).
+    // Une ligne de plus est lue pour savoir s'il reste une suite : aucun count(*).
+    KeysetPage<Order> findOrderPage(Long userId, OrderStatus status, String sortBy, boolean descending,
+                                    String cursor, int offset, int limit);
+
+    // Recherche admin multi-critères, triée par date décroissante puis id, paginée par clé
+    KeysetPage<Order> searchOrders(Specification<Order> spec, String cursor, int limit);
+
+    // Même page pour un utilisateur, en une requête partant de users : vide si l'utilisateur n'existe pas
+    Optional<KeysetPage<Order>> findUserOrderPage(Long userId, String sortBy, boolean descending,
+                                                  String cursor, int offset, int limit);
+}
@@ -0,0 +1,189 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.entity.User;
+import com.mobile.demo.enums.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public KeysetPage<Order> findOrderPage(Long userId, OrderStatus status, String sortBy, boolean descending,
+                                           String cursor, int offset, int limit) {
+        KeysetCursor after = decode(sortBy, descending, cursor);
+
+        StringBuilder jpql = new StringBuilder("SELECT o FROM Order o WHERE 1 = 1");
+        if (userId != null) {
+            jpql.append(" AND o.userId = :userId");
+        }
+        if (status != null) {
+            jpql.append(" AND o.status = :status");
+        }
+        appendSeek(jpql, sortBy, descending, after);
+        appendOrderBy(jpql, sortBy, descending);
+
+        TypedQuery<Order> query = entityManager.createQuery(jpql.toString(), Order.class);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        bindSeek(query, sortBy, after, offset, limit);
+        return toPage(query.getResultList(), sortBy, descending, limit);
+    }
+
+    @Override
+    public Optional<KeysetPage<Order>> findUserOrderPage(Long userId, String sortBy, boolean descending,
+                                                         String cursor, int offset, int limit) {
+        KeysetCursor after = decode(sortBy, descending, cursor);
+
+        // Jointure externe depuis users : aucune ligne si l'utilisateur n'existe pas,
+        // une ligne sans commande s'il n'en a aucune sur cette page
+        StringBuilder jpql = new StringBuilder("SELECT u.id, o FROM User u LEFT JOIN Order o ON o.userId = u.id");
+        appendSeek(jpql, sortBy, descending, after);
+        jpql.append(" WHERE u.id = :userId");
+        appendOrderBy(jpql, sortBy, descending);
+
+        Query query = entityManager.createQuery(jpql.toString());
+        query.setParameter("userId", userId);
+        bindSeek(query, sortBy, after, offset, limit);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            // Un décalage au-delà de la dernière ligne ne dit rien sur l'utilisateur (anciennes versions seulement)
+            if (offset > 0 && entityManager.find(User.class, userId) != null) {
+                return Optional.of(new KeysetPage<>(List.of(), null, false));
+            }
+            return Optional.empty();
+        }
+
+        List<Order> orders = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                orders.add((Order) row[1]);
+            }
+        }
+        return Optional.of(toPage(orders, sortBy, descending, limit));
+    }
+
+    @Override
+    public KeysetPage<Order> searchOrders(Specification<Order> spec, String cursor, int limit) {
+        KeysetCursor after = decode(SORT_ORDER_DATE, true, cursor);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = cb.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filters = spec.toPredicate(root, query, cb);
+        if (filters != null) {
+            predicates.add(filters);
+        }
+        if (after != null) {
+            LocalDateTime value = (LocalDateTime) seekValue(SORT_ORDER_DATE, after);
+            Path<LocalDateTime> orderDate = root.get("orderDate");
+            predicates.add(cb.lessThanOrEqualTo(orderDate, value));
+            predicates.add(cb.or(
+                    cb.lessThan(orderDate, value),
+                    cb.and(cb.equal(orderDate, value), cb.lessThan(root.get("id"), after.getId()))));
+        }
+        query.select(root)
+             .where(predicates.toArray(new Predicate[0]))
+             .orderBy(cb.desc(root.get("orderDate")), cb.desc(root.get("id")));
+
+        List<Order> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        return toPage(rows, SORT_ORDER_DATE, true, limit);
+    }
+
+    private static KeysetCursor decode(String sortBy, boolean descending, String cursor) {
+        if (!SORT_ORDER_DATE.equals(sortBy) && !SORT_TOTAL_AMOUNT.equals(sortBy)) {
+            throw new InvalidPageRequestException("Tri non supporté: " + sortBy);
+        }
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (!sortKey(sortBy, descending).equals(after.getSort())) {
+            throw new InvalidPageRequestException("Le curseur ne correspond pas au tri demandé");
+        }
+        try {
+            seekValue(sortBy, after);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidPageRequestException("Curseur invalide: " + cursor);
+        }
+        return after;
+    }
+
+    private static Object seekValue(String sortBy, KeysetCursor after) {
+        return SORT_ORDER_DATE.equals(sortBy)
+                ? LocalDateTime.parse(after.getValue())
+                : new BigDecimal(after.getValue());
+    }
+
+    private static String sortKey(String sortBy, boolean descending) {
+        return sortBy + (descending ? ":desc" : ":asc");
+    }
+
+    // Le nom de colonne vient de la liste blanche (decode), jamais de la requête HTTP.
+    // La première condition est redondante : elle borne le parcours de l'index.
+    private static void appendSeek(StringBuilder jpql, String sortBy, boolean descending, KeysetCursor after) {
+        if (after == null) {
+            return;
+        }
+        String column = "o." + sortBy;
+        String comparison = descending ? "<" : ">";
+        jpql.append(" AND ").append(column).append(' ').append(comparison).append("= :value")
+            .append(" AND (").append(column).append(' ').append(comparison).append(" :value")
+            .append(" OR (").append(column).append(" = :value AND o.id ").append(comparison).append(" :id))");
+    }
+
+    private static void appendOrderBy(StringBuilder jpql, String sortBy, boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        jpql.append(" ORDER BY o.").append(sortBy).append(direction).append(", o.id").append(direction);
+    }
+
+    private static void bindSeek(Query query, String sortBy, KeysetCursor after, int offset, int limit) {
+        if (after != null) {
+            query.setParameter("value", seekValue(sortBy, after));
+            query.setParameter("id", after.getId());
+        } else if (offset > 0) {
+            query.setFirstResult(offset);
+        }
+        query.setMaxResults(limit + 1);
+    }
+
+    private static KeysetPage<Order> toPage(List<Order> rows, String sortBy, boolean descending, int limit) {
+        boolean hasNext = rows.size() > limit;
+        List<Order> items = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = items.get(items.size() - 1);
+            String value = SORT_ORDER_DATE.equals(sortBy)
+                    ? last.getOrderDate().toString()
+                    : last.getTotalAmount().toPlainString();
+            nextCursor = new KeysetCursor(sortKey(sortBy, descending), value, last.getId()).encode();
+        }
+        return new KeysetPage<>(items, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Filtres de la recherche admin ; un champ null n'ajoute aucun prédicat
+public class OrderSearchCriteria {
+
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private Long userId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String orderNumberPrefix;
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(PaymentStatus paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public BigDecimal getMinAmount() { return minAmount; }
+    public void setMinAmount(BigDecimal minAmount) { this.minAmount = minAmount; }
+
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public void setMaxAmount(BigDecimal maxAmount) { this.maxAmount = maxAmount; }
+
+    public String getOrderNumberPrefix() { return orderNumberPrefix; }
+    public void setOrderNumberPrefix(String orderNumberPrefix) { this.orderNumberPrefix = orderNumberPrefix; }
+}
@@ -0,0 +1,46 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+// Prédicats de la recherche admin, combinés seulement pour les filtres renseignés
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> matching(OrderSearchCriteria criteria) {
+        Specification<Order> spec = (root, query, cb) -> cb.conjunction();
+        if (criteria.getStatus() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), criteria.getStatus()));
+        }
+        if (criteria.getPaymentStatus() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentStatus"), criteria.getPaymentStatus()));
+        }
+        if (criteria.getUserId() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("userId"), criteria.getUserId()));
+        }
+        if (criteria.getFrom() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("orderDate"), criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("orderDate"), criteria.getTo()));
+        }
+        if (criteria.getMinAmount() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("totalAmount"), criteria.getMinAmount()));
+        }
+        if (criteria.getMaxAmount() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("totalAmount"), criteria.getMaxAmount()));
+        }
+        if (criteria.getOrderNumberPrefix() != null && !criteria.getOrderNumberPrefix().isBlank()) {
+            // Préfixe seulement (LIKE 'AKL-0%') : servi par l'index text_pattern_ops de schema.sql
+            String pattern = escapeLike(criteria.getOrderNumberPrefix().trim().toUpperCase()) + "%";
+            spec = spec.and((root, query, cb) -> cb.like(root.get("orderNumber"), pattern, '\\'));
+        }
+        return spec;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
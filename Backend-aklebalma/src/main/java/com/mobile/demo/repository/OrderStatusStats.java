@@ -0,0 +1,15 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.enums.OrderStatus;
+
+import java.math.BigDecimal;
+
+// Projection d'agrégat : nombre de commandes et chiffre d'affaires pour un statut
+public interface OrderStatusStats {
+
+    OrderStatus getStatus();
+
+    Long getOrderCount();
+
+    BigDecimal getRevenue();
+}
@@ -2,9 +2,12 @@ package com.mobile.demo.repository;
 
 import com.mobile.demo.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,4 +24,25 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0 AND p.isAvailable = true")
     List<Product> findAvailableProducts();
+
+    // Décrément conditionnel en une seule requête : 0 ligne modifiée si le stock est insuffisant
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, " +
+           "p.isAvailable = CASE WHEN p.stockQuantity - :quantity > 0 THEN true ELSE false END " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity AND (p.flashSale IS NULL OR p.flashSale = false)")
+    int decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // Remise en stock (réservation libérée, commande annulée)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.isAvailable = true WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // État minimal pour les compteurs par catégorie : id, catégorie, stock, disponibilité
+    @Query("SELECT p.id, p.categoryId, p.stockQuantity, p.isAvailable FROM Product p")
+    List<Object[]> findCategoryStates();
+
+    @Query("SELECT p.id, p.categoryId, p.stockQuantity, p.isAvailable FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findCategoryStates(@Param("ids") Collection<Long> ids);
 }
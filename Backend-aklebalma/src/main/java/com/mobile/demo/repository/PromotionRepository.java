@@ -0,0 +1,20 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    // Promotions en cours ou à venir : les seules utiles pour la liste de prix
+    @Query("SELECT p FROM Promotion p WHERE p.active = true AND p.endsAt > :now")
+    List<Promotion> findCurrentAndUpcoming(@Param("now") LocalDateTime now);
+
+    List<Promotion> findAllByOrderByStartsAtDesc();
+}
@@ -0,0 +1,18 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.StockReservation;
+import com.mobile.demo.enums.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Lignes d'une réservation
+    List<StockReservation> findByReference(String reference);
+
+    // Réservations rattachées à une commande
+    List<StockReservation> findByOrderIdAndStatus(Long orderId, ReservationStatus status);
+}
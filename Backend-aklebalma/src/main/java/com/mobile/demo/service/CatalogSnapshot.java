@@ -0,0 +1,268 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.InvalidPageRequestException;
+import com.mobile.demo.repository.KeysetCursor;
+import com.mobile.demo.repository.KeysetPage;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+// Vue du catalogue construite en une fois puis publiée atomiquement par ProductService.
+// Les produits sont copiés à la construction : aucune entité gérée par JPA n'est partagée entre requêtes.
+// Seul le stock change ensuite, par copie sur écriture : un produit ou un résumé déjà remis à un lecteur
+// n'est jamais modifié, la nouvelle copie remplace l'ancienne dans son emplacement.
+public final class CatalogSnapshot {
+
+    // Tris disponibles pour la liste paginée
+    public static final String SORT_RECENT = "recent";
+    public static final String SORT_PRICE_ASC = "price_asc";
+    public static final String SORT_PRICE_DESC = "price_desc";
+
+    // (dateAdded, id) décroissants
+    private static final Comparator<ProductSummary> RECENT_ORDER = Comparator
+            .comparing(ProductSummary::getDateAdded)
+            .thenComparing(ProductSummary::getId)
+            .reversed();
+
+    // (price, id) croissants ; parcouru à l'envers pour price_desc
+    private static final Comparator<ProductSummary> PRICE_ORDER = Comparator
+            .comparing(ProductSummary::getPrice)
+            .thenComparing(ProductSummary::getId);
+
+    private static final CatalogSnapshot EMPTY = new CatalogSnapshot(-1L, Collections.emptyList());
+
+    private final long version;
+    private final LocalDateTime builtAt;
+    // Un emplacement par produit ; les index et les tris ne gardent que des positions
+    private final AtomicReferenceArray<Product> productSlots;
+    private final AtomicReferenceArray<ProductSummary> summarySlots;
+    private final List<Product> products;
+    private final Map<Long, Integer> positionsById;
+    private final Map<Long, List<Product>> productsByCategory;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    // Positions triées : les colonnes de tri ne changent pas avec le stock
+    private final int[] positionsByRecent;
+    private final int[] positionsByPrice;
+
+    CatalogSnapshot(long version, List<Product> source) {
+        this.version = version;
+        this.builtAt = LocalDateTime.now();
+
+        int size = source.size();
+        this.productSlots = new AtomicReferenceArray<>(size);
+        this.summarySlots = new AtomicReferenceArray<>(size);
+        Map<Long, Integer> positions = new HashMap<>(size * 2);
+        Map<Long, List<Integer>> categoryPositions = new LinkedHashMap<>();
+
+        for (int position = 0; position < size; position++) {
+            Product copy = copyOf(source.get(position));
+            productSlots.set(position, copy);
+            summarySlots.set(position, new ProductSummary(copy));
+            positions.put(copy.getId(), position);
+            if (copy.getCategoryId() != null) {
+                categoryPositions.computeIfAbsent(copy.getCategoryId(), id -> new ArrayList<>()).add(position);
+            }
+        }
+
+        Map<Long, List<Product>> byCategory = new LinkedHashMap<>();
+        categoryPositions.forEach((id, list) ->
+                byCategory.put(id, new SlotList(list.stream().mapToInt(Integer::intValue).toArray())));
+
+        this.products = new SlotList(null);
+        this.positionsById = positions;
+        this.productsByCategory = Collections.unmodifiableMap(byCategory);
+        this.searchIndex = new ProductSearchIndex(this.products);
+        this.facetIndex = new ProductFacetIndex(this.products);
+        this.positionsByRecent = sortedPositions(RECENT_ORDER);
+        this.positionsByPrice = sortedPositions(PRICE_ORDER);
+    }
+
+    // Liste en lecture seule sur les emplacements (tous, ou ceux d'une catégorie) :
+    // chaque lecture renvoie la copie courante du produit
+    private final class SlotList extends AbstractList<Product> implements RandomAccess {
+        private final int[] positions;
+
+        SlotList(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public Product get(int index) {
+            return productSlots.get(positions == null ? index : positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions == null ? productSlots.length() : positions.length;
+        }
+    }
+
+    private int[] sortedPositions(Comparator<ProductSummary> order) {
+        return IntStream.range(0, summarySlots.length()).boxed()
+                .sorted(Comparator.comparing(summarySlots::get, order))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    // Getters
+    public long getVersion() { return version; }
+
+    public LocalDateTime getBuiltAt() { return builtAt; }
+
+    public List<Product> getProducts() { return products; }
+
+    public int size() { return products.size(); }
+
+    public Product getById(Long id) {
+        Integer position = positionsById.get(id);
+        return position == null ? null : productSlots.get(position);
+    }
+
+    public List<Product> getByCategory(Long categoryId) {
+        return productsByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    // Stock d'un produit : nouvelle copie du produit et de son résumé, publiée dans leur emplacement.
+    // Ni les index ni les tris n'en dépendent, seul le bitmap « en stock » des facettes est recalculé.
+    synchronized void updateStock(Long id, Integer stockQuantity, Boolean isAvailable) {
+        Integer position = positionsById.get(id);
+        if (position == null) {
+            return;
+        }
+        Product copy = copyOf(productSlots.get(position));
+        copy.setStockQuantity(stockQuantity);
+        copy.setIsAvailable(isAvailable);
+        productSlots.set(position, copy);
+        summarySlots.set(position, new ProductSummary(copy));
+        facetIndex.updateStock(position);
+    }
+
+    // Recherche plein texte classée et paginée, servie par l'index inversé
+    public ProductSearchIndex.SearchResult search(String query, int page, int size) {
+        return searchIndex.search(query, page, size);
+    }
+
+    // Filtre combiné (catégorie, marque, prix, stock) avec compteurs de facettes
+    public ProductFacetIndex.FilterResult filter(ProductFacetIndex.Filter filter, int page, int size) {
+        return facetIndex.filter(filter, page, size);
+    }
+
+    // Liste paginée par clé : la position est retrouvée par recherche dichotomique,
+    // le coût d'une page ne dépend donc pas de la profondeur de défilement
+    public KeysetPage<ProductSummary> list(String sort, String cursor, int limit) {
+        int[] view;
+        Comparator<ProductSummary> order;
+        boolean descending = false;
+        switch (sort) {
+            case SORT_RECENT:
+                view = positionsByRecent;
+                order = RECENT_ORDER;
+                break;
+            case SORT_PRICE_ASC:
+                view = positionsByPrice;
+                order = PRICE_ORDER;
+                break;
+            case SORT_PRICE_DESC:
+                view = positionsByPrice;
+                order = PRICE_ORDER;
+                descending = true;
+                break;
+            default:
+                throw new InvalidPageRequestException("Tri non supporté: " + sort);
+        }
+
+        // Position du premier élément à renvoyer dans l'ordre de parcours
+        int position;
+        if (cursor == null || cursor.isBlank()) {
+            position = descending ? view.length - 1 : 0;
+        } else {
+            ProductSummary key = keyOf(sort, KeysetCursor.decode(cursor));
+            int index = binarySearch(view, key, order);
+            int insertion = index >= 0 ? index : -index - 1;
+            position = descending ? insertion - 1 : (index >= 0 ? index + 1 : insertion);
+        }
+
+        List<ProductSummary> items = new ArrayList<>(Math.min(limit, view.length));
+        int step = descending ? -1 : 1;
+        while (items.size() < limit && position >= 0 && position < view.length) {
+            items.add(summarySlots.get(view[position]));
+            position += step;
+        }
+
+        boolean hasNext = position >= 0 && position < view.length;
+        String nextCursor = hasNext && !items.isEmpty() ? cursorOf(sort, items.get(items.size() - 1)) : null;
+        return new KeysetPage<>(items, nextCursor, hasNext);
+    }
+
+    // Même contrat que Arrays.binarySearch, sur les résumés désignés par des positions triées
+    private int binarySearch(int[] view, ProductSummary key, Comparator<ProductSummary> order) {
+        int low = 0;
+        int high = view.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = order.compare(summarySlots.get(view[mid]), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static String cursorOf(String sort, ProductSummary last) {
+        String value = SORT_RECENT.equals(sort) ? last.getDateAdded().toString() : last.getPrice().toPlainString();
+        return new KeysetCursor(sort, value, last.getId()).encode();
+    }
+
+    // Produit fictif portant seulement les colonnes de tri du curseur
+    private static ProductSummary keyOf(String sort, KeysetCursor cursor) {
+        if (!sort.equals(cursor.getSort())) {
+            throw new InvalidPageRequestException("Le curseur ne correspond pas au tri demandé");
+        }
+        Product probe = new Product();
+        probe.setId(cursor.getId());
+        if (SORT_RECENT.equals(sort)) {
+            probe.setDateAdded(LocalDateTime.parse(cursor.getValue()));
+        } else {
+            probe.setPrice(new BigDecimal(cursor.getValue()));
+        }
+        return new ProductSummary(probe);
+    }
+
+    private static Product copyOf(Product source) {
+        Product copy = new Product();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setPrice(source.getPrice());
+        copy.setStockQuantity(source.getStockQuantity());
+        copy.setImageUrl(source.getImageUrl());
+        copy.setBrand(source.getBrand());
+        copy.setModel(source.getModel());
+        copy.setIsAvailable(source.getIsAvailable());
+        copy.setDateAdded(source.getDateAdded());
+        copy.setCategoryId(source.getCategoryId());
+        copy.setFlashSale(source.getFlashSale());
+        return copy;
+    }
+}
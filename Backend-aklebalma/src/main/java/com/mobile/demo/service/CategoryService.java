@@ -0,0 +1,284 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Category;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.CategoryRepository;
+import com.mobile.demo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Arbre des catégories avec nombre de produits (total et en stock) tenu en mémoire.
+// Les compteurs sont chargés une fois, puis ajustés produit par produit à chaque écriture :
+// l'écran de navigation ne lance jamais de COUNT(*) ... GROUP BY.
+@Service
+public class CategoryService {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Catégorie et état de stock connus pour chaque produit, pour calculer les écarts
+    private final Map<Long, ProductState> productStates = new HashMap<>();
+    private final Map<Long, long[]> counts = new HashMap<>();
+    private final Object countsLock = new Object();
+    private boolean countsLoaded;
+
+    // Produits dont le stock a bougé par une requête SQL directe : relus avant la prochaine lecture
+    private final Set<Long> dirtyProducts = ConcurrentHashMap.newKeySet();
+
+    // Liste des catégories, rechargée seulement après une écriture sur les catégories
+    private final AtomicReference<List<Category>> categories = new AtomicReference<>();
+
+    private static final class ProductState {
+        private final Long categoryId;
+        private final boolean inStock;
+
+        ProductState(Long categoryId, boolean inStock) {
+            this.categoryId = categoryId;
+            this.inStock = inStock;
+        }
+    }
+
+    public List<Category> findAll() {
+        List<Category> current = categories.get();
+        if (current != null) {
+            return current;
+        }
+        // Chargement et invalidation sous le même verrou : une liste lue avant une écriture
+        // ne peut pas être publiée après son invalidation
+        synchronized (categories) {
+            current = categories.get();
+            if (current == null) {
+                current = new ArrayList<>(categoryRepository.findAll());
+                current.sort(Comparator.comparing(Category::getName, String.CASE_INSENSITIVE_ORDER));
+                categories.set(current);
+            }
+            return current;
+        }
+    }
+
+    public Category findById(Long id) {
+        return categoryRepository.findById(id).orElse(null);
+    }
+
+    public Category save(Category category) {
+        if (category.getName() == null || category.getName().isBlank()) {
+            throw new RuntimeException("Le nom de la catégorie est obligatoire");
+        }
+        if (category.getParentId() != null) {
+            checkParent(category);
+        }
+        Category saved = categoryRepository.save(category);
+        invalidateCategories();
+        System.out.println("🗂️ Catégorie enregistrée: " + saved.getName());
+        return saved;
+    }
+
+    // Suppression refusée tant que la catégorie a des produits ou des sous-catégories
+    public void deleteById(Long id) {
+        if (!categoryRepository.findByParentId(id).isEmpty()) {
+            throw new RuntimeException("La catégorie contient des sous-catégories");
+        }
+        if (getCounts(id)[0] > 0) {
+            throw new RuntimeException("La catégorie contient encore des produits");
+        }
+        categoryRepository.deleteById(id);
+        invalidateCategories();
+        System.out.println("🗂️ Catégorie supprimée: " + id);
+    }
+
+    private void invalidateCategories() {
+        synchronized (categories) {
+            categories.set(null);
+        }
+    }
+
+    // Arbre complet ; chaque nœud porte ses propres compteurs et ceux de sa sous-arborescence
+    public List<Map<String, Object>> getTree() {
+        List<Category> all = findAll();
+        Map<Long, long[]> snapshot = snapshotCounts();
+
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        Set<Long> known = new HashSet<>();
+        for (Category category : all) {
+            known.add(category.getId());
+        }
+        List<Category> roots = new ArrayList<>();
+        for (Category category : all) {
+            // Un parent disparu ne doit pas faire perdre la catégorie
+            if (category.getParentId() == null || !known.contains(category.getParentId())) {
+                roots.add(category);
+            } else {
+                childrenByParent.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category);
+            }
+        }
+
+        List<Map<String, Object>> tree = new ArrayList<>(roots.size());
+        for (Category root : roots) {
+            tree.add(toNode(root, childrenByParent, snapshot, new HashSet<>()));
+        }
+        return tree;
+    }
+
+    // Compteurs d'une seule catégorie : {total, en stock}
+    public long[] getCounts(Long categoryId) {
+        Map<Long, long[]> snapshot = snapshotCounts();
+        long[] current = snapshot.get(categoryId);
+        return current == null ? new long[]{0, 0} : current;
+    }
+
+    // Produit créé ou modifié (catégorie, stock ou disponibilité)
+    public void productSaved(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        synchronized (countsLock) {
+            if (countsLoaded) {
+                apply(product.getId(), new ProductState(product.getCategoryId(), isInStock(
+                        product.getStockQuantity(), product.getIsAvailable())));
+            }
+        }
+    }
+
+    public void productDeleted(Long productId) {
+        synchronized (countsLock) {
+            if (countsLoaded) {
+                apply(productId, null);
+            }
+        }
+    }
+
+    // Stock modifié hors entité (décrément SQL, réservation, remise en stock)
+    public void stockChanged(Collection<Long> productIds) {
+        dirtyProducts.addAll(productIds);
+    }
+
+    private Map<Long, long[]> snapshotCounts() {
+        synchronized (countsLock) {
+            if (!countsLoaded) {
+                load();
+            } else if (!dirtyProducts.isEmpty()) {
+                refreshDirty();
+            }
+            Map<Long, long[]> copy = new HashMap<>(counts.size() * 2);
+            counts.forEach((categoryId, value) -> copy.put(categoryId, value.clone()));
+            return copy;
+        }
+    }
+
+    // Premier chargement : état de chaque produit, compté en mémoire
+    private void load() {
+        dirtyProducts.clear();
+        productStates.clear();
+        counts.clear();
+        for (Object[] row : productRepository.findCategoryStates()) {
+            apply((Long) row[0], stateOf(row));
+        }
+        countsLoaded = true;
+        System.out.println("🗂️ Compteurs de catégories chargés (" + productStates.size() + " produits)");
+    }
+
+    // Relit uniquement les produits touchés depuis la dernière lecture (une requête IN)
+    private void refreshDirty() {
+        List<Long> ids = new ArrayList<>(dirtyProducts);
+        dirtyProducts.removeAll(ids);
+        Set<Long> found = new HashSet<>();
+        for (Object[] row : productRepository.findCategoryStates(ids)) {
+            found.add((Long) row[0]);
+            apply((Long) row[0], stateOf(row));
+        }
+        for (Long id : ids) {
+            if (!found.contains(id)) {
+                apply(id, null);
+            }
+        }
+    }
+
+    private void apply(Long productId, ProductState next) {
+        ProductState previous = next == null ? productStates.remove(productId) : productStates.put(productId, next);
+        if (previous != null && previous.categoryId != null) {
+            adjust(previous.categoryId, -1, previous.inStock ? -1 : 0);
+        }
+        if (next != null && next.categoryId != null) {
+            adjust(next.categoryId, 1, next.inStock ? 1 : 0);
+        }
+    }
+
+    private void adjust(Long categoryId, long total, long inStock) {
+        long[] current = counts.computeIfAbsent(categoryId, k -> new long[2]);
+        current[0] += total;
+        current[1] += inStock;
+    }
+
+    private Map<String, Object> toNode(Category category, Map<Long, List<Category>> childrenByParent,
+                                       Map<Long, long[]> snapshot, Set<Long> visited) {
+        visited.add(category.getId());
+        long[] own = snapshot.getOrDefault(category.getId(), new long[2]);
+        long total = own[0];
+        long inStock = own[1];
+
+        List<Map<String, Object>> children = new ArrayList<>();
+        for (Category child : childrenByParent.getOrDefault(category.getId(), new ArrayList<>())) {
+            if (visited.contains(child.getId())) {
+                continue;
+            }
+            Map<String, Object> childNode = toNode(child, childrenByParent, snapshot, visited);
+            total += (Long) childNode.get("totalProductCount");
+            inStock += (Long) childNode.get("totalInStockCount");
+            children.add(childNode);
+        }
+
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("id", category.getId());
+        node.put("name", category.getName());
+        node.put("description", category.getDescription());
+        node.put("parentId", category.getParentId());
+        node.put("productCount", own[0]);
+        node.put("inStockCount", own[1]);
+        node.put("totalProductCount", total);
+        node.put("totalInStockCount", inStock);
+        node.put("children", children);
+        return node;
+    }
+
+    // Refuser un parent inexistant ou une boucle dans l'arbre
+    private void checkParent(Category category) {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Category existing : findAll()) {
+            parents.put(existing.getId(), existing.getParentId());
+        }
+        if (!parents.containsKey(category.getParentId())) {
+            throw new RuntimeException("Catégorie parente non trouvée: " + category.getParentId());
+        }
+        Long ancestor = category.getParentId();
+        Set<Long> seen = new HashSet<>();
+        while (ancestor != null && seen.add(ancestor)) {
+            if (ancestor.equals(category.getId())) {
+                throw new RuntimeException("Une catégorie ne peut pas être sa propre ancêtre");
+            }
+            ancestor = parents.get(ancestor);
+        }
+    }
+
+    private static ProductState stateOf(Object[] row) {
+        return new ProductState((Long) row[1], isInStock((Integer) row[2], (Boolean) row[3]));
+    }
+
+    private static boolean isInStock(Integer stockQuantity, Boolean isAvailable) {
+        return Boolean.TRUE.equals(isAvailable) && stockQuantity != null && stockQuantity > 0;
+    }
+}
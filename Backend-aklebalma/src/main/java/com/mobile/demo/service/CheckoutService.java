@@ -0,0 +1,174 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.CreditScore;
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.CreditScoreRepository;
+import com.mobile.demo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Passage de commande complet en une transaction : prix calculés côté serveur, stock réservé,
+// crédit vérifié, puis commande, lignes, plan de paiement et échéances insérés par lots.
+// Le nombre d'allers-retours en base ne dépend pas de la taille du panier.
+@Service
+public class CheckoutService {
+
+    private static final String ORDER_ITEM_SQL =
+            "INSERT INTO order_items (quantity, unit_price, total_price, order_id, product_id, " +
+            "product_name, product_brand, product_model) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // L'encours ne doit dépasser ni le pouvoir d'achat ni le plafond du score de crédit
+    private static final String CREDIT_SQL =
+            "UPDATE users SET remaining_to_pay = COALESCE(remaining_to_pay, 0) + ? " +
+            "WHERE id = ? AND is_active = true " +
+            "AND COALESCE(remaining_to_pay, 0) + ? <= LEAST(COALESCE(purchasing_power, 0), ?) " +
+            "RETURNING remaining_to_pay";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CreditScoreRepository creditScoreRepository;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentPlanService paymentPlanService;
+
+    // Ligne de panier chiffrée côté serveur
+    private static final class PricedLine {
+        private final Product product;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final BigDecimal totalPrice;
+
+        PricedLine(Product product, int quantity, BigDecimal unitPrice) {
+            this.product = product;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    @Transactional
+    public Map<String, Object> checkout(Long userId, Map<Long, Integer> quantities, Integer numberOfInstallments,
+                                        Long deliveryAddressId) {
+        System.out.println("🧾 Service: Checkout user " + userId + " (" + quantities.size() + " produit(s))");
+
+        if (userId == null) {
+            throw new RuntimeException("Utilisateur obligatoire");
+        }
+        int installments = numberOfInstallments == null ? 1 : numberOfInstallments;
+        if (!PaymentPlanService.ALLOWED_INSTALLMENTS.contains(installments)) {
+            throw new RuntimeException("Nombre d'échéances invalide: " + installments);
+        }
+
+        // 1. Prix : une seule lecture des produits, promotions appliquées depuis la liste de prix en mémoire
+        List<PricedLine> lines = priceLines(quantities);
+        BigDecimal total = BigDecimal.ZERO;
+        for (PricedLine line : lines) {
+            total = total.add(line.totalPrice);
+        }
+
+        // 2. Stock : décréments conditionnels en un lot (tout ou rien)
+        String reservation = stockReservationService.reserve(userId, quantities);
+
+        // 3. Crédit : score éligible et encours relevé par une mise à jour conditionnelle
+        CreditScore creditScore = creditScoreRepository.findByUserId(userId);
+        if (creditScore == null) {
+            throw new RuntimeException("Aucun score de crédit pour l'utilisateur " + userId);
+        }
+        List<BigDecimal> outstanding = jdbcTemplate.queryForList(CREDIT_SQL, BigDecimal.class,
+                total, userId, total, creditScore.getCreditLimit());
+        if (outstanding.isEmpty() || !creditScore.checkEligibility(outstanding.get(0))) {
+            throw new RuntimeException("Crédit insuffisant pour un montant de " + total);
+        }
+
+        // 4. Commande puis lignes, plan et échéances insérés par lots
+        Order order = new Order(userId, total);
+        order.setDeliveryAddressId(deliveryAddressId);
+        order = orderService.createOrder(order);
+
+        insertItems(order.getId(), lines);
+        Map<String, Object> paymentPlan = paymentPlanService.createPlan(order.getId(), userId, total, installments);
+
+        stockReservationService.commit(reservation, order.getId());
+        jdbcTemplate.update("UPDATE carts SET total_amount = 0, updated_at = ? WHERE user_id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), userId);
+
+        System.out.println("✅ Commande " + order.getOrderNumber() + " créée : " + total + " FCFA en "
+                + installments + " échéance(s)");
+
+        List<Map<String, Object>> items = new ArrayList<>(lines.size());
+        for (PricedLine line : lines) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("productId", line.product.getId());
+            item.put("productName", line.product.getName());
+            item.put("quantity", line.quantity);
+            item.put("unitPrice", line.unitPrice);
+            item.put("totalPrice", line.totalPrice);
+            items.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("order", order);
+        result.put("items", items);
+        result.put("paymentPlan", paymentPlan);
+        result.put("remainingToPay", outstanding.get(0));
+        return result;
+    }
+
+    private List<PricedLine> priceLines(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new RuntimeException("Le panier est vide");
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
+        List<PricedLine> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new RuntimeException("Produit non trouvé: " + productId);
+            }
+            if (quantity == null || quantity <= 0) {
+                throw new RuntimeException("Quantité invalide pour le produit " + productId);
+            }
+            lines.add(new PricedLine(product, quantity, pricingService.priceOf(product).getEffectivePrice()));
+        });
+        return lines;
+    }
+
+    private void insertItems(Long orderId, List<PricedLine> lines) {
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        for (PricedLine line : lines) {
+            rows.add(new Object[]{line.quantity, line.unitPrice, line.totalPrice, orderId, line.product.getId(),
+                    line.product.getName(), line.product.getBrand(), line.product.getModel()});
+        }
+        jdbcTemplate.batchUpdate(ORDER_ITEM_SQL, rows);
+    }
+}
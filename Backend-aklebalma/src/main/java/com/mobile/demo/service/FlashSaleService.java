@@ -0,0 +1,386 @@
+package com.mobile.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mode vente flash : le stock des produits sélectionnés est servi par des compteurs répartis en mémoire.
+// Chaque instance prend des lots de stock dans products.stock_quantity (flash_sale_allocations) et les vend
+// sur ses compteurs ; chaque achat validé laisse une ligne dans flash_sale_claims (simple insertion, sans
+// verrou sur products). Le drapeau products.flash_sale fait foi : au démarrage, chaque instance reconstruit
+// ses compteurs depuis sa part, et une instance qui voit le drapeau tombé rend ce qui lui reste.
+@Service
+public class FlashSaleService {
+
+    private static final String FLAG_ON_SQL =
+            "UPDATE products SET flash_sale = true, is_available = true WHERE id = ? RETURNING stock_quantity";
+
+    private static final String FLAG_OFF_SQL =
+            "UPDATE products SET flash_sale = false, is_available = stock_quantity > 0 WHERE id = ? AND flash_sale = true";
+
+    private static final String FLAGGED_SQL = "SELECT id FROM products WHERE flash_sale = true";
+
+    // Prendre jusqu'à ? unités du stock commun (verrou de ligne le temps d'une requête, une fois par lot)
+    private static final String TAKE_SQL =
+            "UPDATE products p SET stock_quantity = p.stock_quantity - t.taken " +
+            "FROM (SELECT id, LEAST(stock_quantity, ?) AS taken FROM products " +
+            "      WHERE id = ? AND flash_sale = true FOR UPDATE) t " +
+            "WHERE p.id = t.id RETURNING t.taken, p.stock_quantity";
+
+    private static final String ALLOCATE_SQL =
+            "INSERT INTO flash_sale_allocations (product_id, node_id, allocated, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (product_id, node_id) DO UPDATE SET " +
+            "allocated = flash_sale_allocations.allocated + EXCLUDED.allocated, updated_at = EXCLUDED.updated_at";
+
+    // Rendre des unités de la part de l'instance au stock commun
+    private static final String RETURN_SQL =
+            "WITH part AS (UPDATE flash_sale_allocations SET allocated = allocated - ?, updated_at = ? " +
+            "              WHERE product_id = ? AND node_id = ? RETURNING product_id) " +
+            "UPDATE products SET stock_quantity = stock_quantity + ?, is_available = flash_sale OR stock_quantity + ? > 0 " +
+            "WHERE id IN (SELECT product_id FROM part) RETURNING stock_quantity";
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO flash_sale_claims (product_id, node_id, quantity, created_at) VALUES (?, ?, ?, ?)";
+
+    // Report périodique : les achats validés sortent définitivement de la part de l'instance
+    private static final String COMPACT_SQL =
+            "WITH moved AS (DELETE FROM flash_sale_claims WHERE product_id = ? AND node_id = ? RETURNING quantity) " +
+            "UPDATE flash_sale_allocations SET allocated = allocated - (SELECT coalesce(sum(quantity), 0) FROM moved), " +
+            "updated_at = ? WHERE product_id = ? AND node_id = ? RETURNING allocated";
+
+    private static final String NODE_ALLOCATIONS_SQL =
+            "SELECT product_id FROM flash_sale_allocations WHERE node_id = ?";
+
+    private static final String DROP_EMPTY_SQL =
+            "DELETE FROM flash_sale_allocations WHERE product_id = ? AND node_id = ? AND allocated = 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${flashsale.stripes:16}")
+    private int stripes;
+
+    // Unités prises au stock commun à chaque recharge des compteurs
+    @Value("${flashsale.allocation-batch:100}")
+    private int allocationBatch;
+
+    @Value("${order-number.node-id:0}")
+    private long nodeId;
+
+    // Ventes servies par les compteurs de cette instance
+    private final Map<Long, FlashSale> activeSales = new ConcurrentHashMap<>();
+
+    // Produits dont le drapeau flash_sale est posé en base (relu à chaque report)
+    private final Set<Long> flagged = ConcurrentHashMap.newKeySet();
+
+    // Compteurs d'une vente flash sur cette instance
+    private static final class FlashSale {
+        private final StripedStockCounter counter;
+        private final LocalDateTime startedAt;
+        // Dernier stock commun connu (hors parts des instances)
+        private volatile long sharedStock;
+        // Vente retirée : les unités rendues repartent en base, plus dans les compteurs
+        private boolean detached;
+
+        FlashSale(StripedStockCounter counter) {
+            this.counter = counter;
+            this.startedAt = LocalDateTime.now();
+        }
+    }
+
+    // Démarrage : reprendre les ventes en cours avec la part de l'instance, rendre les parts des ventes terminées
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        refreshFlags();
+        int resumed = 0;
+        for (Long productId : jdbcTemplate.queryForList(NODE_ALLOCATIONS_SQL, Long.class, nodeId)) {
+            long allocated = compact(productId);
+            if (flagged.contains(productId)) {
+                FlashSale sale = new FlashSale(new StripedStockCounter(allocated, stripes));
+                activeSales.put(productId, sale);
+                resumed++;
+            } else {
+                returnToShared(productId, allocated);
+                jdbcTemplate.update(DROP_EMPTY_SQL, productId, nodeId);
+            }
+        }
+        if (resumed > 0 || !flagged.isEmpty()) {
+            System.out.println("⚡ Ventes flash reprises : " + resumed + " (en cours : " + flagged.size() + ")");
+        }
+    }
+
+    public boolean isActive(Long productId) {
+        return flagged.contains(productId);
+    }
+
+    // Relire le drapeau d'un produit (décrément SQL refusé : vente activée par une autre instance ?)
+    public boolean refreshFlag(Long productId) {
+        List<Boolean> flag = jdbcTemplate.queryForList(
+                "SELECT flash_sale FROM products WHERE id = ?", Boolean.class, productId);
+        boolean active = !flag.isEmpty() && Boolean.TRUE.equals(flag.get(0));
+        if (active) {
+            flagged.add(productId);
+        } else {
+            flagged.remove(productId);
+        }
+        return active;
+    }
+
+    // Activer le mode vente flash : le drapeau est validé avant la première prise de stock.
+    // Un décrément SQL concurrent passe avant le drapeau ou échoue après, jamais entre les deux.
+    public Map<String, Object> enable(Long productId) {
+        List<Integer> stock = requiresNew().execute(status ->
+                jdbcTemplate.queryForList(FLAG_ON_SQL, Integer.class, productId));
+        if (stock == null || stock.isEmpty()) {
+            throw new RuntimeException("Produit non trouvé: " + productId);
+        }
+        flagged.add(productId);
+        FlashSale sale = attach(productId);
+        productService.invalidateStock(List.of(productId));
+        System.out.println("⚡ Vente flash activée pour le produit " + productId
+                + " (stock " + (sale.counter.available() + sale.sharedStock) + ")");
+        return getStatus(productId);
+    }
+
+    // Désactiver : le drapeau tombe, la part de cette instance est rendue ; les autres instances
+    // rendent la leur au prochain report
+    public Map<String, Object> disable(Long productId) {
+        int updated = requiresNew().execute(status -> jdbcTemplate.update(FLAG_OFF_SQL, productId));
+        flagged.remove(productId);
+        long returned = detach(productId);
+        if (updated == 0 && returned == 0) {
+            throw new RuntimeException("Aucune vente flash active pour le produit " + productId);
+        }
+        System.out.println("⚡ Vente flash terminée pour le produit " + productId + " (" + returned + " unité(s) rendue(s))");
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("productId", productId);
+        status.put("active", false);
+        status.put("returned", returned);
+        return status;
+    }
+
+    public List<Map<String, Object>> getActiveSales() {
+        List<Map<String, Object>> sales = new ArrayList<>();
+        flagged.forEach(productId -> sales.add(getStatus(productId)));
+        return sales;
+    }
+
+    public Map<String, Object> getStatus(Long productId) {
+        FlashSale sale = activeSales.get(productId);
+        Map<String, Object> status = new HashMap<>();
+        status.put("productId", productId);
+        status.put("active", flagged.contains(productId));
+        status.put("nodeId", nodeId);
+        if (sale != null) {
+            status.put("available", sale.counter.available() + sale.sharedStock);
+            status.put("nodeAvailable", sale.counter.available());
+            status.put("stripes", sale.counter.getStripes());
+            status.put("startedAt", sale.startedAt);
+        }
+        return status;
+    }
+
+    // Stock disponible vu de cette instance, ou null si elle ne sert pas ce produit (lire la colonne)
+    public Long getAvailable(Long productId) {
+        FlashSale sale = activeSales.get(productId);
+        return sale == null ? null : sale.counter.available() + sale.sharedStock;
+    }
+
+    // Prendre des unités sans verrou ; l'achat est inscrit dans la transaction appelante
+    // et, si elle échoue, les unités sont rendues
+    public boolean claim(Long productId, int quantity) {
+        if (!flagged.contains(productId)) {
+            throw new IllegalStateException("Aucune vente flash active pour le produit " + productId);
+        }
+        FlashSale sale = attach(productId);
+        if (!sale.counter.tryClaim(quantity) && !refillAndClaim(productId, sale, quantity)) {
+            return false;
+        }
+        try {
+            jdbcTemplate.update(CLAIM_SQL, productId, nodeId, quantity, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            giveBack(productId, sale, quantity);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        giveBack(productId, sale, quantity);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Rendre des unités aux compteurs ; false si cette instance ne sert pas la vente (passer par la base)
+    public boolean release(Long productId, int quantity) {
+        FlashSale sale = activeSales.get(productId);
+        if (sale == null) {
+            return false;
+        }
+        jdbcTemplate.update(CLAIM_SQL, productId, nodeId, -quantity, Timestamp.valueOf(LocalDateTime.now()));
+        // Les unités ne reviennent en vente qu'une fois la libération validée
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    giveBack(productId, sale, quantity);
+                }
+            });
+        } else {
+            giveBack(productId, sale, quantity);
+        }
+        return true;
+    }
+
+    // Report périodique : achats validés sortis des parts, ventes terminées ailleurs rendues
+    @Scheduled(fixedDelayString = "${flashsale.flush-interval-ms:1000}")
+    public void flushAll() {
+        try {
+            refreshFlags();
+            for (Long productId : jdbcTemplate.queryForList(NODE_ALLOCATIONS_SQL, Long.class, nodeId)) {
+                if (activeSales.containsKey(productId) && !flagged.contains(productId)) {
+                    detach(productId);
+                } else {
+                    compact(productId);
+                    if (!activeSales.containsKey(productId)) {
+                        // Part d'une vente retirée : supprimée quand les derniers achats en cours sont réglés
+                        jdbcTemplate.update(DROP_EMPTY_SQL, productId, nodeId);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors du report des ventes flash: " + e.getMessage());
+        }
+    }
+
+    // Compteurs de la vente sur cette instance, créés une seule fois avec un premier lot de stock
+    private FlashSale attach(Long productId) {
+        return activeSales.computeIfAbsent(productId, id -> {
+            FlashSale sale = new FlashSale(new StripedStockCounter(0, stripes));
+            take(id, sale, allocationBatch);
+            return sale;
+        });
+    }
+
+    // Compteurs vides : recharger depuis le stock commun, un seul thread à la fois par vente
+    private boolean refillAndClaim(Long productId, FlashSale sale, int quantity) {
+        synchronized (sale) {
+            while (!sale.counter.tryClaim(quantity)) {
+                if (sale.detached || take(productId, sale, Math.max(quantity, allocationBatch)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Déplacer des unités du stock commun vers la part de l'instance, dans une transaction à part :
+    // la part reste acquise même si l'achat qui a déclenché la recharge échoue
+    private long take(Long productId, FlashSale sale, int wanted) {
+        Long taken = requiresNew().execute(status -> {
+            List<long[]> rows = jdbcTemplate.query(TAKE_SQL,
+                    (rs, rowNum) -> new long[]{rs.getLong("taken"), rs.getLong("stock_quantity")}, wanted, productId);
+            if (rows.isEmpty()) {
+                return 0L;
+            }
+            long units = rows.get(0)[0];
+            sale.sharedStock = rows.get(0)[1];
+            if (units > 0) {
+                jdbcTemplate.update(ALLOCATE_SQL, productId, nodeId, units, Timestamp.valueOf(LocalDateTime.now()));
+            }
+            return units;
+        });
+        if (taken == null || taken == 0) {
+            return 0;
+        }
+        sale.counter.release(Math.toIntExact(taken));
+        productService.invalidateStock(List.of(productId));
+        return taken;
+    }
+
+    // Unités revenues (achat annulé, réservation libérée) : aux compteurs, ou au stock commun si la vente est retirée
+    private void giveBack(Long productId, FlashSale sale, int quantity) {
+        synchronized (sale) {
+            if (!sale.detached) {
+                sale.counter.release(quantity);
+                return;
+            }
+        }
+        returnToShared(productId, quantity);
+    }
+
+    // Retirer la vente de cette instance : compteurs vidés et rendus au stock commun
+    private long detach(Long productId) {
+        FlashSale sale = activeSales.remove(productId);
+        if (sale == null) {
+            return 0;
+        }
+        long drained;
+        synchronized (sale) {
+            sale.detached = true;
+            drained = sale.counter.drain();
+        }
+        compact(productId);
+        returnToShared(productId, drained);
+        jdbcTemplate.update(DROP_EMPTY_SQL, productId, nodeId);
+        return drained;
+    }
+
+    private void returnToShared(Long productId, long units) {
+        if (units == 0) {
+            return;
+        }
+        requiresNew().executeWithoutResult(status -> jdbcTemplate.queryForList(RETURN_SQL, Long.class,
+                units, Timestamp.valueOf(LocalDateTime.now()), productId, nodeId, units, units));
+        productService.invalidateStock(List.of(productId));
+    }
+
+    // Part restante de l'instance après report des achats validés
+    private long compact(Long productId) {
+        List<Long> allocated = jdbcTemplate.queryForList(COMPACT_SQL, Long.class,
+                productId, nodeId, Timestamp.valueOf(LocalDateTime.now()), productId, nodeId);
+        return allocated.isEmpty() ? 0 : allocated.get(0);
+    }
+
+    private void refreshFlags() {
+        Set<Long> current = new HashSet<>(jdbcTemplate.queryForList(FLAGGED_SQL, Long.class));
+        flagged.addAll(current);
+        flagged.retainAll(current);
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
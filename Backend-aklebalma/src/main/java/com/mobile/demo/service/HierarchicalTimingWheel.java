@@ -0,0 +1,118 @@
+package com.mobile.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Roue temporelle hiérarchique : chaque niveau a le même nombre de cases, la case d'un niveau
+// couvre un tour complet du niveau inférieur. Ajouter un minuteur et avancer d'une case coûtent O(1) ;
+// quand une case d'un niveau supérieur est atteinte, ses minuteurs redescendent vers les niveaux fins.
+// Temps en millisecondes, sans horloge interne : c'est l'appelant qui fait avancer la roue.
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTicks;
+    private final List<List<Timer<T>>>[] buckets;
+    private long currentTime;
+    private int size;
+
+    private static final class Timer<T> {
+        private final long expiresAt;
+        private final T value;
+
+        Timer(long expiresAt, T value) {
+            this.expiresAt = expiresAt;
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels <= 0) {
+            throw new IllegalArgumentException("Paramètres de roue invalides: " + tickMs + "/" + wheelSize + "/" + levels);
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTicks = new long[levels];
+        this.buckets = new List[levels];
+        long levelTick = tickMs;
+        for (int level = 0; level < levels; level++) {
+            levelTicks[level] = levelTick;
+            List<List<Timer<T>>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new ArrayList<>());
+            }
+            buckets[level] = slots;
+            levelTick = Math.multiplyExact(levelTick, wheelSize);
+        }
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    // Durée garantie à partir de l'instant courant : la case courante du niveau supérieur est
+    // déjà entamée, on ne compte donc que les wheelSize - 1 cases suivantes
+    public long span() {
+        return levelTicks[levelTicks.length - 1] * (wheelSize - 1);
+    }
+
+    // Programmer un minuteur ; false s'il est déjà échu (à déclencher tout de suite par l'appelant)
+    public synchronized boolean add(long expiresAt, T value) {
+        return add(new Timer<>(expiresAt, value));
+    }
+
+    // Avancer jusqu'à now ; renvoie les valeurs échues, dans l'ordre des cases
+    public synchronized List<T> advance(long now) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMs <= now) {
+            if (size == 0) {
+                // Roue vide : inutile de parcourir les cases une à une
+                currentTime = now - Math.floorMod(now, tickMs);
+                break;
+            }
+            currentTime += tickMs;
+            // Case du tick qui vient de s'écouler au niveau le plus fin
+            drain(0, currentTime - tickMs, expired);
+            // Niveaux supérieurs : la case qui commence maintenant redescend d'un cran
+            for (int level = levelTicks.length - 1; level > 0; level--) {
+                if (currentTime % levelTicks[level] == 0) {
+                    drain(level, currentTime, expired);
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean add(Timer<T> timer) {
+        if (timer.expiresAt <= currentTime) {
+            return false;
+        }
+        for (int level = 0; level < levelTicks.length; level++) {
+            long slot = Math.floorDiv(timer.expiresAt, levelTicks[level]);
+            if (slot - Math.floorDiv(currentTime, levelTicks[level]) < wheelSize) {
+                buckets[level].get((int) Math.floorMod(slot, (long) wheelSize)).add(timer);
+                size++;
+                return true;
+            }
+        }
+        throw new IllegalArgumentException("Échéance hors de la roue: " + timer.expiresAt);
+    }
+
+    // Vider la case couvrant time : au niveau 0 les minuteurs sont échus, au-dessus ils sont replacés
+    private void drain(int level, long time, List<T> expired) {
+        List<Timer<T>> slot = buckets[level].get((int) Math.floorMod(Math.floorDiv(time, levelTicks[level]), (long) wheelSize));
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer<T>> timers = new ArrayList<>(slot);
+        slot.clear();
+        size -= timers.size();
+        for (Timer<T> timer : timers) {
+            if (level == 0 || !add(timer)) {
+                expired.add(timer.value);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Requêtes idempotentes (en-tête Idempotency-Key) : la première exécution est mémorisée et
+// les nouvelles tentatives reçoivent la même réponse sans rejouer l'écriture.
+// - réponses récentes dans un cache mémoire borné, table idempotency_keys en référence (avec expiration) ;
+// - doublons simultanés sur cette instance : ils attendent l'exécution en cours ;
+// - sur plusieurs instances : la ligne IN_PROGRESS sert de verrou, les autres relisent la table.
+// Une réponse 2xx est enregistrée dans la transaction de l'écriture : l'une n'existe pas sans l'autre.
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    // Prise de la clé ; une ligne expirée (réponse périmée ou exécution abandonnée) est reprise
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, status, created_at, expires_at) " +
+            "VALUES (?, ?, ?, 'IN_PROGRESS', ?, ?) " +
+            "ON CONFLICT (scope, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "status = 'IN_PROGRESS', response_status = NULL, response_body = NULL, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < EXCLUDED.created_at";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE idempotency_keys SET status = 'COMPLETED', response_status = ?, response_body = ?, expires_at = ? " +
+            "WHERE scope = ? AND idempotency_key = ? AND status = 'IN_PROGRESS'";
+
+    private static final String RELEASE_SQL =
+            "DELETE FROM idempotency_keys WHERE scope = ? AND idempotency_key = ? AND status = 'IN_PROGRESS'";
+
+    private static final String SELECT_SQL =
+            "SELECT request_hash, status, response_status, response_body, expires_at FROM idempotency_keys " +
+            "WHERE scope = ? AND idempotency_key = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Durée après laquelle une exécution IN_PROGRESS abandonnée (instance arrêtée) peut être reprise
+    @Value("${idempotency.lock-timeout-seconds:60}")
+    private long lockTimeoutSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    private final Map<String, StoredResponse> cache;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(@Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // Réponse d'une exécution ; sans expiration pour une erreur, seulement transmise aux doublons en attente
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final int status;
+        private final String body;
+        private final LocalDateTime expiresAt;
+
+        StoredResponse(String requestHash, int status, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt != null && expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+
+    // Portée d'une clé : point d'entrée et utilisateur, deux clients qui tirent la même clé
+    // ne reçoivent jamais la réponse l'un de l'autre
+    public static String scope(String endpoint, Object userId) {
+        return endpoint + " user:" + (userId == null ? "-" : userId);
+    }
+
+    // Exécuter action une seule fois par (scope, clé) ; sans clé, la requête est exécutée normalement
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return error(400, "Clé d'idempotence trop longue (maximum " + MAX_KEY_LENGTH + " caractères)");
+        }
+
+        String requestHash = fingerprint(request);
+        String cacheKey = scope + "|" + key;
+        StoredResponse cached = cache.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            return replay(cached, requestHash);
+        }
+
+        // Un doublon simultané sur cette instance attend la première exécution
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return awaitRunning(running, requestHash);
+        }
+
+        try {
+            return claimAndRun(scope, key, cacheKey, requestHash, action, mine);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private ResponseEntity<?> claimAndRun(String scope, String key, String cacheKey, String requestHash,
+                                          Supplier<ResponseEntity<?>> action, CompletableFuture<StoredResponse> mine) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            int claimed = jdbcTemplate.update(CLAIM_SQL, scope, key, requestHash,
+                    Timestamp.valueOf(now), Timestamp.valueOf(now.plusSeconds(lockTimeoutSeconds)));
+            if (claimed == 1) {
+                return run(scope, key, cacheKey, requestHash, action, mine);
+            }
+
+            // Clé déjà prise : réponse enregistrée, ou exécution en cours sur une autre instance
+            StoredResponse existing = load(scope, key);
+            if (existing != null && existing.status > 0) {
+                cache.put(cacheKey, existing);
+                mine.complete(existing);
+                return replay(existing, requestHash);
+            }
+            if (System.nanoTime() > deadline) {
+                StoredResponse conflict = conflict();
+                mine.complete(conflict);
+                return toResponse(conflict, false);
+            }
+            pause();
+        }
+    }
+
+    private ResponseEntity<?> run(String scope, String key, String cacheKey, String requestHash,
+                                  Supplier<ResponseEntity<?>> action, CompletableFuture<StoredResponse> mine) {
+        ResponseEntity<?>[] response = new ResponseEntity<?>[1];
+        StoredResponse stored;
+        try {
+            stored = transactionTemplate.execute(status -> {
+                response[0] = action.get();
+                if (!response[0].getStatusCode().is2xxSuccessful()) {
+                    // Échec : rien n'est validé, la clé est libérée pour une nouvelle tentative
+                    status.setRollbackOnly();
+                    return null;
+                }
+                StoredResponse result = new StoredResponse(requestHash, response[0].getStatusCode().value(),
+                        toJson(response[0].getBody()), LocalDateTime.now().plusHours(ttlHours));
+                jdbcTemplate.update(COMPLETE_SQL, result.status, result.body, Timestamp.valueOf(result.expiresAt),
+                        scope, key);
+                return result;
+            });
+        } catch (RuntimeException e) {
+            jdbcTemplate.update(RELEASE_SQL, scope, key);
+            throw e;
+        }
+
+        if (stored == null) {
+            jdbcTemplate.update(RELEASE_SQL, scope, key);
+            mine.complete(new StoredResponse(requestHash, response[0].getStatusCode().value(),
+                    toJson(response[0].getBody()), null));
+            return response[0];
+        }
+        cache.put(cacheKey, stored);
+        mine.complete(stored);
+        return response[0];
+    }
+
+    private ResponseEntity<?> awaitRunning(CompletableFuture<StoredResponse> running, String requestHash) {
+        try {
+            return replay(running.get(waitTimeoutMs, TimeUnit.MILLISECONDS), requestHash);
+        } catch (TimeoutException e) {
+            return toResponse(conflict(), false);
+        } catch (ExecutionException e) {
+            return error(409, "La première exécution de cette requête a échoué, veuillez réessayer");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return toResponse(conflict(), false);
+        }
+    }
+
+    private StoredResponse load(String scope, String key) {
+        List<StoredResponse> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            boolean completed = "COMPLETED".equals(rs.getString("status"));
+            return new StoredResponse(rs.getString("request_hash"),
+                    completed ? rs.getInt("response_status") : 0,
+                    completed ? rs.getString("response_body") : null,
+                    rs.getTimestamp("expires_at").toLocalDateTime());
+        }, scope, key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Tâche de fond : suppression des clés expirées par lots
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM idempotency_keys WHERE id IN (SELECT id FROM idempotency_keys " +
+                    "WHERE expires_at < ? ORDER BY expires_at LIMIT ?)",
+                    Timestamp.valueOf(LocalDateTime.now()), PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+
+        if (total > 0) {
+            System.out.println("🧹 Idempotence : " + total + " clé(s) expirée(s) supprimée(s)");
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (stored.requestHash != null && !stored.requestHash.equals(requestHash)) {
+            return error(422, "Clé d'idempotence déjà utilisée pour une autre requête");
+        }
+        return toResponse(stored, true);
+    }
+
+    private static ResponseEntity<?> toResponse(StoredResponse stored, boolean replayed) {
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", Boolean.toString(replayed))
+                .body(stored.body);
+    }
+
+    private StoredResponse conflict() {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", "Requête en cours de traitement");
+        body.put("message", "Une requête avec la même clé d'idempotence est en cours, veuillez réessayer");
+        return new StoredResponse(null, 409, toJson(body), null);
+    }
+
+    private static ResponseEntity<?> error(int status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.status(status).body(error);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Requête non sérialisable: " + e.getMessage());
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Réponse non sérialisable: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attente interrompue");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OutboxEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Commande annulée : le plan de paiement est annulé et le reste à payer rendu au crédit de l'utilisateur
+@Service
+public class OrderCreditHandler implements OutboxEventHandler {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return event.getEventType() == OutboxEventType.ORDER_CANCELLED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        List<Map<String, Object>> plans = jdbcTemplate.queryForList(
+                "UPDATE payment_plans SET status = 'CANCELLED' WHERE order_id = ? AND status = 'ACTIVE' " +
+                "RETURNING id, user_id, remaining_amount",
+                event.getAggregateId());
+
+        for (Map<String, Object> plan : plans) {
+            Long planId = ((Number) plan.get("id")).longValue();
+            Long userId = ((Number) plan.get("user_id")).longValue();
+            BigDecimal remaining = plan.get("remaining_amount") == null
+                    ? BigDecimal.ZERO : (BigDecimal) plan.get("remaining_amount");
+
+            jdbcTemplate.update(
+                    "UPDATE payments SET status = 'CANCELLED' WHERE payment_plan_id = ? AND status <> 'COMPLETED'",
+                    planId);
+            jdbcTemplate.update(
+                    "UPDATE users SET remaining_to_pay = GREATEST(COALESCE(remaining_to_pay, 0) - ?, 0) WHERE id = ?",
+                    remaining, userId);
+            System.out.println("💳 Plan " + planId + " annulé, " + remaining + " FCFA rendus au crédit de l'utilisateur " + userId);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+// Export comptable des commandes d'une période : les lignes sont lues par un curseur JDBC
+// (fetch size, transaction en lecture seule) et écrites une à une dans la réponse,
+// la mémoire utilisée ne dépend donc pas du nombre de commandes.
+@Service
+public class OrderExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String EXPORT_SQL =
+            "SELECT id, order_number, order_date, user_id, status, payment_status, total_amount, " +
+            "delivery_date, delivery_address_id FROM orders " +
+            "WHERE order_date >= ? AND order_date < ? ORDER BY order_date, id";
+
+    private static final String CSV_HEADER =
+            "id,orderNumber,orderDate,userId,status,paymentStatus,totalAmount,deliveryDate,deliveryAddressId";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order-export.fetch-size:1000}")
+    private int fetchSize;
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equals(format) || FORMAT_NDJSON.equals(format);
+    }
+
+    // Écrire toutes les commandes de [from, to) ; renvoie le nombre de lignes exportées
+    public long export(LocalDateTime from, LocalDateTime to, String format, boolean gzip, OutputStream out)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = FORMAT_CSV.equals(format) ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        // Le pilote PostgreSQL ne lit par paquets (fetch size) qu'hors auto-commit
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long[] count = new long[1];
+        try {
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(from));
+                statement.setTimestamp(2, Timestamp.valueOf(to));
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    // Client déconnecté : on arrête la lecture
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        rowWriter.finish();
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        return count[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            if (!headerWritten) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                headerWritten = true;
+            }
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writeText(rs.getString("order_number"));
+            writer.write(',');
+            writer.write(rs.getTimestamp("order_date").toLocalDateTime().toString());
+            writer.write(',');
+            writeNullable(rs.getObject("user_id"));
+            writer.write(',');
+            writer.write(rs.getString("status"));
+            writer.write(',');
+            writer.write(rs.getString("payment_status"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("total_amount").toPlainString());
+            writer.write(',');
+            Timestamp deliveryDate = rs.getTimestamp("delivery_date");
+            writeNullable(deliveryDate == null ? null : deliveryDate.toLocalDateTime());
+            writer.write(',');
+            writeNullable(rs.getObject("delivery_address_id"));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // Période vide : l'en-tête seul
+            if (!headerWritten) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+        }
+
+        private void writeNullable(Object value) throws IOException {
+            if (value != null) {
+                writer.write(value.toString());
+            }
+        }
+
+        // Guillemets seulement si nécessaire (RFC 4180)
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    // Un objet JSON par ligne, écrit directement par le générateur Jackson (aucune Map intermédiaire)
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            // Séparateur écrit par nous : un retour à la ligne après chaque objet
+            this.generator.setRootValueSeparator(new SerializedString(""));
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("orderNumber", rs.getString("order_number"));
+            generator.writeStringField("orderDate", rs.getTimestamp("order_date").toLocalDateTime().toString());
+            writeLong("userId", rs, "user_id");
+            generator.writeStringField("status", rs.getString("status"));
+            generator.writeStringField("paymentStatus", rs.getString("payment_status"));
+            // Montant en texte : pas de perte de précision côté lecteur
+            BigDecimal totalAmount = rs.getBigDecimal("total_amount");
+            generator.writeStringField("totalAmount", totalAmount.toPlainString());
+            Timestamp deliveryDate = rs.getTimestamp("delivery_date");
+            generator.writeStringField("deliveryDate",
+                    deliveryDate == null ? null : deliveryDate.toLocalDateTime().toString());
+            writeLong("deliveryAddressId", rs, "delivery_address_id");
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+
+        private void writeLong(String field, ResultSet rs, String column) throws SQLException, IOException {
+            long value = rs.getLong(column);
+            if (rs.wasNull()) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+// Notification de l'utilisateur à chaque création ou changement de statut de commande
+@Service
+public class OrderNotificationHandler implements OutboxEventHandler {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return "ORDER".equals(event.getAggregateType());
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        Object userId = payload.get("userId");
+        if (userId == null) {
+            return;
+        }
+        OrderStatus status = OrderStatus.valueOf((String) payload.get("status"));
+        notificationService.sendOrderNotification(((Number) userId).longValue(),
+                (String) payload.get("orderNumber"), OrderService.translateStatus(status));
+    }
+}
@@ -0,0 +1,106 @@
+package com.mobile.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Numéros de commande uniques sans aller-retour en base, sur le modèle Snowflake :
+// 41 bits de millisecondes depuis 2024-01-01, 10 bits de nœud (instance), 12 bits de séquence.
+// Les identifiants sont croissants sur une instance et ne se croisent jamais entre instances
+// tant que chacune a son propre order-number.node-id. Un horodatage n'est jamais pris en avance
+// sur l'horloge : au plus 4096 numéros par milliseconde et par instance.
+@Component
+public class OrderNumberGenerator {
+
+    public static final String PREFIX = "AKL-";
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Retard d'horloge au-delà duquel on refuse de générer plutôt que de bloquer les commandes
+    private static final long MAX_CLOCK_WAIT_MS = 1000;
+
+    // Longueur en base 36 du plus grand identifiant sur 63 bits : numéros de même longueur, triables
+    private static final int ENCODED_LENGTH = Long.toString(Long.MAX_VALUE, 36).length();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // Dernier (horodatage << SEQUENCE_BITS | séquence) attribué, mis à jour par CAS
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${order-number.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order-number.node-id doit être compris entre 0 et " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    // Identifiant numérique 63 bits
+    public long nextId() {
+        while (true) {
+            long current = lastState.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long timestamp = clock.getAsLong() - EPOCH;
+            long next;
+            if (timestamp > lastTimestamp) {
+                next = timestamp << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Même milliseconde, ou horloge qui recule (NTP) : séquence suivante sur le dernier horodatage
+                next = current + 1;
+            } else {
+                // Séquence épuisée : on attend l'horloge au lieu d'emprunter une milliseconde future,
+                // sinon les numéros pris d'avance pourraient ressortir après un redémarrage
+                waitForClock(lastTimestamp);
+                continue;
+            }
+            if (lastState.compareAndSet(current, next)) {
+                long sequence = next & SEQUENCE_MASK;
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    private void waitForClock(long lastTimestamp) {
+        long behind = lastTimestamp - (clock.getAsLong() - EPOCH);
+        if (behind > MAX_CLOCK_WAIT_MS) {
+            throw new RuntimeException("Horloge en retard de " + behind + " ms sur le dernier numéro de commande");
+        }
+        while (clock.getAsLong() - EPOCH <= lastTimestamp) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Numéro lisible : AKL- suivi de l'identifiant en base 36 (13 caractères, majuscules)
+    public String next() {
+        return format(nextId());
+    }
+
+    public static String format(long id) {
+        String encoded = Long.toString(id, 36).toUpperCase(Locale.ROOT);
+        StringBuilder number = new StringBuilder(PREFIX.length() + ENCODED_LENGTH).append(PREFIX);
+        for (int i = encoded.length(); i < ENCODED_LENGTH; i++) {
+            number.append('0');
+        }
+        return number.append(encoded).toString();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.OutboxEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Agrégats de chiffre d'affaires alimentés par les événements de commande
+@Service
+public class OrderRollupHandler implements OutboxEventHandler {
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return "ORDER".equals(event.getAggregateType());
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        // Déjà compté par un rattrapage lancé pendant que l'événement attendait
+        if (orderRollupService.skipIfBackfilled(event.getId())) {
+            return;
+        }
+        LocalDateTime orderDate = LocalDateTime.parse((String) payload.get("orderDate"));
+        BigDecimal totalAmount = new BigDecimal((String) payload.get("totalAmount"));
+        OrderStatus status = OrderStatus.valueOf((String) payload.get("status"));
+
+        if (event.getEventType() == OutboxEventType.ORDER_CREATED) {
+            orderRollupService.recordCreated(orderDate, status, totalAmount);
+        } else if (payload.get("previousStatus") != null) {
+            orderRollupService.recordStatusChange(orderDate, totalAmount,
+                    OrderStatus.valueOf((String) payload.get("previousStatus")), status);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.RollupGranularity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Agrégats de chiffre d'affaires par heure, jour et mois, ventilés par statut.
+// Chaque changement de commande ajuste ses tranches (via l'outbox, voir OrderRollupHandler) ;
+// les tableaux de bord ne lisent que ces lignes, jamais la table orders.
+@Service
+public class OrderRollupService {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_revenue_rollups (granularity, bucket_start, status, order_count, revenue, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket_start, status) DO UPDATE SET " +
+            "order_count = order_revenue_rollups.order_count + EXCLUDED.order_count, " +
+            "revenue = order_revenue_rollups.revenue + EXCLUDED.revenue, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    // Événements de commande en attente dont la commande est dans la plage recalculée
+    private static final String SKIP_PENDING_SQL =
+            "INSERT INTO order_rollup_skipped_events (event_id, created_at) " +
+            "SELECT id, ? FROM outbox_events WHERE processed_at IS NULL AND aggregate_type = 'ORDER' " +
+            "AND (payload::jsonb ->> 'orderDate')::timestamp >= ? " +
+            "ON CONFLICT (event_id) DO NOTHING";
+
+    // Nombre maximum de points renvoyés par une série
+    private static final int MAX_POINTS = 2000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Nouvelle commande : +1 dans les tranches de sa date pour son statut
+    @Transactional
+    public void recordCreated(LocalDateTime orderDate, OrderStatus status, BigDecimal totalAmount) {
+        List<Object[]> rows = new ArrayList<>(3);
+        addRows(rows, orderDate, status, 1, totalAmount);
+        upsert(rows);
+    }
+
+    // Changement de statut : la commande passe d'une ligne de statut à l'autre dans chaque tranche
+    @Transactional
+    public void recordStatusChange(LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus previousStatus,
+                                   OrderStatus status) {
+        if (previousStatus == null || previousStatus == status) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(6);
+        addRows(rows, orderDate, previousStatus, -1, totalAmount.negate());
+        addRows(rows, orderDate, status, 1, totalAmount);
+        upsert(rows);
+    }
+
+    // Rattrapage : recalcule toutes les tranches depuis une date à partir de la table orders.
+    // La table d'agrégats est verrouillée en écriture le temps du calcul : les mises à jour
+    // incrémentales concurrentes attendent puis s'appliquent sur le résultat.
+    // Les événements encore en attente dans l'outbox sont déjà comptés par le recalcul : ils sont notés
+    // pour que le relais ne les applique pas une seconde fois. En REPEATABLE READ, la liste et la lecture
+    // des commandes voient le même instantané, pris après le verrou.
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public Map<String, Object> backfill(LocalDateTime since) {
+        // Le mois de départ est recalculé en entier
+        LocalDateTime from = bucketStart(RollupGranularity.MONTH, since);
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.execute("LOCK TABLE order_revenue_rollups IN EXCLUSIVE MODE");
+        int skipped = jdbcTemplate.update(SKIP_PENDING_SQL, now, fromTs);
+        int deleted = jdbcTemplate.update("DELETE FROM order_revenue_rollups WHERE bucket_start >= ?", fromTs);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("deletedRows", deleted);
+        result.put("skippedEvents", skipped);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            int inserted = jdbcTemplate.update(
+                    "INSERT INTO order_revenue_rollups (granularity, bucket_start, status, order_count, revenue, updated_at) " +
+                    "SELECT ?, date_trunc(?, order_date), status, COUNT(*), SUM(total_amount), ? " +
+                    "FROM orders WHERE order_date >= ? GROUP BY 2, 3",
+                    granularity.name(), truncUnit(granularity), now, fromTs);
+            result.put(granularity.name().toLowerCase() + "Rows", inserted);
+        }
+
+        System.out.println("📈 Agrégats recalculés depuis " + from + " : " + result);
+        return result;
+    }
+
+    // Événement déjà compté par un rattrapage : consommé ici, sans effet sur les agrégats.
+    // Le verrou attend la fin d'un rattrapage en cours, dont la liste est alors visible
+    @Transactional
+    public boolean skipIfBackfilled(Long eventId) {
+        jdbcTemplate.execute("LOCK TABLE order_revenue_rollups IN ROW EXCLUSIVE MODE");
+        return jdbcTemplate.update("DELETE FROM order_rollup_skipped_events WHERE event_id = ?", eventId) > 0;
+    }
+
+    // Série temporelle lue uniquement dans les agrégats
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTimeseries(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                            OrderStatus status) {
+        LocalDateTime start = bucketStart(granularity, from);
+        StringBuilder sql = new StringBuilder(
+                "SELECT bucket_start, status, order_count, revenue FROM order_revenue_rollups " +
+                "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?");
+        List<Object> args = new ArrayList<>();
+        args.add(granularity.name());
+        args.add(Timestamp.valueOf(start));
+        args.add(Timestamp.valueOf(to));
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status.name());
+        }
+        sql.append(" ORDER BY bucket_start");
+
+        // Un point par tranche, avec le détail par statut
+        Map<LocalDateTime, Map<String, Object>> points = new LinkedHashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            LocalDateTime bucket = rs.getTimestamp("bucket_start").toLocalDateTime();
+            Map<String, Object> point = points.get(bucket);
+            if (point == null) {
+                if (points.size() >= MAX_POINTS) {
+                    return;
+                }
+                point = new LinkedHashMap<>();
+                point.put("bucketStart", bucket);
+                point.put("orderCount", 0L);
+                point.put("revenue", BigDecimal.ZERO);
+                point.put("byStatus", new LinkedHashMap<String, Object>());
+                points.put(bucket, point);
+            }
+            long count = rs.getLong("order_count");
+            BigDecimal revenue = rs.getBigDecimal("revenue");
+            if (count == 0) {
+                return;
+            }
+            point.put("orderCount", (Long) point.get("orderCount") + count);
+            point.put("revenue", ((BigDecimal) point.get("revenue")).add(revenue));
+
+            Map<String, Object> statusValues = new LinkedHashMap<>();
+            statusValues.put("orderCount", count);
+            statusValues.put("revenue", revenue);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> byStatus = (Map<String, Object>) point.get("byStatus");
+            byStatus.put(rs.getString("status"), statusValues);
+        }, args.toArray());
+
+        Map<String, Object> series = new LinkedHashMap<>();
+        series.put("granularity", granularity.name());
+        series.put("from", start);
+        series.put("to", to);
+        series.put("status", status == null ? null : status.name());
+        series.put("points", new ArrayList<>(points.values()));
+        return series;
+    }
+
+    private void addRows(List<Object[]> rows, LocalDateTime orderDate, OrderStatus status, long count, BigDecimal amount) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            rows.add(new Object[]{granularity.name(), Timestamp.valueOf(bucketStart(granularity, orderDate)),
+                    status.name(), count, amount, now});
+        }
+    }
+
+    private void upsert(List<Object[]> rows) {
+        // Ordre fixe des lignes pour éviter les interblocages entre transactions concurrentes
+        rows.sort((a, b) -> {
+            int cmp = ((String) a[0]).compareTo((String) b[0]);
+            if (cmp == 0) {
+                cmp = ((Timestamp) a[1]).compareTo((Timestamp) b[1]);
+            }
+            return cmp != 0 ? cmp : ((String) a[2]).compareTo((String) b[2]);
+        });
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    static LocalDateTime bucketStart(RollupGranularity granularity, LocalDateTime instant) {
+        switch (granularity) {
+            case HOUR:
+                return instant.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return instant.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return instant.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    private static String truncUnit(RollupGranularity granularity) {
+        return granularity.name().toLowerCase();
+    }
+}
@@ -3,11 +3,17 @@ package com.mobile.demo.service;
 import com.mobile.demo.entity.Order;
 import com.mobile.demo.enums.OrderStatus;
 import com.mobile.demo.enums.PaymentStatus;
+import com.mobile.demo.enums.RollupGranularity;
+import com.mobile.demo.repository.InvalidPageRequestException;
+import com.mobile.demo.repository.KeysetPage;
 import com.mobile.demo.repository.OrderRepository;
+import com.mobile.demo.repository.OrderRepositoryCustom;
+import com.mobile.demo.repository.OrderSearchCriteria;
+import com.mobile.demo.repository.OrderSpecifications;
+import com.mobile.demo.repository.OrderStatusStats;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,15 +26,95 @@ public class OrderService {
     @Autowired
     private OrderRepository orderRepository;
 
-    // Récupérer les commandes d'un utilisateur
-    public Page<Order> findOrdersByUserId(Long userId, Pageable pageable) {
-        System.out.println("📋 Service: Recherche commandes pour user " + userId);
-        return orderRepository.findByUserIdOrderByOrderDateDesc(userId, pageable);
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private OrderTrackingService orderTrackingService;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    // Commandes d'un utilisateur, paginées par clé sur (tri, id) : lecture seule, une seule requête
+    // qui vérifie aussi l'existence de l'utilisateur (vide s'il n'existe pas).
+    // Sans curseur, page donne un décalage (anciennes versions de l'app).
+    public Optional<KeysetPage<Order>> listUserOrders(Long userId, String sortBy, String sortDir,
+                                                      String cursor, int page, int limit) {
+        System.out.println("📋 Service: Liste commandes user " + userId + " tri=" + sortBy);
+
+        String sort = sortOrDefault(sortBy);
+        return orderRepository.findUserOrderPage(userId, sort, !"asc".equalsIgnoreCase(sortDir),
+                cursor, offsetOf(cursor, page, limit), limit);
+    }
+
+    // Toutes les commandes ou celles d'un statut (admin), même pagination sans count(*)
+    public KeysetPage<Order> listOrders(String status, String sortBy, String sortDir,
+                                        String cursor, int page, int limit) {
+        System.out.println("📋 Service: Liste commandes statut=" + status + " tri=" + sortBy);
+
+        OrderStatus orderStatus = status == null || status.isEmpty() ? null : parseStatus(status);
+        String sort = sortOrDefault(sortBy);
+        if (orderStatus == null && OrderRepositoryCustom.SORT_TOTAL_AMOUNT.equals(sort)) {
+            // Aucun index ne couvre ce tri sur toute la table
+            throw new InvalidPageRequestException("Tri par montant disponible seulement avec un filtre de statut");
+        }
+        return orderRepository.findOrderPage(null, orderStatus, sort, !"asc".equalsIgnoreCase(sortDir),
+                cursor, offsetOf(cursor, page, limit), limit);
     }
 
-    // Sauvegarder une commande
-    public Order saveOrder(Order order) {
-        return orderRepository.save(order);
+    // Recherche admin multi-critères : seuls les filtres renseignés deviennent des prédicats
+    public KeysetPage<Order> searchOrders(String status, String paymentStatus, Long userId,
+                                          LocalDateTime from, LocalDateTime to,
+                                          BigDecimal minAmount, BigDecimal maxAmount, String orderNumber,
+                                          String cursor, int limit) {
+        System.out.println("🔎 Service: Recherche commandes multi-critères");
+
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setStatus(status == null || status.isEmpty() ? null : parseStatus(status));
+        criteria.setPaymentStatus(paymentStatus == null || paymentStatus.isEmpty() ? null : parsePaymentStatus(paymentStatus));
+        criteria.setUserId(userId);
+        criteria.setFrom(from);
+        criteria.setTo(to);
+        criteria.setMinAmount(minAmount);
+        criteria.setMaxAmount(maxAmount);
+        criteria.setOrderNumberPrefix(orderNumber);
+
+        if (criteria.getFrom() != null && criteria.getTo() != null && !criteria.getFrom().isBefore(criteria.getTo())) {
+            throw new RuntimeException("Période invalide");
+        }
+        if (criteria.getMinAmount() != null && criteria.getMaxAmount() != null
+                && criteria.getMinAmount().compareTo(criteria.getMaxAmount()) > 0) {
+            throw new RuntimeException("Fourchette de montant invalide");
+        }
+        return orderRepository.searchOrders(OrderSpecifications.matching(criteria), cursor, limit);
+    }
+
+    private static String sortOrDefault(String sortBy) {
+        return sortBy == null || sortBy.isBlank() ? OrderRepositoryCustom.SORT_ORDER_DATE : sortBy;
+    }
+
+    private static int offsetOf(String cursor, int page, int limit) {
+        return cursor == null || cursor.isBlank() ? Math.max(0, page - 1) * limit : 0;
+    }
+
+    // Total pour les listes (seulement si le client le demande)
+    public long countOrders(Long userId, String status) {
+        if (userId != null) {
+            return orderRepository.countByUserId(userId);
+        }
+        if (status != null && !status.isEmpty()) {
+            return orderRepository.countByStatus(parseStatus(status));
+        }
+        return orderRepository.count();
     }
 
     // Compter les commandes d'un utilisateur
@@ -48,6 +134,7 @@ public class OrderService {
     }
 
     // Créer une nouvelle commande
+    @Transactional
     public Order createOrder(Map<String, Object> orderData) {
         System.out.println("📦 Service: Création nouvelle commande");
 
@@ -61,91 +148,167 @@ public class OrderService {
             Long addressId = Long.valueOf(orderData.get("deliveryAddressId").toString());
             order.setDeliveryAddressId(addressId);
         }
+        return createOrder(order);
+    }
 
-        return orderRepository.save(order);
+    // Seul chemin de création d'une commande (API, checkout, données de test) : numéro, insertion,
+    // événement ORDER_CREATED et premier suivi dans la transaction de l'appelant
+    @Transactional
+    public Order createOrder(Order order) {
+        if (order.getId() != null) {
+            throw new RuntimeException("Commande déjà créée: " + order.getId());
+        }
+        if (order.getOrderNumber() == null) {
+            order.setOrderNumber(orderNumberGenerator.next());
+        }
+        Order saved = orderRepository.save(order);
+        outboxService.orderCreated(saved);
+        orderTrackingService.recordTransition(saved, null, null, null);
+        return saved;
     }
 
-    // Annuler une commande
+    // Annuler une commande : une seule mise à jour conditionnelle sur le statut
+    @Transactional
     public Order cancelOrder(Long orderId, String reason) {
         System.out.println("❌ Service: Annulation commande " + orderId);
 
-        Order order = findById(orderId);
-        if (order == null) {
-            throw new RuntimeException("Commande non trouvée: " + orderId);
-        }
-
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new RuntimeException("Impossible d'annuler une commande déjà livrée");
-        }
+        Order cancelled = orderStateMachine.transition(orderId, OrderStatus.CANCELLED)
+                .orElseThrow(() -> new RuntimeException(
+                        orderStateMachine.describeRejection(orderId, OrderStatus.CANCELLED)));
+        outboxService.orderCancelled(cancelled, cancelled.getPreviousStatus(), reason);
+        orderTrackingService.recordTransition(cancelled, cancelled.getPreviousStatus(), null, reason);
 
-        order.setStatus(OrderStatus.CANCELLED);
-        return orderRepository.save(order);
+        // Remettre en stock les articles réservés pour cette commande
+        stockReservationService.releaseForOrder(orderId);
+        return cancelled;
     }
 
     // Mettre à jour le statut d'une commande
+    @Transactional
     public Order updateOrderStatus(Long orderId, String status, String trackingNumber) {
         System.out.println("🔄 Service: Mise à jour statut " + orderId + " -> " + status);
 
-        Order order = findById(orderId);
-        if (order == null) {
-            throw new RuntimeException("Commande non trouvée: " + orderId);
+        OrderStatus newStatus = parseStatus(status);
+        if (newStatus == OrderStatus.CANCELLED) {
+            return cancelOrder(orderId, null);
         }
 
-        try {
-            OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
-            order.setStatus(newStatus);
-
-            // Si livré, marquer la date de livraison
-            if (newStatus == OrderStatus.DELIVERED) {
-                order.deliverOrder();
-            }
+        Optional<Order> updated = orderStateMachine.transition(orderId, newStatus);
+        if (updated.isPresent()) {
+            Order order = updated.get();
+            outboxService.orderStatusChanged(order, order.getPreviousStatus());
+            // Numéro de suivi du transporteur conservé dans le journal et la projection
+            orderTrackingService.recordTransition(order, order.getPreviousStatus(), trackingNumber, null);
+            return order;
+        }
 
-            return orderRepository.save(order);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Statut invalide: " + status);
+        // Même statut : seul le numéro de suivi est ajouté
+        Order order = findById(orderId);
+        if (order != null && order.getStatus() == newStatus && trackingNumber != null) {
+            orderTrackingService.recordTransition(order, newStatus, trackingNumber, null);
+            return order;
         }
+        throw new RuntimeException(orderStateMachine.describeRejection(orderId, newStatus));
     }
 
-    // Obtenir le suivi d'une commande
-    public Map<String, Object> getOrderTracking(Long orderId) {
-        System.out.println("📍 Service: Suivi commande " + orderId);
-
-        Order order = findById(orderId);
-        if (order == null) {
-            throw new RuntimeException("Commande non trouvée: " + orderId);
+    // Transition d'un lot de commandes en un seul UPDATE (tournées logistiques) ;
+    // les commandes absentes ou dans un statut incompatible sont ignorées
+    @Transactional
+    public Map<String, Object> updateOrderStatusBatch(List<Long> orderIds, String status) {
+        System.out.println("🔄 Service: Mise à jour statut par lot (" + orderIds.size() + ") -> " + status);
+
+        OrderStatus newStatus = parseStatus(status);
+        Set<Long> requested = new LinkedHashSet<>(orderIds);
+        List<Order> updated = orderStateMachine.transitionAll(requested, newStatus);
+
+        Set<Long> updatedIds = new LinkedHashSet<>();
+        for (Order order : updated) {
+            updatedIds.add(order.getId());
+            if (newStatus == OrderStatus.CANCELLED) {
+                outboxService.orderCancelled(order, order.getPreviousStatus(), null);
+                stockReservationService.releaseForOrder(order.getId());
+            } else {
+                outboxService.orderStatusChanged(order, order.getPreviousStatus());
+            }
+            orderTrackingService.recordTransition(order, order.getPreviousStatus(), null, null);
         }
 
-        Map<String, Object> tracking = new HashMap<>();
-        tracking.put("orderId", orderId);
-        tracking.put("orderNumber", order.getOrderNumber());
-        tracking.put("currentStatus", translateStatus(order.getStatus()));
-        tracking.put("statusCode", order.getStatus().toString());
+        List<Long> skippedIds = new ArrayList<>();
+        for (Long orderId : requested) {
+            if (!updatedIds.contains(orderId)) {
+                skippedIds.add(orderId);
+            }
+        }
 
-        // Générer un numéro de suivi fictif
-        tracking.put("trackingNumber", "TRK-" + order.getOrderNumber().substring(4));
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", newStatus.toString());
+        result.put("requested", requested.size());
+        result.put("updated", updatedIds.size());
+        result.put("updatedIds", updatedIds);
+        result.put("skippedIds", skippedIds);
+        return result;
+    }
 
-        // Date de livraison estimée (5 jours après la commande)
-        LocalDateTime estimatedDelivery = order.getOrderDate().plusDays(5);
-        tracking.put("estimatedDelivery", estimatedDelivery.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+    // Série temporelle des ventes (tableaux de bord admin), lue dans les agrégats
+    public Map<String, Object> getRevenueTimeseries(String granularity, LocalDateTime from, LocalDateTime to,
+                                                    String status) {
+        RollupGranularity unit;
+        OrderStatus orderStatus = null;
+        try {
+            unit = RollupGranularity.valueOf(granularity.toUpperCase());
+            if (status != null && !status.isBlank()) {
+                orderStatus = OrderStatus.valueOf(status.toUpperCase());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Paramètre invalide: " + granularity + " / " + status);
+        }
 
-        // Historique fictif basé sur le statut
-        List<Map<String, String>> history = generateTrackingHistory(order);
-        tracking.put("history", history);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from;
+        if (start == null) {
+            switch (unit) {
+                case HOUR:
+                    start = end.minusHours(48);
+                    break;
+                case DAY:
+                    start = end.minusDays(30);
+                    break;
+                default:
+                    start = end.minusMonths(12);
+            }
+        }
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("Période invalide");
+        }
+        return orderRollupService.getTimeseries(unit, start, end, orderStatus);
+    }
 
-        return tracking;
+    // Obtenir le suivi d'une commande (projection tenue à jour à chaque transition)
+    public Map<String, Object> getOrderTracking(Long orderId) {
+        System.out.println("📍 Service: Suivi commande " + orderId);
+        return orderTrackingService.getTracking(orderId);
     }
 
-    // Confirmer la livraison
+    // Confirmer la livraison (par le client) : une commande expédiée passe à livrée,
+    // une commande déjà livrée est acceptée telle quelle
+    @Transactional
     public Order confirmDelivery(Long orderId, Integer rating, String review) {
         System.out.println("✅ Service: Confirmation livraison " + orderId);
 
-        Order order = findById(orderId);
-        if (order == null) {
-            throw new RuntimeException("Commande non trouvée: " + orderId);
-        }
-
-        if (order.getStatus() != OrderStatus.DELIVERED) {
-            throw new RuntimeException("Seules les commandes livrées peuvent être confirmées");
+        Optional<Order> delivered = orderStateMachine.transition(orderId, OrderStatus.DELIVERED);
+        Order order;
+        if (delivered.isPresent()) {
+            order = delivered.get();
+            outboxService.orderStatusChanged(order, order.getPreviousStatus());
+            orderTrackingService.recordTransition(order, order.getPreviousStatus(), null, null);
+        } else {
+            order = findById(orderId);
+            if (order == null) {
+                throw new RuntimeException("Commande non trouvée: " + orderId);
+            }
+            if (order.getStatus() != OrderStatus.DELIVERED) {
+                throw new RuntimeException("Seules les commandes expédiées ou livrées peuvent être confirmées");
+            }
         }
 
         // Ici vous pourriez ajouter une entité Review/Rating
@@ -155,24 +318,6 @@ public class OrderService {
         return order;
     }
 
-    // Récupérer commandes par statut (admin)
-    public Page<Order> findOrdersByStatus(String status, Pageable pageable) {
-        System.out.println("📋 Service: Recherche commandes par statut " + status);
-
-        try {
-            OrderStatus orderStatus = OrderStatus.valueOf(status.toUpperCase());
-            return orderRepository.findByStatusOrderByOrderDateDesc(orderStatus, pageable);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Statut invalide: " + status);
-        }
-    }
-
-    // Récupérer toutes les commandes (admin)
-    public Page<Order> findAllOrders(Pageable pageable) {
-        System.out.println("📋 Service: Récupération toutes commandes (admin)");
-        return orderRepository.findAllByOrderByOrderDateDesc(pageable);
-    }
-
     // Statistiques des commandes
     public Map<String, Object> getOrderStatistics(String period) {
         System.out.println("📊 Service: Calcul statistiques pour " + period);
@@ -195,34 +340,56 @@ public class OrderService {
                 startDate = LocalDateTime.now().minusMonths(1);
         }
 
-        List<Order> orders = orderRepository.findByOrderDateAfter(startDate);
+        // Un seul GROUP BY status : mémoire constante quelle que soit la période
+        List<OrderStatusStats> rows = orderRepository.aggregateByStatusSince(startDate);
+
+        long totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        Map<String, Long> statusCount = new HashMap<>();
+        Map<String, BigDecimal> statusRevenue = new HashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            statusCount.put(status.toString(), 0L);
+            statusRevenue.put(status.toString(), BigDecimal.ZERO);
+        }
+        for (OrderStatusStats row : rows) {
+            BigDecimal revenue = row.getRevenue() == null ? BigDecimal.ZERO : row.getRevenue();
+            statusCount.put(row.getStatus().toString(), row.getOrderCount());
+            statusRevenue.put(row.getStatus().toString(), revenue);
+            totalOrders += row.getOrderCount();
+            totalRevenue = totalRevenue.add(revenue);
+        }
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalOrders", orders.size());
+        stats.put("totalOrders", totalOrders);
         stats.put("period", period);
         stats.put("startDate", startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-
-        // Calcul du chiffre d'affaires
-        BigDecimal totalRevenue = orders.stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("totalRevenue", totalRevenue);
 
         // Répartition par statut
-        Map<String, Long> statusCount = new HashMap<>();
-        for (OrderStatus status : OrderStatus.values()) {
-            long count = orders.stream()
-                    .filter(order -> order.getStatus() == status)
-                    .count();
-            statusCount.put(status.toString(), count);
-        }
         stats.put("statusBreakdown", statusCount);
+        stats.put("revenueByStatus", statusRevenue);
 
         return stats;
     }
 
     // Méthodes utilitaires
-    private String translateStatus(OrderStatus status) {
+    private static PaymentStatus parsePaymentStatus(String status) {
+        try {
+            return PaymentStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Statut de paiement invalide: " + status);
+        }
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        try {
+            return OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Statut invalide: " + status);
+        }
+    }
+
+    static String translateStatus(OrderStatus status) {
         switch (status) {
             case PENDING:
                 return "En attente";
@@ -238,52 +405,4 @@ public class OrderService {
                 return status.toString();
         }
     }
-
-    private List<Map<String, String>> generateTrackingHistory(Order order) {
-        List<Map<String, String>> history = new ArrayList<>();
-
-        // Commande créée
-        Map<String, String> created = new HashMap<>();
-        created.put("date", order.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-        created.put("description", "Commande créée et confirmée");
-        history.add(created);
-
-        // Ajouter des étapes selon le statut actuel
-        if (order.getStatus().ordinal() >= OrderStatus.CONFIRMED.ordinal()) {
-            Map<String, String> confirmed = new HashMap<>();
-            confirmed.put("date", order.getOrderDate().plusHours(1).format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            confirmed.put("description", "Commande confirmée par le vendeur");
-            history.add(confirmed);
-        }
-
-        if (order.getStatus().ordinal() >= OrderStatus.SHIPPED.ordinal()) {
-            Map<String, String> preparing = new HashMap<>();
-            preparing.put("date", order.getOrderDate().plusHours(6).format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            preparing.put("description", "Préparation de votre commande");
-            history.add(preparing);
-        }
-
-        if (order.getStatus().ordinal() >= OrderStatus.SHIPPED.ordinal()) {
-            Map<String, String> shipped = new HashMap<>();
-            shipped.put("date", order.getOrderDate().plusDays(1).format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            shipped.put("description", "Colis expédié - En cours de livraison");
-            history.add(shipped);
-        }
-
-        if (order.getStatus() == OrderStatus.DELIVERED && order.getDeliveryDate() != null) {
-            Map<String, String> delivered = new HashMap<>();
-            delivered.put("date", order.getDeliveryDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            delivered.put("description", "Colis livré avec succès");
-            history.add(delivered);
-        }
-
-        if (order.getStatus() == OrderStatus.CANCELLED) {
-            Map<String, String> cancelled = new HashMap<>();
-            cancelled.put("date", LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            cancelled.put("description", "Commande annulée");
-            history.add(cancelled);
-        }
-
-        return history;
-    }
-}
\ No newline at end of file
+}
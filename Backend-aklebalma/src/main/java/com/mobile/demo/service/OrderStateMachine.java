@@ -0,0 +1,133 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.PaymentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Cycle de vie d'une commande : PENDING -> CONFIRMED -> SHIPPED -> DELIVERED, annulation possible
+// avant la livraison. Chaque transition est un seul UPDATE conditionnel sur le statut courant :
+// de deux administrateurs concurrents, un seul voit sa transition appliquée.
+@Service
+public class OrderStateMachine {
+
+    // Statuts de départ autorisés pour chaque statut d'arrivée
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_FROM = new EnumMap<>(OrderStatus.class);
+
+    static {
+        ALLOWED_FROM.put(OrderStatus.PENDING, EnumSet.noneOf(OrderStatus.class));
+        ALLOWED_FROM.put(OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.PENDING));
+        ALLOWED_FROM.put(OrderStatus.SHIPPED, EnumSet.of(OrderStatus.CONFIRMED));
+        ALLOWED_FROM.put(OrderStatus.DELIVERED, EnumSet.of(OrderStatus.SHIPPED));
+        ALLOWED_FROM.put(OrderStatus.CANCELLED,
+                EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPED));
+    }
+
+    // Colonnes renvoyées par les transitions pour reconstruire la commande sans la relire
+    private static final String RETURNING =
+            " RETURNING id, order_number, order_date, total_amount, status, previous_status, payment_status, " +
+            "delivery_date, user_id, delivery_address_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static Set<OrderStatus> allowedFrom(OrderStatus target) {
+        return Collections.unmodifiableSet(ALLOWED_FROM.get(target));
+    }
+
+    public static boolean canTransition(OrderStatus from, OrderStatus to) {
+        return ALLOWED_FROM.get(to).contains(from);
+    }
+
+    // Appliquer une transition ; vide si la commande n'existe pas ou n'est pas dans un statut de départ autorisé
+    public Optional<Order> transition(Long orderId, OrderStatus target) {
+        if (ALLOWED_FROM.get(target).isEmpty()) {
+            return Optional.empty();
+        }
+        List<Order> updated = jdbcTemplate.query(updateSql(target, "id = ?"), this::mapOrder,
+                updateArgs(target, orderId));
+        return updated.stream().findFirst();
+    }
+
+    // Variante par lot (tournées logistiques) : un seul UPDATE pour toutes les commandes éligibles,
+    // les autres sont ignorées ; renvoie les commandes effectivement modifiées
+    public List<Order> transitionAll(Collection<Long> orderIds, OrderStatus target) {
+        if (orderIds.isEmpty() || ALLOWED_FROM.get(target).isEmpty()) {
+            return List.of();
+        }
+        String sql = updateSql(target, "id = ANY(?)");
+        return jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql);
+            Object[] args = updateArgs(target, connection.createArrayOf("bigint", orderIds.toArray()));
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, this::mapOrder);
+    }
+
+    // Message d'erreur d'une transition refusée (relit le statut, seulement dans ce cas)
+    public String describeRejection(Long orderId, OrderStatus target) {
+        List<String> current = jdbcTemplate.queryForList(
+                "SELECT status FROM orders WHERE id = ?", String.class, orderId);
+        if (current.isEmpty()) {
+            return "Commande non trouvée: " + orderId;
+        }
+        OrderStatus status = OrderStatus.valueOf(current.get(0));
+        if (target == OrderStatus.CANCELLED && status == OrderStatus.DELIVERED) {
+            return "Impossible d'annuler une commande déjà livrée";
+        }
+        return "Transition impossible: " + status + " -> " + target;
+    }
+
+    // previous_status reçoit l'ancienne valeur : dans un SET, status désigne la ligne avant mise à jour.
+    // La liste IN est construite à partir de l'enum, jamais d'une saisie.
+    private static String updateSql(OrderStatus target, String idCondition) {
+        String allowed = ALLOWED_FROM.get(target).stream()
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+        String deliveryDate = target == OrderStatus.DELIVERED ? ", delivery_date = ?" : "";
+        return "UPDATE orders SET previous_status = status, status = '" + target.name() + "'" + deliveryDate +
+               " WHERE " + idCondition + " AND status IN (" + allowed + ")" + RETURNING;
+    }
+
+    private static Object[] updateArgs(OrderStatus target, Object idArgument) {
+        if (target == OrderStatus.DELIVERED) {
+            return new Object[]{Timestamp.valueOf(LocalDateTime.now()), idArgument};
+        }
+        return new Object[]{idArgument};
+    }
+
+    private Order mapOrder(ResultSet rs, int rowNum) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setOrderNumber(rs.getString("order_number"));
+        order.setOrderDate(rs.getTimestamp("order_date").toLocalDateTime());
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        String previousStatus = rs.getString("previous_status");
+        order.setPreviousStatus(previousStatus == null ? null : OrderStatus.valueOf(previousStatus));
+        order.setPaymentStatus(PaymentStatus.valueOf(rs.getString("payment_status")));
+        Timestamp deliveryDate = rs.getTimestamp("delivery_date");
+        order.setDeliveryDate(deliveryDate == null ? null : deliveryDate.toLocalDateTime());
+        order.setUserId(rs.getObject("user_id", Long.class));
+        order.setDeliveryAddressId(rs.getObject("delivery_address_id", Long.class));
+        return order;
+    }
+}
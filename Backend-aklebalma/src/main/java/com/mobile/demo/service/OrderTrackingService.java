@@ -0,0 +1,251 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Suivi des commandes : journal des transitions (order_status_events) et projection par commande
+// (order_tracking) écrits dans la transaction du changement de statut. La lecture est servie par
+// un cache mémoire, puis par la projection en base (une seule ligne lue par clé primaire).
+// Plusieurs instances écrivent les transitions : une entrée du cache n'est servie qu'après une lecture
+// par clé qui ne renvoie la ligne que si sa version a avancé (aucune ligne quand le cache est à jour).
+@Service
+public class OrderTrackingService {
+
+    private static final String EVENT_SQL =
+            "INSERT INTO order_status_events (order_id, previous_status, status, tracking_number, note, occurred_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Première transition : la ligne est créée avec tout l'historique fourni ;
+    // ensuite seule la dernière étape est ajoutée au tableau existant
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_tracking (order_id, order_number, status, tracking_number, estimated_delivery, " +
+            "history, version, updated_at) VALUES (?, ?, ?, ?, ?, ?::jsonb, 1, ?) " +
+            "ON CONFLICT (order_id) DO UPDATE SET status = EXCLUDED.status, " +
+            "tracking_number = COALESCE(EXCLUDED.tracking_number, order_tracking.tracking_number), " +
+            "estimated_delivery = EXCLUDED.estimated_delivery, " +
+            "history = order_tracking.history || jsonb_build_array(EXCLUDED.history -> -1), " +
+            "version = order_tracking.version + 1, updated_at = EXCLUDED.updated_at " +
+            "RETURNING " + Projection.COLUMNS;
+
+    private static final String SELECT_SQL =
+            "SELECT " + Projection.COLUMNS + " FROM order_tracking WHERE order_id = ?";
+
+    // Ligne relue seulement si une transition (peut-être faite par une autre instance) a suivi le cache
+    private static final String SELECT_NEWER_SQL = SELECT_SQL + " AND version > ?";
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO order_tracking (order_id, order_number, status, tracking_number, estimated_delivery, " +
+            "history, version, updated_at) VALUES (?, ?, ?, NULL, ?, ?::jsonb, 0, ?) ON CONFLICT (order_id) DO NOTHING";
+
+    private static final DateTimeFormatter STEP_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final TypeReference<List<Map<String, String>>> HISTORY_TYPE = new TypeReference<>() {};
+
+    // Délai de livraison annoncé tant que la commande n'est pas livrée
+    private static final int DELIVERY_DAYS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final Map<Long, Projection> cache;
+
+    public OrderTrackingService(@Value("${order-tracking.cache-size:10000}") int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Projection> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // Suivi prêt à servir, sous la forme attendue par l'application mobile
+    private static final class Projection {
+        static final String COLUMNS =
+                "order_id, order_number, status, tracking_number, estimated_delivery, history::text AS history, version";
+
+        private final long version;
+        private final Map<String, Object> body;
+
+        Projection(long version, Map<String, Object> body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    // Enregistrer une transition (création comprise : previousStatus à null)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Order order, OrderStatus previousStatus, String trackingNumber, String note) {
+        LocalDateTime occurredAt = previousStatus == null ? order.getOrderDate() : LocalDateTime.now();
+        jdbcTemplate.update(EVENT_SQL, order.getId(), previousStatus == null ? null : previousStatus.name(),
+                order.getStatus().name(), trackingNumber, note, Timestamp.valueOf(occurredAt));
+
+        // Commande antérieure au journal : l'étape de création précède la transition
+        List<Map<String, String>> steps = new ArrayList<>(2);
+        if (previousStatus != null) {
+            steps.add(step(OrderStatus.PENDING, order.getOrderDate(), null));
+        }
+        steps.add(step(order.getStatus(), occurredAt, note));
+
+        Projection projection = jdbcTemplate.queryForObject(UPSERT_SQL, this::mapProjection,
+                order.getId(), order.getOrderNumber(), order.getStatus().name(), trackingNumber,
+                Date.valueOf(estimatedDelivery(order)), toJson(steps), Timestamp.valueOf(LocalDateTime.now()));
+
+        // Visible dans le cache seulement une fois la transition validée
+        Long orderId = order.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.merge(orderId, projection, (current, latest) -> latest.version >= current.version ? latest : current);
+            }
+        });
+    }
+
+    // Suivi d'une commande : cache vérifié par sa version, puis projection en base,
+    // puis reconstruction pour les anciennes commandes
+    public Map<String, Object> getTracking(Long orderId) {
+        Projection projection;
+        Projection cached = cache.get(orderId);
+        if (cached != null) {
+            List<Projection> newer = jdbcTemplate.query(SELECT_NEWER_SQL, this::mapProjection, orderId, cached.version);
+            if (newer.isEmpty()) {
+                return cached.body;
+            }
+            projection = newer.get(0);
+        } else {
+            List<Projection> rows = jdbcTemplate.query(SELECT_SQL, this::mapProjection, orderId);
+            projection = rows.isEmpty() ? initialize(orderId) : rows.get(0);
+        }
+        cache.merge(orderId, projection, (current, latest) -> latest.version >= current.version ? latest : current);
+        return projection.body;
+    }
+
+    // Commande créée avant le journal : projection minimale à partir de son état actuel
+    private Projection initialize(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Commande non trouvée: " + orderId));
+
+        List<Map<String, String>> steps = new ArrayList<>(2);
+        steps.add(step(OrderStatus.PENDING, order.getOrderDate(), null));
+        if (order.getStatus() != OrderStatus.PENDING) {
+            steps.add(step(order.getStatus(), order.getDeliveryDate(), null));
+        }
+        LocalDate estimatedDelivery = estimatedDelivery(order);
+        jdbcTemplate.update(INSERT_IF_ABSENT_SQL, orderId, order.getOrderNumber(), order.getStatus().name(),
+                Date.valueOf(estimatedDelivery), toJson(steps), Timestamp.valueOf(LocalDateTime.now()));
+
+        // Une transition concurrente a pu créer la ligne entre-temps : elle fait foi
+        List<Projection> rows = jdbcTemplate.query(SELECT_SQL, this::mapProjection, orderId);
+        if (!rows.isEmpty()) {
+            return rows.get(0);
+        }
+        return new Projection(0, body(orderId, order.getOrderNumber(), order.getStatus(), null, estimatedDelivery, steps));
+    }
+
+    private Projection mapProjection(ResultSet rs, int rowNum) throws SQLException {
+        Date estimatedDelivery = rs.getDate("estimated_delivery");
+        return new Projection(rs.getLong("version"), body(
+                rs.getLong("order_id"),
+                rs.getString("order_number"),
+                OrderStatus.valueOf(rs.getString("status")),
+                rs.getString("tracking_number"),
+                estimatedDelivery == null ? null : estimatedDelivery.toLocalDate(),
+                readHistory(rs.getString("history"))));
+    }
+
+    private static Map<String, Object> body(Long orderId, String orderNumber, OrderStatus status,
+                                            String trackingNumber, LocalDate estimatedDelivery,
+                                            List<Map<String, String>> history) {
+        Map<String, Object> tracking = new LinkedHashMap<>();
+        tracking.put("orderId", orderId);
+        tracking.put("orderNumber", orderNumber);
+        tracking.put("currentStatus", OrderService.translateStatus(status));
+        tracking.put("statusCode", status.toString());
+        tracking.put("trackingNumber", trackingNumber);
+        tracking.put("estimatedDelivery", estimatedDelivery == null ? null : estimatedDelivery.format(DAY_FORMAT));
+        tracking.put("history", Collections.unmodifiableList(history));
+        return Collections.unmodifiableMap(tracking);
+    }
+
+    private static LocalDate estimatedDelivery(Order order) {
+        if (order.getStatus() == OrderStatus.DELIVERED && order.getDeliveryDate() != null) {
+            return order.getDeliveryDate().toLocalDate();
+        }
+        return order.getOrderDate().plusDays(DELIVERY_DAYS).toLocalDate();
+    }
+
+    private static Map<String, String> step(OrderStatus status, LocalDateTime date, String note) {
+        String description = describe(status);
+        if (note != null && !note.isBlank()) {
+            description += " : " + note;
+        }
+        Map<String, String> step = new LinkedHashMap<>();
+        step.put("date", date == null ? null : date.format(STEP_FORMAT));
+        step.put("description", description);
+        step.put("status", status.name());
+        return step;
+    }
+
+    private static String describe(OrderStatus status) {
+        switch (status) {
+            case PENDING:
+                return "Commande créée";
+            case CONFIRMED:
+                return "Commande confirmée par le vendeur";
+            case SHIPPED:
+                return "Colis expédié - En cours de livraison";
+            case DELIVERED:
+                return "Colis livré avec succès";
+            case CANCELLED:
+                return "Commande annulée";
+            default:
+                return status.toString();
+        }
+    }
+
+    private List<Map<String, String>> readHistory(String json) {
+        try {
+            return objectMapper.readValue(json, HISTORY_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Historique de suivi illisible: " + e.getOriginalMessage());
+        }
+    }
+
+    private String toJson(List<Map<String, String>> steps) {
+        try {
+            return objectMapper.writeValueAsString(steps);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Historique de suivi non sérialisable: " + e.getOriginalMessage());
+        }
+    }
+}
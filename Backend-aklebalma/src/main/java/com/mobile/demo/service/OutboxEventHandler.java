@@ -0,0 +1,14 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+
+import java.util.Map;
+
+// Consommateur d'événements de l'outbox. Appelé dans la transaction qui marque l'événement traité :
+// ses écritures en base sont donc appliquées exactement une fois.
+public interface OutboxEventHandler {
+
+    boolean supports(OutboxEvent event);
+
+    void handle(OutboxEvent event, Map<String, Object> payload);
+}
@@ -0,0 +1,171 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OutboxEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Distribution des événements de l'outbox aux consommateurs internes, par lots, hors du chemin des requêtes.
+// Plusieurs instances peuvent tourner en même temps grâce à FOR UPDATE SKIP LOCKED.
+@Service
+public class OutboxRelay {
+
+    private static final String SELECT_PENDING_SQL =
+            "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts FROM outbox_events " +
+            "WHERE processed_at IS NULL AND attempts < ? AND id > ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, rowNum) -> {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(rs.getLong("id"));
+        event.setAggregateType(rs.getString("aggregate_type"));
+        event.setAggregateId(rs.getLong("aggregate_id"));
+        event.setEventType(OutboxEventType.valueOf(rs.getString("event_type")));
+        event.setPayload(rs.getString("payload"));
+        event.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        event.setAttempts(rs.getInt("attempts"));
+        return event;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private List<OutboxEventHandler> handlers;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:500}")
+    public void relay() {
+        int total = 0;
+        int drained;
+        do {
+            drained = drainBatch();
+            total += drained;
+        } while (drained == batchSize);
+
+        if (total > 0) {
+            System.out.println("📤 Outbox : " + total + " événement(s) distribué(s)");
+        }
+    }
+
+    // Un lot = une transaction ; si un consommateur échoue, le lot est rejoué événement par événement
+    private int drainBatch() {
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = jdbcTemplate.query(SELECT_PENDING_SQL, EVENT_MAPPER, maxAttempts, 0L, batchSize);
+                List<Long> ids = new ArrayList<>(events.size());
+                for (OutboxEvent event : events) {
+                    dispatch(event);
+                    ids.add(event.getId());
+                }
+                markProcessed(ids);
+                return events.size();
+            });
+            return count == null ? 0 : count;
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Outbox : lot en échec (" + e.getMessage() + "), traitement unitaire");
+            return drainOneByOne();
+        }
+    }
+
+    // Les ids déjà vus dans ce passage sont sautés : un événement en échec n'est retenté qu'au passage suivant
+    // au lieu d'épuiser toutes ses tentatives d'un coup
+    private int drainOneByOne() {
+        int processed = 0;
+        long lastId = 0L;
+        for (int i = 0; i < batchSize; i++) {
+            OutboxEvent[] current = new OutboxEvent[1];
+            long after = lastId;
+            try {
+                Boolean found = transactionTemplate.execute(status -> {
+                    List<OutboxEvent> events = jdbcTemplate.query(SELECT_PENDING_SQL, EVENT_MAPPER, maxAttempts, after, 1);
+                    if (events.isEmpty()) {
+                        return false;
+                    }
+                    current[0] = events.get(0);
+                    dispatch(current[0]);
+                    markProcessed(List.of(current[0].getId()));
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(found)) {
+                    break;
+                }
+                processed++;
+                lastId = current[0].getId();
+            } catch (RuntimeException e) {
+                if (current[0] == null) {
+                    throw e;
+                }
+                recordFailure(current[0], e);
+                lastId = current[0].getId();
+            }
+        }
+        return processed;
+    }
+
+    private void dispatch(OutboxEvent event) {
+        Map<String, Object> payload = outboxService.readPayload(event.getPayload());
+        for (OutboxEventHandler handler : handlers) {
+            if (handler.supports(event)) {
+                handler.handle(event, payload);
+            }
+        }
+    }
+
+    private void markProcessed(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("UPDATE outbox_events SET processed_at = ? WHERE id = ANY(?)");
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setArray(2, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+
+    // Échec isolé : compté dans sa propre transaction ; au-delà de max-attempts l'événement reste en attente d'analyse
+    private void recordFailure(OutboxEvent event, RuntimeException error) {
+        String message = String.valueOf(error.getMessage());
+        String truncated = message.length() > 1000 ? message.substring(0, 1000) : message;
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "UPDATE outbox_events SET attempts = attempts + 1, last_error = ? WHERE id = ?",
+                truncated, event.getId()));
+        System.out.println("❌ Outbox : événement " + event.getId() + " (" + event.getEventType() + ") en échec, tentative "
+                + (event.getAttempts() + 1) + "/" + maxAttempts + " : " + message);
+    }
+
+    // Purge des événements traités
+    @Scheduled(cron = "${outbox.cleanup-cron:0 30 3 * * *}")
+    public void purgeProcessed() {
+        int deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            System.out.println("🧹 Outbox : " + deleted + " événement(s) purgé(s)");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.OutboxEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Écriture des événements dans l'outbox, toujours dans la transaction de l'appelant :
+// l'événement existe si et seulement si le changement d'état est validé
+@Service
+public class OutboxService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at, attempts) " +
+            "VALUES (?, ?, ?, ?, ?, 0)";
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, OutboxEventType eventType, Map<String, Object> payload) {
+        jdbcTemplate.update(INSERT_SQL, aggregateType, aggregateId, eventType.name(), toJson(payload),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        append("ORDER", order.getId(), OutboxEventType.ORDER_CREATED, orderPayload(order, null));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order, OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        append("ORDER", order.getId(), OutboxEventType.ORDER_STATUS_CHANGED, orderPayload(order, previousStatus));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCancelled(Order order, OrderStatus previousStatus, String reason) {
+        Map<String, Object> payload = orderPayload(order, previousStatus);
+        payload.put("reason", reason);
+        append("ORDER", order.getId(), OutboxEventType.ORDER_CANCELLED, payload);
+    }
+
+    // Montants et dates en texte : pas de perte de précision au passage par JSON
+    private static Map<String, Object> orderPayload(Order order, OrderStatus previousStatus) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUserId());
+        payload.put("orderDate", order.getOrderDate().toString());
+        payload.put("totalAmount", order.getTotalAmount().toPlainString());
+        payload.put("status", order.getStatus().name());
+        payload.put("previousStatus", previousStatus == null ? null : previousStatus.name());
+        return payload;
+    }
+
+    Map<String, Object> readPayload(String json) {
+        try {
+            return objectMapper.readValue(json, PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Événement illisible: " + e.getOriginalMessage());
+        }
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Événement non sérialisable: " + e.getOriginalMessage());
+        }
+    }
+}
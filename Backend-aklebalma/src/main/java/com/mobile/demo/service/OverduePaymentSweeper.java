@@ -0,0 +1,239 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.enums.OutboxEventType;
+import com.mobile.demo.enums.PaymentPlanStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Passage des échéances impayées en OVERDUE et mise à jour des plans concernés.
+// Les paiements sont découpés en plages d'id traitées en parallèle (nombre de connexions borné),
+// chaque plage en une seule requête et une transaction courte : aucun verrou n'est gardé longtemps.
+@Service
+public class OverduePaymentSweeper {
+
+    // Bornes des candidats : parcours de l'index (status, due_date)
+    private static final String RANGE_SQL =
+            "SELECT min(id), max(id) FROM payments WHERE status IN ('PENDING', 'PARTIAL') AND due_date < ?";
+
+    // Une plage : échéances passées en retard, puis cumul par plan et défaut au-delà du seuil.
+    // Seuls les plans qui viennent de franchir le seuil depuis ACTIVE sont renvoyés comme défaillants.
+    // Le montant payé d'une échéance PARTIAL n'est pas conservé : elle compte comme échéance en retard,
+    // mais son montant n'est pas ajouté (overdue_amount ne doit jamais dépasser ce qui reste dû).
+    private static final String SWEEP_CHUNK_SQL =
+            "WITH overdue AS (" +
+            "  UPDATE payments p SET status = 'OVERDUE' FROM payments old " +
+            "  WHERE old.id = p.id AND p.id BETWEEN ? AND ? AND p.status IN ('PENDING', 'PARTIAL') AND p.due_date < ? " +
+            "  RETURNING p.payment_plan_id, CASE WHEN old.status = 'PENDING' THEN p.amount ELSE 0 END AS amount), " +
+            "per_plan AS (" +
+            "  SELECT payment_plan_id, count(*) AS installments, sum(amount) AS amount " +
+            "  FROM overdue WHERE payment_plan_id IS NOT NULL GROUP BY payment_plan_id) " +
+            "UPDATE payment_plans p SET " +
+            "  overdue_installments = coalesce(p.overdue_installments, 0) + pp.installments, " +
+            "  overdue_amount = coalesce(p.overdue_amount, 0) + pp.amount, " +
+            "  status = CASE WHEN p.status = 'ACTIVE' AND coalesce(p.overdue_installments, 0) + pp.installments >= ? " +
+            "           THEN 'DEFAULTED' ELSE p.status END " +
+            "FROM per_plan pp JOIN payment_plans old ON old.id = pp.payment_plan_id " +
+            "WHERE p.id = pp.payment_plan_id " +
+            "RETURNING p.id, p.order_id, p.user_id, p.status, p.overdue_installments, p.overdue_amount, " +
+            "  pp.installments AS swept, old.status AS previous_status";
+
+    // Défaut par ancienneté : une échéance en retard depuis trop longtemps suffit
+    private static final String DEFAULT_BY_AGE_SQL =
+            "UPDATE payment_plans p SET status = 'DEFAULTED' " +
+            "WHERE p.status = 'ACTIVE' AND p.id IN (" +
+            "  SELECT payment_plan_id FROM payments WHERE status = 'OVERDUE' AND due_date < ?) " +
+            "RETURNING p.id, p.order_id, p.user_id, p.status, p.overdue_installments, p.overdue_amount";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${payments.overdue-chunk-size:5000}")
+    private long chunkSize;
+
+    @Value("${payments.overdue-grace-days:0}")
+    private int graceDays;
+
+    @Value("${payments.default-after-overdue-installments:2}")
+    private int defaultAfterInstallments;
+
+    @Value("${payments.default-after-days:90}")
+    private int defaultAfterDays;
+
+    // Une connexion par thread : à garder sous la taille du pool de la base
+    private final ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OverduePaymentSweeper(@Value("${payments.overdue-concurrency:4}") int concurrency) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Balayage planifié (par défaut chaque nuit). Il attend la fin de ses plages : le planificateur
+    // a plusieurs threads (spring.task.scheduling.pool.size), les autres tâches continuent pendant ce temps
+    @Scheduled(cron = "${payments.overdue-sweep-cron:0 15 0 * * *}")
+    public void scheduledSweep() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            System.err.println("Erreur lors du balayage des échéances en retard: " + e.getMessage());
+        }
+    }
+
+    // Balayage complet ; un seul à la fois, un appel concurrent est refusé
+    public Map<String, Object> sweep() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Balayage des échéances déjà en cours");
+        }
+        try {
+            return doSweep();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> doSweep() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp cutoff = Timestamp.valueOf(now.minusDays(graceDays));
+
+        AtomicInteger overduePayments = new AtomicInteger();
+        AtomicInteger defaultedPlans = new AtomicInteger();
+        int chunks = 0;
+
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(RANGE_SQL, cutoff);
+        Number minId = (Number) bounds.get("min");
+        Number maxId = (Number) bounds.get("max");
+        if (minId != null) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long from = minId.longValue(); from <= maxId.longValue(); from += chunkSize) {
+                long lo = from;
+                long hi = Math.min(from + chunkSize - 1, maxId.longValue());
+                futures.add(executor.submit(() -> sweepChunk(lo, hi, cutoff, overduePayments, defaultedPlans)));
+                chunks++;
+            }
+            await(futures);
+        }
+
+        // Après les plages : plans encore actifs avec une échéance trop ancienne
+        Integer byAge = transactionTemplate.execute(status ->
+                emitDefaults(jdbcTemplate.queryForList(DEFAULT_BY_AGE_SQL,
+                        Timestamp.valueOf(now.minusDays(defaultAfterDays)))));
+        defaultedPlans.addAndGet(byAge == null ? 0 : byAge);
+
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println("⏰ Échéances en retard : " + overduePayments.get() + " paiement(s), "
+                + defaultedPlans.get() + " plan(s) en défaut, " + chunks + " plage(s) en " + elapsed + " ms");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("overduePayments", overduePayments.get());
+        result.put("defaultedPlans", defaultedPlans.get());
+        result.put("chunks", chunks);
+        result.put("durationMs", elapsed);
+        return result;
+    }
+
+    // Une plage d'id dans sa propre transaction ; rejouée une fois si la base détecte un interblocage
+    private void sweepChunk(long fromId, long toId, Timestamp cutoff,
+                            AtomicInteger overduePayments, AtomicInteger defaultedPlans) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Map<String, Object>> plans = jdbcTemplate.queryForList(SWEEP_CHUNK_SQL,
+                            fromId, toId, cutoff, defaultAfterInstallments);
+                    int swept = 0;
+                    List<Map<String, Object>> defaulted = new ArrayList<>();
+                    for (Map<String, Object> plan : plans) {
+                        int installments = ((Number) plan.get("swept")).intValue();
+                        int overdue = ((Number) plan.get("overdue_installments")).intValue();
+                        swept += installments;
+                        // Franchissement du seuil par cette plage : un seul événement par plan
+                        if (PaymentPlanStatus.DEFAULTED.name().equals(plan.get("status"))
+                                && PaymentPlanStatus.ACTIVE.name().equals(plan.get("previous_status"))
+                                && overdue - installments < defaultAfterInstallments) {
+                            defaulted.add(plan);
+                        }
+                    }
+                    int newlyDefaulted = emitDefaults(defaulted);
+                    overduePayments.addAndGet(swept);
+                    defaultedPlans.addAndGet(newlyDefaulted);
+                });
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Un événement par plan passé de ACTIVE à DEFAULTED
+    private int emitDefaults(List<Map<String, Object>> plans) {
+        for (Map<String, Object> plan : plans) {
+            Long planId = ((Number) plan.get("id")).longValue();
+            BigDecimal overdueAmount = (BigDecimal) plan.get("overdue_amount");
+
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("planId", planId);
+            payload.put("orderId", plan.get("order_id"));
+            payload.put("userId", plan.get("user_id"));
+            payload.put("status", PaymentPlanStatus.DEFAULTED.name());
+            payload.put("previousStatus", PaymentPlanStatus.ACTIVE.name());
+            payload.put("overdueInstallments", plan.get("overdue_installments"));
+            payload.put("overdueAmount", overdueAmount == null ? null : overdueAmount.toPlainString());
+            outboxService.append("PAYMENT_PLAN", planId, OutboxEventType.PAYMENT_STATUS_CHANGED, payload);
+        }
+        return plans.size();
+    }
+
+    private static void await(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Balayage des échéances interrompu");
+            } catch (ExecutionException e) {
+                // Les autres plages sont indépendantes : on les laisse finir avant de signaler l'échec
+                if (failure == null) {
+                    failure = new RuntimeException("Échec d'une plage d'échéances: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
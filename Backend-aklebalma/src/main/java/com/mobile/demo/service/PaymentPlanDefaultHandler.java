@@ -0,0 +1,57 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.NotificationType;
+import com.mobile.demo.enums.OutboxEventType;
+import com.mobile.demo.enums.PaymentPlanStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Plan de paiement passé en défaut (OverduePaymentSweeper) : l'utilisateur est prévenu
+// et son score de crédit baisse, ce qui bloque les prochains achats à crédit sous le seuil d'éligibilité
+@Service
+public class PaymentPlanDefaultHandler implements OutboxEventHandler {
+
+    private static final String SCORE_SQL =
+            "UPDATE credit_scores SET score = GREATEST(score - ?, 0), risk_level = 'HIGH', last_updated = ? " +
+            "WHERE user_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${payments.default-score-penalty:200}")
+    private int scorePenalty;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return "PAYMENT_PLAN".equals(event.getAggregateType())
+                && event.getEventType() == OutboxEventType.PAYMENT_STATUS_CHANGED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        if (!PaymentPlanStatus.DEFAULTED.name().equals(payload.get("status")) || payload.get("userId") == null) {
+            return;
+        }
+        Long userId = ((Number) payload.get("userId")).longValue();
+
+        jdbcTemplate.update(SCORE_SQL, scorePenalty, Timestamp.valueOf(LocalDateTime.now()), userId);
+
+        String message = String.format("Votre plan de paiement n°%s est en défaut : %s échéance(s) impayée(s) pour %s FCFA. "
+                        + "Régularisez votre situation pour retrouver l'accès au crédit.",
+                payload.get("planId"), payload.get("overdueInstallments"), payload.get("overdueAmount"));
+        notificationService.createNotification("Plan de paiement en défaut", message, NotificationType.PAYMENT,
+                userId, "HIGH");
+        System.out.println("💳 Plan " + payload.get("planId") + " en défaut : score de l'utilisateur " + userId
+                + " baissé de " + scorePenalty);
+    }
+}
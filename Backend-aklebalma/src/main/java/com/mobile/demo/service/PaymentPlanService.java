@@ -0,0 +1,213 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.enums.PaymentPlanStatus;
+import com.mobile.demo.enums.PaymentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Plans de paiement et échéancier : toutes les échéances d'un plan en un seul lot JDBC,
+// mensuelles à partir de la date de début, l'arrondi reporté sur la dernière.
+// Le mode import traite des milliers de plans avec un nombre fixe d'allers-retours par lot.
+@Service
+public class PaymentPlanService {
+
+    public static final Set<Integer> ALLOWED_INSTALLMENTS = Set.of(1, 3, 4, 5, 6, 10);
+
+    private static final String PAYMENT_PLAN_SQL =
+            "INSERT INTO payment_plans (number_of_installments, total_amount, installment_amount, start_date, " +
+            "status, order_id, user_id, paid_installments, amount_paid, remaining_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0, 0, ?) RETURNING id";
+
+    // Import : identifiants réservés d'avance dans la séquence, puis plans insérés avec leur id
+    private static final String PLAN_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('payment_plans', 'id')) FROM generate_series(1, ?)";
+
+    private static final String PAYMENT_PLAN_WITH_ID_SQL =
+            "INSERT INTO payment_plans (id, number_of_installments, total_amount, installment_amount, start_date, " +
+            "status, order_id, user_id, paid_installments, amount_paid, remaining_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?)";
+
+    private static final String PAYMENT_SQL =
+            "INSERT INTO payments (amount, due_date, status, payment_plan_id, user_id, installment_number, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${payment-plan.import-batch-size:500}")
+    private int importBatchSize;
+
+    // Plan à créer (commande passée ou ligne d'un import)
+    public static final class NewPlan {
+        private final Long orderId;
+        private final Long userId;
+        private final BigDecimal totalAmount;
+        private final int installments;
+        private final LocalDateTime startDate;
+
+        public NewPlan(Long orderId, Long userId, BigDecimal totalAmount, int installments, LocalDateTime startDate) {
+            this.orderId = orderId;
+            this.userId = userId;
+            this.totalAmount = totalAmount;
+            this.installments = installments;
+            this.startDate = startDate;
+        }
+    }
+
+    // Une échéance calculée
+    public static final class Installment {
+        private final int number;
+        private final BigDecimal amount;
+        private final LocalDateTime dueDate;
+
+        Installment(int number, BigDecimal amount, LocalDateTime dueDate) {
+            this.number = number;
+            this.amount = amount;
+            this.dueDate = dueDate;
+        }
+
+        public int getNumber() { return number; }
+        public BigDecimal getAmount() { return amount; }
+        public LocalDateTime getDueDate() { return dueDate; }
+    }
+
+    // Montants arrondis au centime inférieur ; la dernière échéance reçoit le reste
+    public static List<Installment> schedule(BigDecimal total, int installments, LocalDateTime startDate) {
+        BigDecimal installmentAmount = regularAmount(total, installments);
+        BigDecimal lastAmount = total.subtract(installmentAmount.multiply(BigDecimal.valueOf(installments - 1)));
+
+        List<Installment> schedule = new ArrayList<>(installments);
+        for (int number = 1; number <= installments; number++) {
+            schedule.add(new Installment(number, number == installments ? lastAmount : installmentAmount,
+                    startDate.plusMonths(number)));
+        }
+        return schedule;
+    }
+
+    // Créer le plan d'une commande et ses échéances : deux allers-retours quel que soit le nombre d'échéances
+    @Transactional
+    public Map<String, Object> createPlan(Long orderId, Long userId, BigDecimal total, int installments) {
+        NewPlan plan = new NewPlan(orderId, userId, total, installments, LocalDateTime.now());
+        validate(plan);
+
+        BigDecimal installmentAmount = regularAmount(total, installments);
+        Long planId = jdbcTemplate.queryForObject(PAYMENT_PLAN_SQL, Long.class,
+                installments, total, installmentAmount, Timestamp.valueOf(plan.startDate),
+                PaymentPlanStatus.ACTIVE.name(), orderId, userId, total);
+
+        List<Installment> schedule = schedule(total, installments, plan.startDate);
+        List<Object[]> rows = new ArrayList<>(installments);
+        addPaymentRows(rows, planId, plan, schedule);
+        jdbcTemplate.batchUpdate(PAYMENT_SQL, rows);
+
+        List<Map<String, Object>> installmentsView = new ArrayList<>(installments);
+        for (Installment installment : schedule) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("installmentNumber", installment.number);
+            view.put("amount", installment.amount);
+            view.put("dueDate", installment.dueDate);
+            installmentsView.add(view);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", planId);
+        result.put("numberOfInstallments", installments);
+        result.put("totalAmount", total);
+        result.put("installmentAmount", installmentAmount);
+        result.put("installments", installmentsView);
+        return result;
+    }
+
+    // Import en masse (migration) : toutes les lignes sont validées d'abord, puis chaque lot est inséré
+    // dans sa propre transaction avec trois allers-retours (ids, plans, échéances).
+    public Map<String, Object> importPlans(List<NewPlan> plans) {
+        for (int i = 0; i < plans.size(); i++) {
+            try {
+                validate(plans.get(i));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Ligne " + (i + 1) + " : " + e.getMessage());
+            }
+        }
+
+        int plansCreated = 0;
+        int paymentsCreated = 0;
+        int batches = 0;
+        for (int from = 0; from < plans.size(); from += importBatchSize) {
+            List<NewPlan> batch = plans.subList(from, Math.min(from + importBatchSize, plans.size()));
+            Integer payments = transactionTemplate.execute(status -> insertBatch(batch));
+            plansCreated += batch.size();
+            paymentsCreated += payments == null ? 0 : payments;
+            batches++;
+        }
+        System.out.println("💳 Import : " + plansCreated + " plan(s), " + paymentsCreated + " échéance(s) en "
+                + batches + " lot(s)");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("plans", plansCreated);
+        result.put("payments", paymentsCreated);
+        result.put("batches", batches);
+        return result;
+    }
+
+    private int insertBatch(List<NewPlan> batch) {
+        List<Long> ids = jdbcTemplate.queryForList(PLAN_IDS_SQL, Long.class, batch.size());
+
+        List<Object[]> planRows = new ArrayList<>(batch.size());
+        List<Object[]> paymentRows = new ArrayList<>(batch.size() * 6);
+        for (int i = 0; i < batch.size(); i++) {
+            NewPlan plan = batch.get(i);
+            Long planId = ids.get(i);
+            planRows.add(new Object[]{planId, plan.installments, plan.totalAmount,
+                    regularAmount(plan.totalAmount, plan.installments), Timestamp.valueOf(plan.startDate),
+                    PaymentPlanStatus.ACTIVE.name(), plan.orderId, plan.userId, plan.totalAmount});
+            addPaymentRows(paymentRows, planId, plan, schedule(plan.totalAmount, plan.installments, plan.startDate));
+        }
+        jdbcTemplate.batchUpdate(PAYMENT_PLAN_WITH_ID_SQL, planRows);
+        jdbcTemplate.batchUpdate(PAYMENT_SQL, paymentRows);
+        return paymentRows.size();
+    }
+
+    private static void addPaymentRows(List<Object[]> rows, Long planId, NewPlan plan, List<Installment> schedule) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (Installment installment : schedule) {
+            rows.add(new Object[]{installment.amount, Timestamp.valueOf(installment.dueDate),
+                    PaymentStatus.PENDING.name(), planId, plan.userId, installment.number, createdAt});
+        }
+    }
+
+    private static void validate(NewPlan plan) {
+        if (plan.userId == null) {
+            throw new RuntimeException("Utilisateur obligatoire");
+        }
+        if (!ALLOWED_INSTALLMENTS.contains(plan.installments)) {
+            throw new RuntimeException("Nombre d'échéances invalide: " + plan.installments);
+        }
+        if (plan.totalAmount == null || plan.totalAmount.signum() <= 0) {
+            throw new RuntimeException("Montant invalide: " + plan.totalAmount);
+        }
+        if (plan.startDate == null) {
+            throw new RuntimeException("Date de début obligatoire");
+        }
+    }
+
+    private static BigDecimal regularAmount(BigDecimal total, int installments) {
+        return total.divide(BigDecimal.valueOf(installments), 2, RoundingMode.DOWN);
+    }
+}
@@ -0,0 +1,247 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.enums.NotificationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Rappels d'échéances (J-3, J-1, jour J par défaut) : la base est lue une seule fois par fenêtre,
+// les rappels de la fenêtre attendent dans une roue temporelle et partent par lots à leur heure.
+// La table payment_reminders (unique par paiement et décalage) garantit un seul envoi, même après un redémarrage.
+@Service
+public class PaymentReminderScheduler {
+
+    // Échéances encore dues dans la plage, avec les décalages déjà envoyés
+    private static final String WINDOW_SQL =
+            "SELECT p.id, p.user_id, p.amount, p.due_date, " +
+            "ARRAY(SELECT r.offset_days FROM payment_reminders r WHERE r.payment_id = p.id) AS sent " +
+            "FROM payments p WHERE p.status IN ('PENDING', 'PARTIAL') AND p.due_date >= ? AND p.due_date < ?";
+
+    // Réserver les rappels d'un lot : seuls ceux réellement insérés (et encore dus) sont envoyés
+    private static final String CLAIM_SQL =
+            "INSERT INTO payment_reminders (payment_id, offset_days, sent_at) " +
+            "SELECT r.payment_id, r.offset_days, ? FROM unnest(?::bigint[], ?::integer[]) AS r(payment_id, offset_days) " +
+            "JOIN payments p ON p.id = r.payment_id AND p.status IN ('PENDING', 'PARTIAL') " +
+            "ON CONFLICT (payment_id, offset_days) DO NOTHING RETURNING payment_id, offset_days";
+
+    private static final String NOTIFICATION_SQL =
+            "INSERT INTO notifications (title, message, sent_date, is_read, type, user_id, priority) " +
+            "VALUES (?, ?, ?, false, ?, ?, 'HIGH')";
+
+    private static final String REMINDER_SENT_SQL =
+            "UPDATE payments SET reminder_sent_at = ? WHERE id = ANY(?)";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Roue : cases d'une minute, 60 cases par niveau, 3 niveaux (environ 150 jours)
+    private static final long TICK_MS = 60_000;
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${payments.reminder-offsets-days:3,1,0}")
+    private int[] offsetsDays;
+
+    @Value("${payments.reminder-hour:9}")
+    private int reminderHour;
+
+    @Value("${payments.reminder-window-hours:24}")
+    private long windowHours;
+
+    @Value("${payments.reminder-batch-size:500}")
+    private int batchSize;
+
+    private HierarchicalTimingWheel<Reminder> wheel;
+
+    // Fin de la dernière fenêtre chargée (null tant que rien n'a été lu)
+    private LocalDateTime loadedUntil;
+
+    // Rappels en retard ou lots en échec : envoyés au prochain envoi (la réservation évite tout doublon)
+    private final List<Reminder> retry = new ArrayList<>();
+
+    // Un rappel programmé
+    private static final class Reminder {
+        private final long paymentId;
+        private final Long userId;
+        private final BigDecimal amount;
+        private final LocalDateTime dueDate;
+        private final int offsetDays;
+
+        Reminder(long paymentId, Long userId, BigDecimal amount, LocalDateTime dueDate, int offsetDays) {
+            this.paymentId = paymentId;
+            this.userId = userId;
+            this.amount = amount;
+            this.dueDate = dueDate;
+            this.offsetDays = offsetDays;
+        }
+
+        String key() {
+            return paymentId + ":" + offsetDays;
+        }
+    }
+
+    // Chaque minute : charger la fenêtre suivante si besoin, puis envoyer les rappels échus
+    @Scheduled(fixedDelayString = "${payments.reminder-tick-ms:60000}")
+    public void tick() {
+        tick(LocalDateTime.now());
+    }
+
+    synchronized void tick(LocalDateTime now) {
+        try {
+            if (loadedUntil == null) {
+                // Démarrage : on reprend au début de la journée, les rappels déjà envoyés sont écartés
+                loadedUntil = now.toLocalDate().atStartOfDay();
+                wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, epochMillis(now));
+            }
+            while (!loadedUntil.isAfter(now)) {
+                LocalDateTime windowEnd = loadedUntil.plusHours(windowHours);
+                loadWindow(loadedUntil, windowEnd);
+                loadedUntil = windowEnd;
+            }
+            List<Reminder> due = wheel.advance(epochMillis(now));
+            due.addAll(retry);
+            retry.clear();
+            if (!due.isEmpty()) {
+                send(due);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'envoi des rappels d'échéance: " + e.getMessage());
+        }
+    }
+
+    // Une seule lecture par fenêtre : chaque rappel dont l'heure tombe dans [from, to) va dans la roue
+    private void loadWindow(LocalDateTime from, LocalDateTime to) {
+        int maxOffset = Arrays.stream(offsetsDays).max().orElse(0);
+        Timestamp scanFrom = Timestamp.valueOf(from.toLocalDate().atStartOfDay());
+        Timestamp scanTo = Timestamp.valueOf(to.toLocalDate().plusDays(maxOffset + 1L).atStartOfDay());
+
+        int[] scheduled = {0};
+        jdbcTemplate.query(WINDOW_SQL, rs -> {
+            Set<Integer> sent = toSet(rs.getArray("sent"));
+            LocalDateTime dueDate = rs.getTimestamp("due_date").toLocalDateTime();
+            for (int offset : offsetsDays) {
+                LocalDateTime fireAt = fireTime(dueDate.toLocalDate(), offset);
+                if (sent.contains(offset) || fireAt.isBefore(from) || !fireAt.isBefore(to)) {
+                    continue;
+                }
+                Reminder reminder = new Reminder(rs.getLong("id"), rs.getObject("user_id", Long.class),
+                        rs.getBigDecimal("amount"), dueDate, offset);
+                if (!wheel.add(epochMillis(fireAt), reminder)) {
+                    // Heure déjà passée (reprise au démarrage) : envoi immédiat
+                    retry.add(reminder);
+                }
+                scheduled[0]++;
+            }
+        }, scanFrom, scanTo);
+
+        System.out.println("🔔 Rappels d'échéance programmés du " + from + " au " + to + " : " + scheduled[0]);
+    }
+
+    private void send(List<Reminder> due) {
+        int sent = 0;
+        for (int start = 0; start < due.size(); start += batchSize) {
+            List<Reminder> batch = due.subList(start, Math.min(start + batchSize, due.size()));
+            try {
+                Integer count = transactionTemplate.execute(status -> sendBatch(batch));
+                sent += count == null ? 0 : count;
+            } catch (RuntimeException e) {
+                System.err.println("Erreur lors de l'envoi d'un lot de rappels: " + e.getMessage());
+                retry.addAll(batch);
+            }
+        }
+        System.out.println("🔔 " + sent + " rappel(s) d'échéance envoyé(s)");
+    }
+
+    // Un lot = trois allers-retours : réservation, notifications, horodatage des paiements
+    private int sendBatch(List<Reminder> batch) {
+        Map<String, Reminder> byKey = new HashMap<>();
+        Long[] paymentIds = new Long[batch.size()];
+        Integer[] offsets = new Integer[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Reminder reminder = batch.get(i);
+            byKey.put(reminder.key(), reminder);
+            paymentIds[i] = reminder.paymentId;
+            offsets[i] = reminder.offsetDays;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Reminder> claimed = jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(CLAIM_SQL);
+            statement.setTimestamp(1, now);
+            statement.setArray(2, connection.createArrayOf("bigint", paymentIds));
+            statement.setArray(3, connection.createArrayOf("integer", offsets));
+            return statement;
+        }, (rs, rowNum) -> byKey.get(rs.getLong("payment_id") + ":" + rs.getInt("offset_days")));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> notifications = new ArrayList<>(claimed.size());
+        Set<Long> remindedIds = new HashSet<>();
+        for (Reminder reminder : claimed) {
+            notifications.add(new Object[]{"Échéance de paiement", message(reminder), now,
+                    NotificationType.PAYMENT.name(), reminder.userId});
+            remindedIds.add(reminder.paymentId);
+        }
+        jdbcTemplate.batchUpdate(NOTIFICATION_SQL, notifications);
+
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(REMINDER_SENT_SQL);
+            statement.setTimestamp(1, now);
+            statement.setArray(2, connection.createArrayOf("bigint", remindedIds.toArray()));
+            return statement;
+        });
+        return claimed.size();
+    }
+
+    // Même formulation que NotificationService.sendPaymentNotification
+    private static String message(Reminder reminder) {
+        String amount = reminder.amount == null ? "" : reminder.amount.toPlainString() + " FCFA";
+        if (reminder.offsetDays == 0) {
+            return String.format("Votre échéance de %s est due aujourd'hui", amount);
+        }
+        return String.format("Votre prochaine échéance de %s est due le %s", amount,
+                reminder.dueDate.format(DATE_FORMAT));
+    }
+
+    private LocalDateTime fireTime(LocalDate dueDate, int offsetDays) {
+        return dueDate.minusDays(offsetDays).atTime(reminderHour, 0);
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+
+    private static Set<Integer> toSet(Array array) throws SQLException {
+        Set<Integer> values = new HashSet<>();
+        if (array != null) {
+            for (Object value : (Object[]) array.getArray()) {
+                values.add(((Number) value).intValue());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.entity.Promotion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Prix effectifs précalculés pour tout le catalogue à un instant donné.
+// Valable jusqu'au prochain début ou fin de campagne (validUntil), ou jusqu'au prochain changement
+// du catalogue ou des promotions.
+public final class PriceList {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // Entre promotions non cumulables : la plus forte remise, puis la priorité la plus haute
+    private static final Comparator<Promotion> EXCLUSIVE_ORDER = Comparator
+            .comparing(Promotion::getDiscountPercentage)
+            .thenComparing(Promotion::getPriority)
+            .reversed();
+
+    private static final PriceList EMPTY = new PriceList(-1, -1, LocalDateTime.MIN,
+            Collections.emptyList(), Collections.emptyList());
+
+    private final long catalogVersion;
+    private final long promotionsVersion;
+    private final LocalDateTime builtAt;
+    private final LocalDateTime validUntil;
+    private final Map<Long, ProductPrice> prices;
+    private final List<Promotion> running;
+
+    PriceList(long catalogVersion, long promotionsVersion, LocalDateTime now,
+              List<Product> products, List<Promotion> promotions) {
+        this.catalogVersion = catalogVersion;
+        this.promotionsVersion = promotionsVersion;
+        this.builtAt = now;
+
+        List<Promotion> running = new ArrayList<>();
+        LocalDateTime nextBoundary = null;
+        for (Promotion promotion : promotions) {
+            if (promotion.isRunningAt(now)) {
+                running.add(promotion);
+                nextBoundary = earliest(nextBoundary, promotion.getEndsAt());
+            } else if (Boolean.TRUE.equals(promotion.getActive()) && promotion.getStartsAt().isAfter(now)) {
+                nextBoundary = earliest(nextBoundary, promotion.getStartsAt());
+            }
+        }
+        this.validUntil = nextBoundary;
+        this.running = Collections.unmodifiableList(running);
+
+        Map<Long, ProductPrice> computed = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            if (product.getId() != null && product.getPrice() != null) {
+                computed.put(product.getId(), price(product, running));
+            }
+        }
+        this.prices = Collections.unmodifiableMap(computed);
+    }
+
+    static PriceList empty() {
+        return EMPTY;
+    }
+
+    public static final class ProductPrice {
+        private final Long productId;
+        private final BigDecimal basePrice;
+        private final BigDecimal effectivePrice;
+        private final List<Long> promotionIds;
+
+        ProductPrice(Long productId, BigDecimal basePrice, BigDecimal effectivePrice, List<Long> promotionIds) {
+            this.productId = productId;
+            this.basePrice = basePrice;
+            this.effectivePrice = effectivePrice;
+            this.promotionIds = promotionIds;
+        }
+
+        public Long getProductId() { return productId; }
+        public BigDecimal getBasePrice() { return basePrice; }
+        public BigDecimal getEffectivePrice() { return effectivePrice; }
+        public List<Long> getPromotionIds() { return promotionIds; }
+
+        public BigDecimal getDiscount() {
+            return basePrice.subtract(effectivePrice);
+        }
+    }
+
+    // Règles de cumul : les promotions cumulables se multiplient entre elles,
+    // une promotion non cumulable s'applique seule ; le client obtient le prix le plus bas des deux.
+    private static ProductPrice price(Product product, List<Promotion> running) {
+        BigDecimal base = product.getPrice();
+        BigDecimal stacked = base;
+        List<Long> stackedIds = new ArrayList<>();
+        Promotion bestExclusive = null;
+
+        for (Promotion promotion : running) {
+            if (!promotion.appliesTo(product)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(promotion.getStackable())) {
+                stacked = discounted(stacked, promotion.getDiscountPercentage());
+                stackedIds.add(promotion.getId());
+            } else if (bestExclusive == null || EXCLUSIVE_ORDER.compare(promotion, bestExclusive) < 0) {
+                bestExclusive = promotion;
+            }
+        }
+
+        if (bestExclusive != null) {
+            BigDecimal exclusive = discounted(base, bestExclusive.getDiscountPercentage());
+            if (exclusive.compareTo(stacked) <= 0) {
+                return new ProductPrice(product.getId(), base, round(exclusive),
+                        Collections.singletonList(bestExclusive.getId()));
+            }
+        }
+        return new ProductPrice(product.getId(), base, round(stacked),
+                stackedIds.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(stackedIds));
+    }
+
+    private static BigDecimal discounted(BigDecimal price, BigDecimal percentage) {
+        BigDecimal rate = percentage.min(HUNDRED).max(BigDecimal.ZERO);
+        return price.multiply(HUNDRED.subtract(rate)).divide(HUNDRED);
+    }
+
+    private static BigDecimal round(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    public ProductPrice get(Long productId) {
+        return prices.get(productId);
+    }
+
+    // Prix d'un produit lu à l'instant (checkout) avec les promotions de cette liste
+    public ProductPrice priceOf(Product product) {
+        return price(product, running);
+    }
+
+    // Vrai si une campagne a commencé ou s'est terminée depuis la construction
+    public boolean isExpiredAt(LocalDateTime now) {
+        return validUntil != null && !now.isBefore(validUntil);
+    }
+
+    public long getCatalogVersion() { return catalogVersion; }
+    public long getPromotionsVersion() { return promotionsVersion; }
+    public LocalDateTime getBuiltAt() { return builtAt; }
+    public LocalDateTime getValidUntil() { return validUntil; }
+    public int size() { return prices.size(); }
+}
@@ -0,0 +1,24 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.mobile.demo.entity.Product;
+
+import java.math.BigDecimal;
+
+// Produit renvoyé par les lectures du catalogue : tous les champs du produit plus son prix effectif.
+// Le produit de l'instantané n'est pas modifié, le prix vient de la liste de prix courante.
+public class PricedProduct {
+
+    @JsonUnwrapped
+    private final Product product;
+    private final BigDecimal effectivePrice;
+
+    public PricedProduct(Product product, BigDecimal effectivePrice) {
+        this.product = product;
+        this.effectivePrice = effectivePrice;
+    }
+
+    // Getters
+    public Product getProduct() { return product; }
+    public BigDecimal getEffectivePrice() { return effectivePrice; }
+}
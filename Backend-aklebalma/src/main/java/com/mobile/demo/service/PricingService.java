@@ -0,0 +1,252 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.entity.Promotion;
+import com.mobile.demo.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Moteur de prix : les prix effectifs (promotions appliquées) sont précalculés dans une PriceList
+// et servis en O(1). La liste est reconstruite quand une campagne commence ou se termine,
+// quand une promotion est modifiée, ou quand le catalogue change.
+@Service
+public class PricingService {
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    // Version des promotions : incrémentée à chaque écriture
+    private final AtomicLong promotionsVersion = new AtomicLong();
+
+    private final AtomicReference<PriceList> priceList = new AtomicReference<>(PriceList.empty());
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Toutes les promotions, les plus récentes d'abord
+    public List<Promotion> findAll() {
+        return promotionRepository.findAllByOrderByStartsAtDesc();
+    }
+
+    public Promotion findById(Long id) {
+        return promotionRepository.findById(id).orElse(null);
+    }
+
+    public Promotion save(Promotion promotion) {
+        validate(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        invalidatePrices();
+        System.out.println("🏷️ Promotion enregistrée: " + saved.getName() + " (" + saved.getScope() + ")");
+        return saved;
+    }
+
+    // Désactiver une promotion (on garde l'historique des campagnes)
+    public Promotion deactivate(Long id) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Promotion non trouvée"));
+        promotion.setActive(false);
+        Promotion saved = promotionRepository.save(promotion);
+        invalidatePrices();
+        System.out.println("🏷️ Promotion désactivée: " + saved.getName());
+        return saved;
+    }
+
+    // Prix effectif d'un produit ; null si le produit est inconnu
+    public PriceList.ProductPrice getPrice(Long productId) {
+        PriceList.ProductPrice price = getPriceList().get(productId);
+        if (price != null) {
+            return price;
+        }
+        // Produit créé depuis la dernière construction : prix catalogue sans remise
+        Product product = productService.getCatalog().getById(productId);
+        return product == null ? null
+                : new PriceList.ProductPrice(product.getId(), product.getPrice(), product.getPrice(), new ArrayList<>());
+    }
+
+    // Prix effectif d'un produit fraîchement lu en base (le prix de base peut être plus récent que la liste)
+    public PriceList.ProductPrice priceOf(Product product) {
+        return getPriceList().priceOf(product);
+    }
+
+    public BigDecimal getEffectivePrice(Long productId) {
+        PriceList.ProductPrice price = getPrice(productId);
+        return price == null ? null : price.getEffectivePrice();
+    }
+
+    // Lectures du catalogue : prix effectif de chaque produit, une recherche O(1) dans la liste de prix courante
+    public List<PricedProduct> withEffectivePrices(List<Product> products) {
+        PriceList prices = getPriceList();
+        List<PricedProduct> priced = new ArrayList<>(products.size());
+        for (Product product : products) {
+            priced.add(new PricedProduct(product, effectivePrice(prices, product.getId(), product.getPrice())));
+        }
+        return priced;
+    }
+
+    public PricedProduct withEffectivePrice(Product product) {
+        return new PricedProduct(product, effectivePrice(getPriceList(), product.getId(), product.getPrice()));
+    }
+
+    public List<ProductSummary> summariesWithEffectivePrices(List<ProductSummary> summaries) {
+        PriceList prices = getPriceList();
+        List<ProductSummary> priced = new ArrayList<>(summaries.size());
+        for (ProductSummary summary : summaries) {
+            priced.add(summary.withEffectivePrice(effectivePrice(prices, summary.getId(), summary.getPrice())));
+        }
+        return priced;
+    }
+
+    // Produit absent de la liste (créé depuis sa construction) : prix catalogue sans remise
+    private static BigDecimal effectivePrice(PriceList prices, Long productId, BigDecimal basePrice) {
+        PriceList.ProductPrice price = prices.get(productId);
+        return price == null ? basePrice : price.getEffectivePrice();
+    }
+
+    // Chiffrage d'un panier : une recherche par ligne dans la liste de prix
+    public Map<String, Object> quote(Map<Long, Integer> quantities) {
+        PriceList prices = getPriceList();
+        List<Map<String, Object>> lines = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            PriceList.ProductPrice price = prices.get(entry.getKey());
+            if (price == null) {
+                price = getPrice(entry.getKey());
+            }
+            if (price == null) {
+                throw new RuntimeException("Produit non trouvé: " + entry.getKey());
+            }
+            BigDecimal quantity = BigDecimal.valueOf(entry.getValue());
+            BigDecimal lineBase = price.getBasePrice().multiply(quantity);
+            BigDecimal lineTotal = price.getEffectivePrice().multiply(quantity);
+
+            Map<String, Object> line = new HashMap<>();
+            line.put("productId", entry.getKey());
+            line.put("quantity", entry.getValue());
+            line.put("unitPrice", price.getBasePrice());
+            line.put("effectiveUnitPrice", price.getEffectivePrice());
+            line.put("promotionIds", price.getPromotionIds());
+            line.put("lineTotal", lineTotal);
+            lines.add(line);
+
+            subtotal = subtotal.add(lineBase);
+            total = total.add(lineTotal);
+        }
+
+        Map<String, Object> quote = new HashMap<>();
+        quote.put("lines", lines);
+        quote.put("subtotal", subtotal);
+        quote.put("discount", subtotal.subtract(total));
+        quote.put("total", total);
+        quote.put("priceListBuiltAt", prices.getBuiltAt());
+        return quote;
+    }
+
+    // Liste de prix courante, reconstruite si elle est obsolète
+    public PriceList getPriceList() {
+        PriceList current = priceList.get();
+        CatalogSnapshot catalog = productService.getCatalog();
+        if (isFresh(current, catalog)) {
+            return current;
+        }
+
+        // Même principe que le catalogue : un seul thread reconstruit, les autres servent l'ancienne liste
+        boolean firstLoad = current == PriceList.empty();
+        if (firstLoad) {
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            return current;
+        }
+
+        try {
+            current = priceList.get();
+            if (!isFresh(current, catalog)) {
+                current = build(catalog);
+                priceList.set(current);
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Vérifie régulièrement les bornes de campagne pour que la bascule n'attende pas une lecture
+    @Scheduled(fixedDelayString = "${pricing.boundary-check-ms:30000}")
+    public void refreshAtCampaignBoundaries() {
+        PriceList current = priceList.get();
+        if (current != PriceList.empty() && current.isExpiredAt(LocalDateTime.now())) {
+            PriceList rebuilt = getPriceList();
+            System.out.println("🏷️ Liste de prix recalculée (" + rebuilt.size() + " produits)");
+        }
+    }
+
+    private boolean isFresh(PriceList current, CatalogSnapshot catalog) {
+        return current.getCatalogVersion() == catalog.getVersion()
+                && current.getPromotionsVersion() == promotionsVersion.get()
+                && !current.isExpiredAt(LocalDateTime.now());
+    }
+
+    private PriceList build(CatalogSnapshot catalog) {
+        long version = promotionsVersion.get();
+        LocalDateTime now = LocalDateTime.now();
+        List<Promotion> promotions = promotionRepository.findCurrentAndUpcoming(now);
+        return new PriceList(catalog.getVersion(), version, now, catalog.getProducts(), promotions);
+    }
+
+    private void validate(Promotion promotion) {
+        if (promotion.getScope() == null) {
+            throw new RuntimeException("Portée de la promotion obligatoire");
+        }
+        if (promotion.getStartsAt() == null || promotion.getEndsAt() == null
+                || !promotion.getEndsAt().isAfter(promotion.getStartsAt())) {
+            throw new RuntimeException("Période de promotion invalide");
+        }
+        BigDecimal discount = promotion.getDiscountPercentage();
+        if (discount == null || discount.signum() <= 0 || discount.compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new RuntimeException("La remise doit être comprise entre 0 et 100 %");
+        }
+        switch (promotion.getScope()) {
+            case PRODUCT:
+            case CATEGORY:
+                if (promotion.getTargetId() == null) {
+                    throw new RuntimeException("Cible de la promotion obligatoire");
+                }
+                break;
+            case BRAND:
+                if (promotion.getTargetBrand() == null || promotion.getTargetBrand().isBlank()) {
+                    throw new RuntimeException("Marque de la promotion obligatoire");
+                }
+                break;
+        }
+    }
+
+    // Marquer la liste de prix comme obsolète (après commit si une transaction est en cours)
+    private void invalidatePrices() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    promotionsVersion.incrementAndGet();
+                }
+            });
+        } else {
+            promotionsVersion.incrementAndGet();
+        }
+    }
+}
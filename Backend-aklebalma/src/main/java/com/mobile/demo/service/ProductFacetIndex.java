@@ -0,0 +1,289 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bitmaps par attribut sur les positions des produits de l'instantané.
+// Un filtre combiné est un simple ET de bitmaps ; les compteurs de facettes sont des cardinalités.
+public final class ProductFacetIndex {
+
+    // Tranches de prix (FCFA) : [borne basse, borne haute[
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            BigDecimal.ZERO,
+            BigDecimal.valueOf(100_000),
+            BigDecimal.valueOf(500_000),
+            BigDecimal.valueOf(1_000_000)
+    };
+    private static final String[] PRICE_BUCKETS = {
+            "0-100000", "100000-500000", "500000-1000000", "1000000+"
+    };
+
+    private final List<Product> products;
+    private final BitSet all;
+    // Remplacé par copie à chaque mouvement de stock : un filtre en cours garde une vue cohérente
+    private volatile BitSet inStock;
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byBrand = new HashMap<>();
+    private final Map<String, String> brandLabels = new HashMap<>();
+    private final BitSet[] byPriceBucket = new BitSet[PRICE_BUCKETS.length];
+
+    ProductFacetIndex(List<Product> products) {
+        this.products = products;
+        int size = products.size();
+        this.all = new BitSet(size);
+        this.all.set(0, size);
+        BitSet stocked = new BitSet(size);
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new BitSet(size);
+        }
+
+        for (int doc = 0; doc < size; doc++) {
+            Product product = products.get(doc);
+            if (isInStock(product)) {
+                stocked.set(doc);
+            }
+            if (product.getCategoryId() != null) {
+                byCategory.computeIfAbsent(product.getCategoryId(), id -> new BitSet(size)).set(doc);
+            }
+            if (product.getBrand() != null && !product.getBrand().isBlank()) {
+                String key = brandKey(product.getBrand());
+                byBrand.computeIfAbsent(key, k -> new BitSet(size)).set(doc);
+                brandLabels.putIfAbsent(key, product.getBrand().trim());
+            }
+            if (product.getPrice() != null) {
+                byPriceBucket[priceBucketOf(product.getPrice())].set(doc);
+            }
+        }
+        this.inStock = stocked;
+    }
+
+    // Seul attribut qui bouge sans nouvelle version du catalogue
+    synchronized void updateStock(int doc) {
+        boolean stocked = isInStock(products.get(doc));
+        if (inStock.get(doc) != stocked) {
+            BitSet next = (BitSet) inStock.clone();
+            next.set(doc, stocked);
+            inStock = next;
+        }
+    }
+
+    // Critères du filtre ; un champ null ou vide n'est pas filtré
+    public static class Filter {
+        private List<Long> categoryIds = Collections.emptyList();
+        private List<String> brands = Collections.emptyList();
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private boolean inStockOnly;
+
+        public List<Long> getCategoryIds() { return categoryIds; }
+        public void setCategoryIds(List<Long> categoryIds) {
+            this.categoryIds = categoryIds == null ? Collections.emptyList() : categoryIds;
+        }
+
+        public List<String> getBrands() { return brands; }
+        public void setBrands(List<String> brands) {
+            this.brands = brands == null ? Collections.emptyList() : brands;
+        }
+
+        public BigDecimal getMinPrice() { return minPrice; }
+        public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+        public BigDecimal getMaxPrice() { return maxPrice; }
+        public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+        public boolean isInStockOnly() { return inStockOnly; }
+        public void setInStockOnly(boolean inStockOnly) { this.inStockOnly = inStockOnly; }
+    }
+
+    public static class FilterResult {
+        private final List<ProductSummary> items;
+        private final int totalResults;
+        private final int page;
+        private final int size;
+        private final Map<String, Long> brandFacets;
+        private final Map<Long, Long> categoryFacets;
+        private final Map<String, Long> priceFacets;
+        private final long inStockCount;
+
+        FilterResult(List<ProductSummary> items, int totalResults, int page, int size,
+                     Map<String, Long> brandFacets, Map<Long, Long> categoryFacets,
+                     Map<String, Long> priceFacets, long inStockCount) {
+            this.items = items;
+            this.totalResults = totalResults;
+            this.page = page;
+            this.size = size;
+            this.brandFacets = brandFacets;
+            this.categoryFacets = categoryFacets;
+            this.priceFacets = priceFacets;
+            this.inStockCount = inStockCount;
+        }
+
+        // Même résultat avec d'autres résumés (prix effectifs appliqués par les lectures du catalogue)
+        public FilterResult withItems(List<ProductSummary> items) {
+            return new FilterResult(items, totalResults, page, size, brandFacets, categoryFacets,
+                    priceFacets, inStockCount);
+        }
+
+        public List<ProductSummary> getItems() { return items; }
+        public int getTotalResults() { return totalResults; }
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+        public Map<String, Long> getBrandFacets() { return brandFacets; }
+        public Map<Long, Long> getCategoryFacets() { return categoryFacets; }
+        public Map<String, Long> getPriceFacets() { return priceFacets; }
+        public long getInStockCount() { return inStockCount; }
+    }
+
+    FilterResult filter(Filter filter, int page, int size) {
+        BitSet categoryMask = categoryMask(filter);
+        BitSet brandMask = brandMask(filter);
+        BitSet priceMask = priceMask(filter);
+        BitSet stocked = inStock;
+        BitSet stockMask = filter.isInStockOnly() ? stocked : all;
+
+        BitSet matches = and(categoryMask, brandMask, priceMask, stockMask);
+
+        // Chaque facette est comptée avec tous les autres filtres, sauf le sien,
+        // pour que les puces de l'app affichent ce qu'on obtiendrait en changeant de choix
+        Map<String, Long> brandFacets = new LinkedHashMap<>();
+        BitSet withoutBrand = and(categoryMask, priceMask, stockMask);
+        byBrand.forEach((key, bits) -> {
+            long count = intersectionCount(withoutBrand, bits);
+            if (count > 0) {
+                brandFacets.put(brandLabels.get(key), count);
+            }
+        });
+
+        Map<Long, Long> categoryFacets = new LinkedHashMap<>();
+        BitSet withoutCategory = and(brandMask, priceMask, stockMask);
+        byCategory.forEach((categoryId, bits) -> {
+            long count = intersectionCount(withoutCategory, bits);
+            if (count > 0) {
+                categoryFacets.put(categoryId, count);
+            }
+        });
+
+        Map<String, Long> priceFacets = new LinkedHashMap<>();
+        BitSet withoutPrice = and(categoryMask, brandMask, stockMask);
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            priceFacets.put(PRICE_BUCKETS[i], intersectionCount(withoutPrice, byPriceBucket[i]));
+        }
+
+        long inStockCount = intersectionCount(and(categoryMask, brandMask, priceMask), stocked);
+
+        int total = matches.cardinality();
+        List<ProductSummary> items = new ArrayList<>(Math.min(size, total));
+        long skip = (long) page * size;
+        for (int doc = matches.nextSetBit(0); doc >= 0 && items.size() < size; doc = matches.nextSetBit(doc + 1)) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            items.add(new ProductSummary(products.get(doc)));
+        }
+
+        return new FilterResult(items, total, page, size, brandFacets, categoryFacets, priceFacets, inStockCount);
+    }
+
+    private BitSet categoryMask(Filter filter) {
+        if (filter.getCategoryIds().isEmpty()) {
+            return all;
+        }
+        BitSet mask = new BitSet(products.size());
+        for (Long categoryId : filter.getCategoryIds()) {
+            BitSet bits = byCategory.get(categoryId);
+            if (bits != null) {
+                mask.or(bits);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet brandMask(Filter filter) {
+        if (filter.getBrands().isEmpty()) {
+            return all;
+        }
+        BitSet mask = new BitSet(products.size());
+        for (String brand : filter.getBrands()) {
+            BitSet bits = byBrand.get(brandKey(brand));
+            if (bits != null) {
+                mask.or(bits);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet priceMask(Filter filter) {
+        if (filter.getMinPrice() == null && filter.getMaxPrice() == null) {
+            return all;
+        }
+        // Les tranches entièrement comprises dans l'intervalle sont prises telles quelles,
+        // seules les tranches aux bornes sont vérifiées produit par produit
+        BitSet mask = new BitSet(products.size());
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            BigDecimal low = PRICE_BOUNDS[i];
+            BigDecimal high = i + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[i + 1] : null;
+            boolean belowMin = filter.getMinPrice() != null && high != null && high.compareTo(filter.getMinPrice()) <= 0;
+            boolean aboveMax = filter.getMaxPrice() != null && low.compareTo(filter.getMaxPrice()) > 0;
+            if (belowMin || aboveMax) {
+                continue;
+            }
+            boolean fullyInside = (filter.getMinPrice() == null || low.compareTo(filter.getMinPrice()) >= 0)
+                    && (filter.getMaxPrice() == null || (high != null && high.compareTo(filter.getMaxPrice()) <= 0));
+            if (fullyInside) {
+                mask.or(byPriceBucket[i]);
+            } else {
+                BitSet bucket = byPriceBucket[i];
+                for (int doc = bucket.nextSetBit(0); doc >= 0; doc = bucket.nextSetBit(doc + 1)) {
+                    BigDecimal price = products.get(doc).getPrice();
+                    if ((filter.getMinPrice() == null || price.compareTo(filter.getMinPrice()) >= 0)
+                            && (filter.getMaxPrice() == null || price.compareTo(filter.getMaxPrice()) <= 0)) {
+                        mask.set(doc);
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static BitSet and(BitSet... masks) {
+        BitSet result = (BitSet) masks[0].clone();
+        for (int i = 1; i < masks.length; i++) {
+            result.and(masks[i]);
+        }
+        return result;
+    }
+
+    private static long intersectionCount(BitSet left, BitSet right) {
+        BitSet copy = (BitSet) left.clone();
+        copy.and(right);
+        return copy.cardinality();
+    }
+
+    private static boolean isInStock(Product product) {
+        return Boolean.TRUE.equals(product.getIsAvailable()) && product.getStockQuantity() != null
+                && product.getStockQuantity() > 0;
+    }
+
+    private static int priceBucketOf(BigDecimal price) {
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price.compareTo(PRICE_BOUNDS[i]) >= 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String brandKey(String brand) {
+        return brand.trim().toLowerCase(Locale.ROOT);
+    }
+}
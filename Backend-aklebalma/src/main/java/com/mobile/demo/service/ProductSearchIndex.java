@@ -0,0 +1,205 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Index inversé en mémoire sur name, brand, model et description.
+// Construit une fois par instantané du catalogue, il n'est jamais modifié ensuite.
+public final class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "de", "du", "des", "la", "le", "les", "l", "d", "et", "en", "un", "une",
+            "a", "au", "aux", "avec", "pour", "sur", "the", "and", "with", "for");
+
+    // Poids de chaque champ dans le score
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.5f;
+    private static final float MODEL_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Un terme trouvé seulement par préfixe compte moins qu'un terme exact
+    private static final float PREFIX_FACTOR = 0.7f;
+
+    // Nombre maximal de termes développés pour le dernier mot (saisie en cours).
+    // Au-delà (préfixe d'une ou deux lettres), les termes suivants sont ignorés et le résultat
+    // est marqué tronqué : le total est alors un minimum, pas un compte exact.
+    private static final int MAX_PREFIX_EXPANSIONS = 512;
+
+    private final List<Product> products;
+    private final NavigableMap<String, Postings> terms;
+
+    ProductSearchIndex(List<Product> products) {
+        this.products = products;
+
+        Map<String, Map<Integer, Float>> builder = new HashMap<>();
+        for (int doc = 0; doc < products.size(); doc++) {
+            Product product = products.get(doc);
+            addField(builder, doc, product.getName(), NAME_WEIGHT);
+            addField(builder, doc, product.getBrand(), BRAND_WEIGHT);
+            addField(builder, doc, product.getModel(), MODEL_WEIGHT);
+            addField(builder, doc, product.getDescription(), DESCRIPTION_WEIGHT);
+        }
+
+        TreeMap<String, Postings> frozen = new TreeMap<>();
+        builder.forEach((term, weights) -> frozen.put(term, Postings.of(weights)));
+        this.terms = Collections.unmodifiableNavigableMap(frozen);
+    }
+
+    // Résultat paginé d'une recherche
+    public static final class SearchResult {
+        private final List<Product> items;
+        private final int totalResults;
+        private final boolean truncated;
+
+        SearchResult(List<Product> items, int totalResults, boolean truncated) {
+            this.items = items;
+            this.totalResults = totalResults;
+            this.truncated = truncated;
+        }
+
+        public List<Product> getItems() { return items; }
+        public int getTotalResults() { return totalResults; }
+        // Préfixe trop court : tous les termes n'ont pas été développés, totalResults est un minimum
+        public boolean isTruncated() { return truncated; }
+    }
+
+    // Recherche : tous les mots doivent correspondre, le dernier peut être un préfixe
+    SearchResult search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || size <= 0 || page < 0) {
+            return new SearchResult(Collections.emptyList(), 0, false);
+        }
+
+        List<Map<Integer, Float>> perToken = new ArrayList<>(tokens.size());
+        boolean[] truncated = {false};
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean lastToken = i == tokens.size() - 1;
+            Map<Integer, Float> matches = lastToken ? matchPrefix(tokens.get(i), truncated) : matchExact(tokens.get(i));
+            if (matches.isEmpty()) {
+                return new SearchResult(Collections.emptyList(), 0, false);
+            }
+            perToken.add(matches);
+        }
+
+        // Intersection en partant de la liste la plus courte
+        perToken.sort(Comparator.comparingInt(Map::size));
+        Map<Integer, Float> scores = new HashMap<>(perToken.get(0));
+        for (int i = 1; i < perToken.size() && !scores.isEmpty(); i++) {
+            Map<Integer, Float> other = perToken.get(i);
+            scores.entrySet().removeIf(entry -> !other.containsKey(entry.getKey()));
+            scores.replaceAll((doc, score) -> score + other.get(doc));
+        }
+
+        Integer[] ranked = scores.keySet().toArray(new Integer[0]);
+        Arrays.sort(ranked, Comparator
+                .comparing((Integer doc) -> scores.get(doc), Comparator.reverseOrder())
+                .thenComparing(doc -> !Boolean.TRUE.equals(products.get(doc).getIsAvailable()))
+                .thenComparing(doc -> doc));
+
+        int from = (int) Math.min((long) page * size, ranked.length);
+        int to = Math.min(from + size, ranked.length);
+        List<Product> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(products.get(ranked[i]));
+        }
+        return new SearchResult(items, ranked.length, truncated[0]);
+    }
+
+    private Map<Integer, Float> matchExact(String token) {
+        Postings postings = terms.get(token);
+        return postings == null ? Collections.emptyMap() : postings.toMap(1.0f);
+    }
+
+    private Map<Integer, Float> matchPrefix(String prefix, boolean[] truncated) {
+        Map<Integer, Float> matches = new HashMap<>();
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry : terms.tailMap(prefix, true).entrySet()) {
+            String term = entry.getKey();
+            if (!term.startsWith(prefix)) {
+                break;
+            }
+            if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                truncated[0] = true;
+                break;
+            }
+            float factor = term.length() == prefix.length() ? 1.0f : PREFIX_FACTOR;
+            entry.getValue().toMap(factor).forEach((doc, score) -> matches.merge(doc, score, Math::max));
+        }
+        return matches;
+    }
+
+    private static void addField(Map<String, Map<Integer, Float>> builder, int doc, String value, float weight) {
+        for (String token : new HashSet<>(tokenize(value))) {
+            builder.computeIfAbsent(token, t -> new HashMap<>()).merge(doc, weight, Float::sum);
+        }
+    }
+
+    // Minuscules, accents retirés (é -> e, ç -> c), ligatures éclatées
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = text.replace("œ", "oe").replace("Œ", "OE").replace("æ", "ae").replace("Æ", "AE");
+        folded = Normalizer.normalize(folded, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Liste de documents triée avec le poids cumulé du terme pour chacun
+    private static final class Postings {
+        private final int[] docs;
+        private final float[] weights;
+
+        private Postings(int[] docs, float[] weights) {
+            this.docs = docs;
+            this.weights = weights;
+        }
+
+        static Postings of(Map<Integer, Float> weightsByDoc) {
+            int[] docs = weightsByDoc.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            float[] weights = new float[docs.length];
+            for (int i = 0; i < docs.length; i++) {
+                weights[i] = weightsByDoc.get(docs[i]);
+            }
+            return new Postings(docs, weights);
+        }
+
+        Map<Integer, Float> toMap(float factor) {
+            Map<Integer, Float> map = new HashMap<>(docs.length * 2);
+            for (int i = 0; i < docs.length; i++) {
+                map.put(docs[i], weights[i] * factor);
+            }
+            return map;
+        }
+    }
+}
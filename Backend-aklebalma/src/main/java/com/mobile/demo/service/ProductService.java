@@ -1,11 +1,26 @@
 package com.mobile.demo.service;
 
 import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.KeysetPage;
 import com.mobile.demo.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class ProductService {
@@ -13,8 +28,37 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Lazy
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    // Version du catalogue : incrémentée à chaque écriture sur les produits (hors mouvements de stock)
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    // Dernier instantané publié, remplacé atomiquement
+    private final AtomicReference<CatalogSnapshot> catalogSnapshot = new AtomicReference<>(CatalogSnapshot.empty());
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Produits dont le stock a bougé par une requête SQL directe : relus et corrigés sur place dans l'instantané
+    private final Set<Long> staleStock = ConcurrentHashMap.newKeySet();
+
+    // Trie d'autocomplétion, complété à chaque save et reconstruit seulement si nécessaire
+    private final AtomicReference<ProductSuggestionIndex> suggestionIndex = new AtomicReference<>();
+    private final AtomicBoolean suggestionsStale = new AtomicBoolean(true);
+    private final ReentrantLock suggestionRebuildLock = new ReentrantLock();
+
     public Product save(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        invalidateCatalog();
+        afterCommit(() -> {
+            indexSuggestion(saved);
+            categoryService.productSaved(saved);
+        });
+        return saved;
     }
 
     public Product findById(Long id) {
@@ -22,12 +66,60 @@ public class ProductService {
         return product.orElse(null);
     }
 
+    // Disponibilité de plusieurs produits en une seule requête (WHERE id IN (...)).
+    // Le résultat suit l'ordre des lignes demandées ; un produit inconnu est signalé sans erreur.
+    public List<Map<String, Object>> checkStock(List<Long> productIds, List<Integer> quantities) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(new HashSet<>(productIds))) {
+            products.put(product.getId(), product);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            Integer quantity = quantities.get(i);
+            Product product = products.get(productId);
+
+            Map<String, Object> stockInfo = new HashMap<>();
+            stockInfo.put("productId", productId);
+            stockInfo.put("requestedQuantity", quantity);
+            if (product == null) {
+                stockInfo.put("found", false);
+                stockInfo.put("available", false);
+                results.add(stockInfo);
+                continue;
+            }
+
+            // En vente flash, la colonne n'est reportée que périodiquement : on lit les compteurs
+            Long flashStock = flashSaleService.getAvailable(productId);
+            long currentStock = flashStock != null ? flashStock : product.getStockQuantity();
+            stockInfo.put("found", true);
+            stockInfo.put("productName", product.getName());
+            stockInfo.put("currentStock", currentStock);
+            stockInfo.put("available", flashStock != null
+                    ? quantity != null && flashStock >= quantity
+                    : product.checkAvailability(quantity));
+            results.add(stockInfo);
+        }
+        return results;
+    }
+
     public List<Product> findAll() {
-        return productRepository.findAll();
+        return getCatalog().getProducts();
+    }
+
+    // Liste paginée par curseur, en projection légère
+    public KeysetPage<ProductSummary> listProducts(String sort, String cursor, int limit) {
+        return getCatalog().list(sort, cursor, limit);
+    }
+
+    // Filtrage à facettes servi par les bitmaps de l'instantané
+    public ProductFacetIndex.FilterResult filterProducts(ProductFacetIndex.Filter filter, int page, int size) {
+        return getCatalog().filter(filter, page, size);
     }
 
     public List<Product> findByCategoryId(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+        return getCatalog().getByCategory(categoryId);
     }
 
     public List<Product> findByIsAvailableTrue() {
@@ -35,7 +127,12 @@ public class ProductService {
     }
 
     public List<Product> searchByName(String searchTerm) {
-        return productRepository.findByNameContainingIgnoreCase(searchTerm);
+        return search(searchTerm, 0, Integer.MAX_VALUE).getItems();
+    }
+
+    // Recherche plein texte (nom, marque, modèle, description), classée par pertinence
+    public ProductSearchIndex.SearchResult search(String query, int page, int size) {
+        return getCatalog().search(query, page, size);
     }
 
     public List<Product> findByBrand(String brand) {
@@ -48,14 +145,148 @@ public class ProductService {
 
     public void deleteById(Long id) {
         productRepository.deleteById(id);
+        invalidateCatalog();
+        afterCommit(() -> {
+            suggestionsStale.set(true);
+            categoryService.productDeleted(id);
+        });
+    }
+
+    // Décrément atomique : false si le produit n'existe pas ou si le stock est insuffisant
+    public boolean updateStock(Long productId, Integer quantity) {
+        // En vente flash, le stock est servi par les compteurs et reporté en base périodiquement
+        if (flashSaleService.isActive(productId)) {
+            return flashSaleService.claim(productId, quantity);
+        }
+        boolean applied = productRepository.decrementStock(productId, quantity) > 0;
+        if (applied) {
+            invalidateStock(List.of(productId));
+            return true;
+        }
+        // Refus possible parce qu'une autre instance vient d'activer la vente flash
+        return flashSaleService.refreshFlag(productId) && flashSaleService.claim(productId, quantity);
+    }
+
+    // Instantané courant du catalogue, reconstruit si une écriture l'a rendu obsolète
+    public CatalogSnapshot getCatalog() {
+        CatalogSnapshot current = catalogSnapshot.get();
+        if (current.getVersion() == catalogVersion.get()) {
+            return staleStock.isEmpty() ? current : refreshStock(current);
+        }
+
+        // Un seul thread reconstruit ; les autres continuent de servir l'ancien instantané
+        // (sauf au tout premier chargement où il n'y a encore rien à servir)
+        boolean firstLoad = current == CatalogSnapshot.empty();
+        if (firstLoad) {
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            return current;
+        }
+
+        try {
+            current = catalogSnapshot.get();
+            long version = catalogVersion.get();
+            if (current.getVersion() != version) {
+                // La relecture complète couvre aussi les stocks en attente
+                staleStock.clear();
+                current = new CatalogSnapshot(version, productRepository.findAll());
+                catalogSnapshot.set(current);
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Relit seulement le stock des produits touchés (une requête IN), sans reconstruire l'instantané.
+    // Sous le verrou de reconstruction : les relectures sont appliquées dans l'ordre où elles ont été faites
+    private CatalogSnapshot refreshStock(CatalogSnapshot current) {
+        if (!rebuildLock.tryLock()) {
+            return current;
+        }
+        try {
+            current = catalogSnapshot.get();
+            List<Long> ids = new ArrayList<>(staleStock);
+            staleStock.removeAll(ids);
+            if (!ids.isEmpty()) {
+                for (Object[] row : productRepository.findCategoryStates(ids)) {
+                    current.updateStock((Long) row[0], (Integer) row[2], (Boolean) row[3]);
+                }
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Suggestions d'autocomplétion (noms et marques) pour un préfixe
+    public List<ProductSuggestionIndex.Suggestion> suggest(String prefix, int limit) {
+        return getSuggestionIndex().suggest(prefix, limit);
+    }
+
+    private ProductSuggestionIndex getSuggestionIndex() {
+        ProductSuggestionIndex current = suggestionIndex.get();
+        if (current != null && !suggestionsStale.get()) {
+            return current;
+        }
+        if (current != null && !suggestionRebuildLock.tryLock()) {
+            return current;
+        }
+        if (current == null) {
+            suggestionRebuildLock.lock();
+        }
+
+        try {
+            current = suggestionIndex.get();
+            if (current == null || suggestionsStale.get()) {
+                suggestionsStale.set(false);
+                CatalogSnapshot catalog = getCatalog();
+                current = ProductSuggestionIndex.build(catalog.getProducts());
+                suggestionIndex.set(current);
+                // L'instantané utilisé était peut-être déjà en retard sur une écriture
+                if (catalog.getVersion() != catalogVersion.get()) {
+                    suggestionsStale.set(true);
+                }
+            }
+            return current;
+        } finally {
+            suggestionRebuildLock.unlock();
+        }
+    }
+
+    private void indexSuggestion(Product product) {
+        ProductSuggestionIndex current = suggestionIndex.get();
+        if (current != null && !current.add(product)) {
+            // Nom ou marque modifiés : les anciennes entrées doivent disparaître
+            suggestionsStale.set(true);
+        }
+    }
+
+    // Marquer le catalogue comme obsolète (après commit si une transaction est en cours)
+    public void invalidateCatalog() {
+        afterCommit(catalogVersion::incrementAndGet);
+    }
+
+    // Stock modifié par une requête SQL directe : stock de l'instantané et compteurs de catégories à rafraîchir,
+    // sans nouvelle version (réservations et ventes ne doivent pas reconstruire index, facettes et prix)
+    public void invalidateStock(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        afterCommit(() -> {
+            staleStock.addAll(ids);
+            categoryService.stockChanged(ids);
+        });
     }
 
-    public Product updateStock(Long productId, Integer quantity) {
-        Product product = findById(productId);
-        if (product != null) {
-            product.updateStock(quantity);
-            return save(product);
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        return null;
     }
 }
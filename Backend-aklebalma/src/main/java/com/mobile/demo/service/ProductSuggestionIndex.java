@@ -0,0 +1,196 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trie de préfixes sur Product.name et Product.brand pour l'autocomplétion.
+// Chaque nœud garde ses meilleures suggestions : une requête ne fait que descendre le préfixe.
+public final class ProductSuggestionIndex {
+
+    private static final int TOP_K = 10;
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparing((Suggestion s) -> !"BRAND".equals(s.getType()))
+            .thenComparing(Suggestion::getWeight, Comparator.reverseOrder())
+            .thenComparingInt(s -> s.getText().length())
+            .thenComparing(Suggestion::getText);
+
+    private final Node root = new Node();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Nom et marque indexés pour chaque produit, pour détecter un renommage
+    private final Map<Long, String> indexedProducts = new HashMap<>();
+    private final Map<String, Integer> brandCounts = new HashMap<>();
+
+    private ProductSuggestionIndex() {
+    }
+
+    static ProductSuggestionIndex build(Collection<Product> products) {
+        ProductSuggestionIndex index = new ProductSuggestionIndex();
+        for (Product product : products) {
+            index.add(product);
+        }
+        return index;
+    }
+
+    public static final class Suggestion {
+        private final String text;
+        private final String type;
+        private final int weight;
+
+        Suggestion(String text, String type, int weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        public String getText() { return text; }
+        public String getType() { return type; }
+        public int getWeight() { return weight; }
+    }
+
+    // Meilleures suggestions pour un préfixe saisi
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalizeKey(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && result.size() < limit; i++) {
+                result.add(node.top[i].suggestion);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ajout incrémental ; renvoie false si le produit a changé de nom ou de marque
+    // (il faut alors reconstruire pour retirer les anciennes entrées)
+    boolean add(Product product) {
+        String name = normalizeKey(product.getName());
+        String brand = normalizeKey(product.getBrand());
+        String signature = name + "|" + brand;
+
+        lock.writeLock().lock();
+        try {
+            String previous = product.getId() != null ? indexedProducts.get(product.getId()) : null;
+            if (previous != null) {
+                return previous.equals(signature);
+            }
+            if (product.getId() != null) {
+                indexedProducts.put(product.getId(), signature);
+            }
+
+            if (!name.isEmpty()) {
+                Entry entry = new Entry("P:" + name,
+                        new Suggestion(product.getName().trim(), "PRODUCT",
+                                Boolean.TRUE.equals(product.getIsAvailable()) ? 2 : 1));
+                // Le nom complet et chaque mot du nom servent de point d'entrée
+                insert(name, entry);
+                for (int i = 1; i < name.length(); i++) {
+                    if (name.charAt(i - 1) == ' ') {
+                        insert(name.substring(i), entry);
+                    }
+                }
+            }
+
+            if (!brand.isEmpty()) {
+                int count = brandCounts.merge(brand, 1, Integer::sum);
+                insert(brand, new Entry("B:" + brand, new Suggestion(product.getBrand().trim(), "BRAND", count)));
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            node.offer(entry);
+        }
+    }
+
+    // Même normalisation que la recherche, espaces multiples réduits
+    static String normalizeKey(String text) {
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final Suggestion suggestion;
+
+        Entry(String key, Suggestion suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+    }
+
+    private static final class Node {
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] labels = new char[0];
+        private Node[] children = NO_CHILDREN;
+        private Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+
+        // Insère ou remplace l'entrée puis garde les TOP_K meilleures
+        void offer(Entry entry) {
+            List<Entry> entries = new ArrayList<>(top.length + 1);
+            for (Entry current : top) {
+                if (!current.key.equals(entry.key)) {
+                    entries.add(current);
+                }
+            }
+            entries.add(entry);
+            entries.sort((a, b) -> RANKING.compare(a.suggestion, b.suggestion));
+            if (entries.size() > TOP_K) {
+                entries = entries.subList(0, TOP_K);
+            }
+            top = entries.toArray(NO_ENTRIES);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Projection légère d'un produit pour les listes (sans la description)
+public class ProductSummary {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final BigDecimal effectivePrice;
+    private final Integer stockQuantity;
+    private final String imageUrl;
+    private final String brand;
+    private final String model;
+    private final Boolean isAvailable;
+    private final LocalDateTime dateAdded;
+    private final Long categoryId;
+
+    public ProductSummary(Product product) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.price = product.getPrice();
+        this.effectivePrice = product.getPrice();
+        this.stockQuantity = product.getStockQuantity();
+        this.imageUrl = product.getImageUrl();
+        this.brand = product.getBrand();
+        this.model = product.getModel();
+        this.isAvailable = product.getIsAvailable();
+        this.dateAdded = product.getDateAdded();
+        this.categoryId = product.getCategoryId();
+    }
+
+    private ProductSummary(ProductSummary source, BigDecimal effectivePrice) {
+        this.id = source.id;
+        this.name = source.name;
+        this.price = source.price;
+        this.effectivePrice = effectivePrice;
+        this.stockQuantity = source.stockQuantity;
+        this.imageUrl = source.imageUrl;
+        this.brand = source.brand;
+        this.model = source.model;
+        this.isAvailable = source.isAvailable;
+        this.dateAdded = source.dateAdded;
+        this.categoryId = source.categoryId;
+    }
+
+    // Copie avec le prix effectif de la liste de prix (celui de l'instantané est le prix catalogue)
+    public ProductSummary withEffectivePrice(BigDecimal effectivePrice) {
+        return new ProductSummary(this, effectivePrice);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public BigDecimal getPrice() { return price; }
+    public BigDecimal getEffectivePrice() { return effectivePrice; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public String getImageUrl() { return imageUrl; }
+    public String getBrand() { return brand; }
+    public String getModel() { return model; }
+    public Boolean getIsAvailable() { return isAvailable; }
+    public LocalDateTime getDateAdded() { return dateAdded; }
+    public Long getCategoryId() { return categoryId; }
+}
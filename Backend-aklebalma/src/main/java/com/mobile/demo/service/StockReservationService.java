@@ -0,0 +1,239 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.StockReservation;
+import com.mobile.demo.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Réservation de stock : décrément conditionnel en base, réservations à durée de vie limitée,
+// remise en stock à l'annulation ou à l'expiration
+@Service
+public class StockReservationService {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, is_available = (stock_quantity - ?) > 0 " +
+            "WHERE id = ? AND stock_quantity >= ? AND flash_sale IS NOT TRUE";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, is_available = true WHERE id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_reservations (reference, product_id, quantity, user_id, status, created_at, expires_at) " +
+            "VALUES (?, ?, ?, ?, 'HELD', ?, ?)";
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Value("${stock.reservation.ttl-minutes:15}")
+    private long defaultTtlMinutes;
+
+    // Durée maximale demandable par le client : le stock ne peut pas être bloqué indéfiniment
+    @Value("${stock.reservation.max-ttl-minutes:60}")
+    private long maxTtlMinutes;
+
+    // Réserver un panier complet avec la durée de vie par défaut
+    @Transactional
+    public String reserve(Long userId, Map<Long, Integer> quantities) {
+        return reserve(userId, quantities, Duration.ofMinutes(defaultTtlMinutes));
+    }
+
+    // Réserver un panier complet : tout ou rien, renvoie la référence de la réservation
+    @Transactional
+    public String reserve(Long userId, Map<Long, Integer> quantities, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("La durée de réservation doit être positive");
+        }
+        Duration maxTtl = Duration.ofMinutes(maxTtlMinutes);
+        if (ttl.compareTo(maxTtl) > 0) {
+            ttl = maxTtl;
+        }
+        SortedMap<Long, Integer> lines = normalize(quantities);
+        decrementAll(lines);
+
+        String reference = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(ttl));
+
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) ->
+                rows.add(new Object[]{reference, productId, quantity, userId, createdAt, expiresAt}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        productService.invalidateStock(lines.keySet());
+        System.out.println("📦 Réservation " + reference + " : " + lines.size() + " produit(s)");
+        return reference;
+    }
+
+    // Lignes d'une réservation
+    @Transactional(readOnly = true)
+    public List<StockReservation> findByReference(String reference) {
+        return stockReservationRepository.findByReference(reference);
+    }
+
+    // Rattacher une réservation à la commande créée : elle n'expirera plus
+    @Transactional
+    public void commit(String reference, Long orderId) {
+        int updated = jdbcTemplate.update(
+                "UPDATE stock_reservations SET status = 'COMMITTED', order_id = ? WHERE reference = ? AND status = 'HELD'",
+                orderId, reference);
+        if (updated == 0) {
+            throw new RuntimeException("Réservation expirée ou introuvable: " + reference);
+        }
+    }
+
+    // Libérer une réservation non utilisée
+    @Transactional
+    public int release(String reference) {
+        List<long[]> released = jdbcTemplate.query(
+                "UPDATE stock_reservations SET status = 'RELEASED', released_at = ? " +
+                "WHERE reference = ? AND status = 'HELD' RETURNING product_id, quantity",
+                (rs, rowNum) -> new long[]{rs.getLong("product_id"), rs.getLong("quantity")},
+                Timestamp.valueOf(LocalDateTime.now()), reference);
+        restock(released);
+        return released.size();
+    }
+
+    // Remettre en stock tout ce qui était réservé pour une commande annulée
+    @Transactional
+    public int releaseForOrder(Long orderId) {
+        List<long[]> released = jdbcTemplate.query(
+                "UPDATE stock_reservations SET status = 'RELEASED', released_at = ? " +
+                "WHERE order_id = ? AND status IN ('HELD', 'COMMITTED') RETURNING product_id, quantity",
+                (rs, rowNum) -> new long[]{rs.getLong("product_id"), rs.getLong("quantity")},
+                Timestamp.valueOf(LocalDateTime.now()), orderId);
+        restock(released);
+        return released.size();
+    }
+
+    // Tâche de fond : libère les réservations expirées par lots
+    @Scheduled(fixedDelayString = "${stock.reservation.expiry-check-ms:60000}")
+    public void expireReservations() {
+        int total = 0;
+        int expired;
+        do {
+            Integer count = transactionTemplate.execute(status -> expireBatch());
+            expired = count == null ? 0 : count;
+            total += expired;
+        } while (expired == EXPIRY_BATCH_SIZE);
+
+        if (total > 0) {
+            System.out.println("⏱️ " + total + " réservation(s) expirée(s) remises en stock");
+        }
+    }
+
+    private int expireBatch() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<long[]> expired = jdbcTemplate.query(
+                "UPDATE stock_reservations SET status = 'EXPIRED', released_at = ? WHERE id IN (" +
+                "SELECT id FROM stock_reservations WHERE status = 'HELD' AND expires_at < ? " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING product_id, quantity",
+                (rs, rowNum) -> new long[]{rs.getLong("product_id"), rs.getLong("quantity")},
+                now, now, EXPIRY_BATCH_SIZE);
+        restock(expired);
+        return expired.size();
+    }
+
+    // Un seul lot JDBC, lignes triées par id produit pour verrouiller toujours dans le même ordre.
+    // Les produits en vente flash sont pris sur leurs compteurs, sans toucher la ligne products.
+    private void decrementAll(SortedMap<Long, Integer> lines) {
+        SortedMap<Long, Integer> dbLines = new TreeMap<>();
+        lines.forEach((productId, quantity) -> {
+            if (flashSaleService.isActive(productId)) {
+                claimFlashSale(productId, quantity);
+            } else {
+                dbLines.put(productId, quantity);
+            }
+        });
+        if (dbLines.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(dbLines.size());
+        dbLines.forEach((productId, quantity) -> args.add(new Object[]{quantity, quantity, productId, quantity}));
+
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        int i = 0;
+        for (Map.Entry<Long, Integer> line : dbLines.entrySet()) {
+            if (counts[i++] == 0) {
+                // Vente flash activée entre-temps (ici ou sur une autre instance) : le stock est servi par les compteurs
+                if (flashSaleService.isActive(line.getKey()) || flashSaleService.refreshFlag(line.getKey())) {
+                    claimFlashSale(line.getKey(), line.getValue());
+                    continue;
+                }
+                // L'exception annule aussi les décréments déjà appliqués du lot
+                throw new RuntimeException("Stock insuffisant pour le produit " + line.getKey());
+            }
+        }
+    }
+
+    private void claimFlashSale(Long productId, int quantity) {
+        if (!flashSaleService.claim(productId, quantity)) {
+            throw new RuntimeException("Stock insuffisant pour le produit " + productId);
+        }
+    }
+
+    private void restock(List<long[]> releasedLines) {
+        if (releasedLines.isEmpty()) {
+            return;
+        }
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        for (long[] line : releasedLines) {
+            lines.merge(line[0], (int) line[1], Integer::sum);
+        }
+
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> {
+            if (!flashSaleService.release(productId, quantity)) {
+                args.add(new Object[]{quantity, productId});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+        }
+        productService.invalidateStock(lines.keySet());
+    }
+
+    private static SortedMap<Long, Integer> normalize(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new RuntimeException("Aucun produit à réserver");
+        }
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new RuntimeException("Ligne de réservation invalide: " + productId + " x " + quantity);
+            }
+            lines.merge(productId, quantity, Integer::sum);
+        });
+        return lines;
+    }
+}
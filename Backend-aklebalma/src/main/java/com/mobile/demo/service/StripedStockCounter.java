@@ -0,0 +1,118 @@
+package com.mobile.demo.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Compteur de stock réparti sur plusieurs cellules indépendantes.
+// Chaque achat prend ses unités par CAS sur une cellule : aucune cellule ne passe sous zéro,
+// donc la somme ne peut jamais dépasser le stock chargé au départ.
+public final class StripedStockCounter {
+
+    // Une cellule utile toutes les 16 longs (128 octets) pour éviter le faux partage
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedStockCounter(long initialStock, int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Nombre de cellules invalide: " + stripes);
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+
+        long share = initialStock / stripes;
+        long remainder = initialStock % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    // Prendre des unités ; false si le stock total est insuffisant
+    public boolean tryClaim(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantité invalide: " + quantity);
+        }
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+
+        // Cas courant : une seule cellule suffit
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake((start + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+
+        // Fin de stock : on rassemble des unités de plusieurs cellules, rendues si cela ne suffit pas
+        long[] taken = new long[stripes];
+        long remaining = quantity;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int stripe = (start + i) % stripes;
+            long got = takeUpTo(stripe, remaining);
+            taken[stripe] = got;
+            remaining -= got;
+        }
+        if (remaining > 0) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    cells.addAndGet(stripe * PADDING, taken[stripe]);
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Rendre des unités (réservation libérée, commande annulée)
+    public void release(int quantity) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        cells.addAndGet(stripe * PADDING, quantity);
+    }
+
+    // Somme des cellules ; valeur approchée si des achats sont en cours
+    public long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    // Vider toutes les cellules (fin de vente) ; renvoie les unités restantes
+    public long drain() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    private boolean tryTake(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        long current;
+        do {
+            current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    private long takeUpTo(int stripe, long wanted) {
+        int index = stripe * PADDING;
+        long current;
+        long got;
+        do {
+            current = cells.get(index);
+            got = Math.min(current, wanted);
+            if (got <= 0) {
+                return 0;
+            }
+        } while (!cells.compareAndSet(index, current, current - got));
+        return got;
+    }
+}
@@ -0,0 +1,16 @@
+-- Index qui ne s'expriment pas avec @Index (opclass, index partiels).
+-- Exécuté à chaque démarrage après la mise à jour du schéma par Hibernate : tout doit être idempotent.
+
+-- Recherche admin par préfixe de numéro de commande (LIKE 'AKL-0%')
+CREATE INDEX IF NOT EXISTS idx_orders_number_prefix ON orders (order_number text_pattern_ops);
+
+-- Commandes en cours : petite fraction de la table, consultée en permanence par l'admin
+CREATE INDEX IF NOT EXISTS idx_orders_open_date ON orders (order_date, id)
+    WHERE status IN ('PENDING', 'CONFIRMED', 'SHIPPED');
+
+-- Commandes non soldées par statut de paiement (les commandes payées sont exclues de l'index)
+CREATE INDEX IF NOT EXISTS idx_orders_unpaid_date ON orders (payment_status, order_date, id)
+    WHERE payment_status <> 'COMPLETED';
+
+-- Filtre par fourchette de montant sans autre critère sélectif
+CREATE INDEX IF NOT EXISTS idx_orders_amount_date ON orders (total_amount, order_date);
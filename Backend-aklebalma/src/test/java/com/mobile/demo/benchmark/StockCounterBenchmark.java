@@ -0,0 +1,90 @@
+package com.mobile.demo.benchmark;
+
+import com.mobile.demo.service.StripedStockCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Modèle CPU seulement, sans base de données : achats concurrents sur un même produit, verrou unique
+// contre compteur réparti des ventes flash.
+// rowLockDecrement n'exécute pas ProductRepository.decrementStock : c'est un ReentrantLock autour d'un long,
+// tenu pendant un temps simulé (rowLockHoldTokens) à la place de l'aller-retour SQL sous verrou de ligne.
+// stripedClaim n'appelle que StripedStockCounter.tryClaim : l'INSERT dans flash_sale_claims que fait
+// FlashSaleService.claim pour chaque achat n'est pas mesuré.
+// Les chiffres comparent donc la contention des deux approches, pas le débit réel des deux chemins.
+// Lancement : mvn test-compile puis exécuter main avec le classpath de test.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockCounterBenchmark {
+
+    // Stock assez grand pour ne jamais s'épuiser pendant une itération
+    private static final long INITIAL_STOCK = Long.MAX_VALUE / 4;
+
+    // Travail CPU fait en tenant le verrou, à la place de l'aller-retour SQL (simulé, pas mesuré)
+    @Param({"0", "50"})
+    public int rowLockHoldTokens;
+
+    @Param({"16"})
+    public int stripes;
+
+    private final ReentrantLock rowLock = new ReentrantLock();
+    private long lockedStock;
+    private StripedStockCounter counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        lockedStock = INITIAL_STOCK;
+        counter = new StripedStockCounter(INITIAL_STOCK, stripes);
+    }
+
+    @Benchmark
+    public boolean rowLockDecrement() {
+        rowLock.lock();
+        try {
+            Blackhole.consumeCPU(rowLockHoldTokens);
+            if (lockedStock < 1) {
+                return false;
+            }
+            lockedStock--;
+            return true;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    @Benchmark
+    public boolean stripedClaim() {
+        return counter.tryClaim(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(StockCounterBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
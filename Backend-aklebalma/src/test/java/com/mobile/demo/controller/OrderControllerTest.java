@@ -0,0 +1,91 @@
+package com.mobile.demo.controller;
+
+import com.mobile.demo.repository.InvalidPageRequestException;
+import com.mobile.demo.repository.KeysetPage;
+import com.mobile.demo.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Listes de commandes : utilisateur inconnu en 404, tri ou curseur invalide en 400, le reste en 500
+class OrderControllerTest {
+
+    private OrderService orderService;
+    private OrderController controller;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        controller = new OrderController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+    }
+
+    @Test
+    void invalidCursorAnswersBadRequest() {
+        when(orderService.listUserOrders(anyLong(), any(), any(), any(), anyInt(), anyInt()))
+                .thenThrow(new InvalidPageRequestException("Curseur invalide: xyz"));
+
+        ResponseEntity<?> response = controller.getUserOrders(7L, 1, 10, "xyz", "orderDate", "desc", false);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    void unknownUserAnswersNotFound() {
+        when(orderService.listUserOrders(anyLong(), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = controller.getUserOrders(7L, 1, 10, null, "orderDate", "desc", false);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(404);
+    }
+
+    @Test
+    void userOrdersAreCappedAndNeverCountedUnlessAsked() {
+        when(orderService.listUserOrders(anyLong(), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(Optional.of(new KeysetPage<>(List.of(), "next", true)));
+
+        ResponseEntity<?> response = controller.getUserOrders(7L, 2, 5000, null, "orderDate", "desc", false);
+
+        verify(orderService).listUserOrders(7L, "orderDate", "desc", null, 2, 100);
+        verify(orderService, never()).countOrders(any(), any());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        assertThat(body).containsEntry("nextCursor", "next").containsEntry("currentPage", 2)
+                .doesNotContainKey("totalElements");
+    }
+
+    @Test
+    void unsupportedSortAnswersBadRequest() {
+        when(orderService.listOrders(any(), any(), any(), any(), anyInt(), anyInt()))
+                .thenThrow(new InvalidPageRequestException("Tri non supporté: status"));
+
+        ResponseEntity<?> response = controller.getAllOrders(1, 10, null, null, "status", "desc", false);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    void otherFailuresStayServerErrors() {
+        when(orderService.listOrders(any(), any(), any(), any(), anyInt(), anyInt()))
+                .thenThrow(new RuntimeException("connexion perdue"));
+
+        ResponseEntity<?> response = controller.getAllOrders(1, 10, null, null, "orderDate", "desc", false);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(500);
+    }
+}
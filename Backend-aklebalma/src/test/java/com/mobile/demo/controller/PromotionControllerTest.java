@@ -0,0 +1,92 @@
+package com.mobile.demo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Promotion;
+import com.mobile.demo.enums.PromotionScope;
+import com.mobile.demo.service.PricingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Modification d'une campagne : un champ absent garde sa valeur actuelle
+class PromotionControllerTest {
+
+    private PricingService pricingService;
+    private PromotionController controller;
+
+    @BeforeEach
+    void setUp() {
+        pricingService = mock(PricingService.class);
+        controller = new PromotionController();
+        ReflectionTestUtils.setField(controller, "pricingService", pricingService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper().findAndRegisterModules());
+
+        Promotion existing = new Promotion();
+        existing.setId(9L);
+        existing.setName("Soldes");
+        existing.setScope(PromotionScope.BRAND);
+        existing.setTargetBrand("Samsung");
+        existing.setDiscountPercentage(new BigDecimal("10"));
+        existing.setActive(false);
+        existing.setStackable(true);
+        existing.setPriority(5);
+        when(pricingService.findById(9L)).thenReturn(existing);
+        when(pricingService.save(any(Promotion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void missingActiveKeepsADeactivatedPromotionInactive() {
+        Map<String, Object> body = body();
+
+        controller.updatePromotion(9L, body);
+
+        Promotion saved = saved();
+        assertThat(saved.getActive()).isFalse();
+        assertThat(saved.getStackable()).isTrue();
+        assertThat(saved.getPriority()).isEqualTo(5);
+        assertThat(saved.getDiscountPercentage()).isEqualByComparingTo("15");
+    }
+
+    @Test
+    void explicitActiveIsApplied() {
+        Map<String, Object> body = body();
+        body.put("active", true);
+        body.put("priority", 1);
+
+        controller.updatePromotion(9L, body);
+
+        Promotion saved = saved();
+        assertThat(saved.getActive()).isTrue();
+        assertThat(saved.getPriority()).isEqualTo(1);
+    }
+
+    private Map<String, Object> body() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("name", "Soldes");
+        body.put("scope", "BRAND");
+        body.put("targetBrand", "Samsung");
+        body.put("discountPercentage", 15);
+        body.put("startsAt", LocalDateTime.of(2026, 11, 1, 0, 0).toString());
+        body.put("endsAt", LocalDateTime.of(2026, 11, 30, 0, 0).toString());
+        return body;
+    }
+
+    private Promotion saved() {
+        ArgumentCaptor<Promotion> captor = ArgumentCaptor.forClass(Promotion.class);
+        verify(pricingService).save(captor.capture());
+        assertThat(captor.getValue().getId()).isEqualTo(9L);
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,69 @@
+package com.mobile.demo.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Curseurs de pagination : aller-retour opaque, et tout curseur ou tri invalide est une erreur client
+class KeysetCursorTest {
+
+    private final OrderRepositoryImpl repository = new OrderRepositoryImpl();
+
+    @Test
+    void encodedCursorDecodesToTheSameKey() {
+        String cursor = new KeysetCursor("orderDate:desc", "2026-03-17T14:42:05", 42L).encode();
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+
+        assertThat(cursor).doesNotContain("|", "=", "+", "/");
+        assertThat(decoded.getSort()).isEqualTo("orderDate:desc");
+        assertThat(decoded.getValue()).isEqualTo("2026-03-17T14:42:05");
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void garbageCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetCursor.decode("%%%"))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(raw("sans-separateur")))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(raw("orderDate:desc|2026-03-17T14:42|abc")))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    @Test
+    void unsupportedSortIsRejectedBeforeAnyQuery() {
+        assertThatThrownBy(() -> repository.findOrderPage(null, null, "status", true, null, 0, 10))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessageContaining("status");
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String cursor = new KeysetCursor("orderDate:asc", "2026-03-17T14:42", 42L).encode();
+
+        assertThatThrownBy(() -> repository.findOrderPage(null, null, "orderDate", true, cursor, 0, 10))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    @Test
+    void unreadableSortValueIsRejected() {
+        String date = new KeysetCursor("orderDate:desc", "hier", 42L).encode();
+        String amount = new KeysetCursor("totalAmount:desc", "beaucoup", 42L).encode();
+
+        assertThatThrownBy(() -> repository.findOrderPage(null, null, "orderDate", true, date, 0, 10))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> repository.findOrderPage(null, null, "totalAmount", true, amount, 0, 10))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> repository.searchOrders(null, date, 10))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+package com.mobile.demo.repository;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.PaymentStatus;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Recherche admin : un prédicat par filtre renseigné, préfixe de numéro échappé pour LIKE
+class OrderSpecificationsTest {
+
+    private Root<Order> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder cb;
+    private Path<Object> path;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        cb = mock(CriteriaBuilder.class);
+        path = mock(Path.class);
+        when(root.get(anyString())).thenReturn(path);
+    }
+
+    @Test
+    void emptyCriteriaAddNoFilter() {
+        OrderSpecifications.matching(new OrderSearchCriteria()).toPredicate(root, query, cb);
+
+        verify(root, never()).get(anyString());
+        verify(cb).conjunction();
+    }
+
+    @Test
+    void everyGivenFilterBecomesAPredicate() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setStatus(OrderStatus.SHIPPED);
+        criteria.setPaymentStatus(PaymentStatus.PENDING);
+        criteria.setUserId(7L);
+        criteria.setFrom(LocalDateTime.of(2026, 3, 1, 0, 0));
+        criteria.setTo(LocalDateTime.of(2026, 4, 1, 0, 0));
+        criteria.setMinAmount(new BigDecimal("1000"));
+        criteria.setMaxAmount(new BigDecimal("5000"));
+
+        OrderSpecifications.matching(criteria).toPredicate(root, query, cb);
+
+        verify(cb).equal(path, OrderStatus.SHIPPED);
+        verify(cb).equal(path, PaymentStatus.PENDING);
+        verify(cb).equal(path, 7L);
+        // Période demi-ouverte [from, to), montants bornes incluses
+        verify(cb).greaterThanOrEqualTo((Path) path, (Comparable) criteria.getFrom());
+        verify(cb).lessThan((Path) path, (Comparable) criteria.getTo());
+        verify(cb).greaterThanOrEqualTo((Path) path, (Comparable) criteria.getMinAmount());
+        verify(cb).lessThanOrEqualTo((Path) path, (Comparable) criteria.getMaxAmount());
+        verify(cb, never()).like(any(), anyString(), anyChar());
+    }
+
+    @Test
+    void orderNumberPrefixIsUppercasedAndEscaped() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setOrderNumberPrefix(" akl_1%\\ ");
+
+        OrderSpecifications.matching(criteria).toPredicate(root, query, cb);
+
+        verify(root).get("orderNumber");
+        verify(cb).like(any(), eq("AKL\\_1\\%\\\\%"), eq('\\'));
+    }
+
+    @Test
+    void blankOrderNumberIsIgnored() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setOrderNumberPrefix("   ");
+
+        OrderSpecifications.matching(criteria).toPredicate(root, query, cb);
+
+        verify(root, never()).get("orderNumber");
+    }
+}
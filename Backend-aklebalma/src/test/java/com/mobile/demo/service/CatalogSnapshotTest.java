@@ -0,0 +1,130 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.InvalidPageRequestException;
+import com.mobile.demo.repository.KeysetPage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Instantané du catalogue : copies détachées des entités, accès par id et par catégorie, liste par curseur
+class CatalogSnapshotTest {
+
+    @Test
+    void laterChangesToTheEntitiesDoNotLeakIntoTheSnapshot() {
+        Product source = product(1L).category(10L).price("150000").build();
+        CatalogSnapshot snapshot = new CatalogSnapshot(1L, List.of(source));
+
+        source.setName("Renommé");
+        source.setPrice(new BigDecimal("1"));
+
+        assertThat(snapshot.getById(1L)).isNotSameAs(source);
+        assertThat(snapshot.getById(1L).getName()).isEqualTo("Produit 1");
+        assertThat(snapshot.getById(1L).getPrice()).isEqualByComparingTo("150000");
+    }
+
+    @Test
+    void productsAreFoundByIdAndByCategory() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(3L, List.of(
+                product(1L).category(10L).price("100").build(),
+                product(2L).category(20L).price("200").addedDaysAgo(1).build(),
+                product(3L).category(10L).price("300").addedDaysAgo(2).build()));
+
+        assertThat(snapshot.getVersion()).isEqualTo(3L);
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.getById(4L)).isNull();
+        assertThat(snapshot.getByCategory(10L)).extracting(Product::getId).containsExactly(1L, 3L);
+        assertThat(snapshot.getByCategory(99L)).isEmpty();
+    }
+
+    @Test
+    void stockUpdateReplacesTheProductInsteadOfChangingWhatReadersHold() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(1L, List.of(product(1L).category(10L).price("150000").build()));
+        Product held = snapshot.getById(1L);
+        ProductSummary heldSummary = snapshot.list(CatalogSnapshot.SORT_RECENT, null, 10).getItems().get(0);
+
+        snapshot.updateStock(1L, 0, false);
+
+        assertThat(held.getStockQuantity()).isEqualTo(5);
+        assertThat(held.getIsAvailable()).isTrue();
+        assertThat(heldSummary.getStockQuantity()).isEqualTo(5);
+        for (Product current : List.of(snapshot.getById(1L), snapshot.getProducts().get(0), snapshot.getByCategory(10L).get(0))) {
+            assertThat(current.getStockQuantity()).isZero();
+            assertThat(current.getIsAvailable()).isFalse();
+        }
+        ProductSummary summary = snapshot.list(CatalogSnapshot.SORT_RECENT, null, 10).getItems().get(0);
+        assertThat(summary.getStockQuantity()).isZero();
+        assertThat(summary.getIsAvailable()).isFalse();
+    }
+
+    @Test
+    void walkingEveryPageReturnsEachProductOnceInOrder() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 57; id++) {
+            // Beaucoup d'égalités de prix et de date : l'id départage
+            products.add(product(id).category(10L).price(String.valueOf(100 * (id % 5))).addedDaysAgo((int) (id % 7)).build());
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(1L, products);
+
+        assertPagesFollow(snapshot, CatalogSnapshot.SORT_RECENT, Comparator
+                .comparing(ProductSummary::getDateAdded).thenComparing(ProductSummary::getId).reversed());
+        assertPagesFollow(snapshot, CatalogSnapshot.SORT_PRICE_ASC, Comparator
+                .comparing(ProductSummary::getPrice).thenComparing(ProductSummary::getId));
+        assertPagesFollow(snapshot, CatalogSnapshot.SORT_PRICE_DESC, Comparator
+                .comparing(ProductSummary::getPrice).thenComparing(ProductSummary::getId).reversed());
+    }
+
+    @Test
+    void cursorOfARemovedProductResumesRightAfterIt() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            products.add(product(id).category(10L).price(String.valueOf(100 * id)).build());
+        }
+        String cursor = new CatalogSnapshot(1L, products)
+                .list(CatalogSnapshot.SORT_PRICE_ASC, null, 3).getNextCursor();
+
+        // Le produit 3 (dernier de la première page) a été supprimé entre deux pages
+        products.remove(2);
+        KeysetPage<ProductSummary> next = new CatalogSnapshot(2L, products)
+                .list(CatalogSnapshot.SORT_PRICE_ASC, cursor, 3);
+
+        assertThat(next.getItems()).extracting(ProductSummary::getId).containsExactly(4L, 5L, 6L);
+        assertThat(next.isHasNext()).isFalse();
+    }
+
+    @Test
+    void cursorOfAnotherSortOrAnUnknownSortIsRejected() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(1L, List.of(
+                product(1L).category(10L).price("100").build(),
+                product(2L).category(10L).price("200").addedDaysAgo(1).build()));
+        String recentCursor = snapshot.list(CatalogSnapshot.SORT_RECENT, null, 1).getNextCursor();
+
+        assertThatThrownBy(() -> snapshot.list(CatalogSnapshot.SORT_PRICE_ASC, recentCursor, 1))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> snapshot.list("name", null, 1))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    private static void assertPagesFollow(CatalogSnapshot snapshot, String sort, Comparator<ProductSummary> order) {
+        List<ProductSummary> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<ProductSummary> page = snapshot.list(sort, cursor, 10);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(6);
+        assertThat(seen).extracting(ProductSummary::getId).doesNotHaveDuplicates().hasSize(snapshot.size());
+        assertThat(seen).isSortedAccordingTo(order);
+    }
+}
@@ -0,0 +1,124 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Category;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.CategoryRepository;
+import com.mobile.demo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Arbre des catégories : compteurs chargés une fois, ajustés par écart, cumulés sur les sous-catégories
+class CategoryServiceTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Téléphones (1) > Smartphones (2) ; Accessoires (3)
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                category(1L, "Téléphones", null),
+                category(2L, "Smartphones", 1L),
+                category(3L, "Accessoires", null)));
+        when(productRepository.findCategoryStates()).thenReturn(rows(
+                new Object[]{10L, 1L, 4, true},
+                new Object[]{11L, 2L, 0, true},
+                new Object[]{12L, 2L, 3, true},
+                new Object[]{13L, 3L, 5, false}));
+    }
+
+    @Test
+    void treeRollsChildCountsUpToTheirParent() {
+        List<Map<String, Object>> tree = categoryService.getTree();
+
+        assertThat(tree).extracting(node -> node.get("name")).containsExactly("Accessoires", "Téléphones");
+        Map<String, Object> phones = tree.get(1);
+        assertThat(phones).containsEntry("productCount", 1L).containsEntry("inStockCount", 1L)
+                .containsEntry("totalProductCount", 3L).containsEntry("totalInStockCount", 2L);
+        assertThat(tree.get(0)).containsEntry("productCount", 1L).containsEntry("inStockCount", 0L);
+    }
+
+    @Test
+    void countsAreLoadedOnceAndAdjustedOnWrites() {
+        categoryService.getTree();
+
+        Product moved = product(12L).category(3L).stock(3).build();
+        categoryService.productSaved(moved);
+        categoryService.productDeleted(10L);
+
+        assertThat(categoryService.getCounts(2L)).containsExactly(1, 0);
+        assertThat(categoryService.getCounts(3L)).containsExactly(2, 1);
+        assertThat(categoryService.getCounts(1L)).containsExactly(0, 0);
+        verify(productRepository, times(1)).findCategoryStates();
+        verify(productRepository, never()).findCategoryStates(anyCollection());
+    }
+
+    @Test
+    void stockChangesRereadOnlyTheTouchedProducts() {
+        categoryService.getCounts(2L);
+        when(productRepository.findCategoryStates(anyCollection())).thenReturn(rows(new Object[]{11L, 2L, 7, true}));
+
+        categoryService.stockChanged(List.of(11L, 12L));
+
+        // 11 revient en stock, 12 a disparu entre-temps
+        assertThat(categoryService.getCounts(2L)).containsExactly(1, 1);
+        verify(productRepository).findCategoryStates(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(11L, 12L))));
+        categoryService.getCounts(2L);
+        verify(productRepository, times(1)).findCategoryStates(anyCollection());
+    }
+
+    @Test
+    void loopsAndMissingParentsAreRefused() {
+        Category loop = category(1L, "Téléphones", 2L);
+        Category orphan = category(null, "Tablettes", 99L);
+
+        assertThatThrownBy(() -> categoryService.save(loop)).hasMessageContaining("propre ancêtre");
+        assertThatThrownBy(() -> categoryService.save(orphan)).hasMessageContaining("non trouvée");
+        verify(categoryRepository, never()).save(any());
+    }
+
+    @Test
+    void categoryWithProductsCannotBeDeleted() {
+        when(categoryRepository.findByParentId(3L)).thenReturn(List.of());
+
+        assertThatThrownBy(() -> categoryService.deleteById(3L)).hasMessageContaining("produits");
+        verify(categoryRepository, never()).deleteById(3L);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Category category(Long id, String name, Long parentId) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setParentId(parentId);
+        return category;
+    }
+}
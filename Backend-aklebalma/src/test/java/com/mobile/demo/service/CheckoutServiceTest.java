@@ -0,0 +1,160 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.CreditScore;
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.repository.CreditScoreRepository;
+import com.mobile.demo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Checkout : prix serveur, stock, crédit, commande, lignes et plan dans la même transaction
+class CheckoutServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CreditScoreRepository creditScoreRepository;
+
+    @Mock
+    private PricingService pricingService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private PaymentPlanService paymentPlanService;
+
+    @InjectMocks
+    private CheckoutService checkoutService;
+
+    private final Map<Long, Integer> cart = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Product phone = product(1L).name("Galaxy A15").brand("Samsung").price("150000").stock(10).build();
+        Product buds = product(2L).name("Galaxy Buds").brand("Samsung").price("40000").stock(10).build();
+        when(productRepository.findAllById(any())).thenReturn(List.of(phone, buds));
+        // Promotion de 10 % sur le téléphone : seul le prix effectif compte
+        when(pricingService.priceOf(phone)).thenReturn(
+                new PriceList.ProductPrice(1L, new BigDecimal("150000"), new BigDecimal("135000"), List.of(3L)));
+        when(pricingService.priceOf(buds)).thenReturn(
+                new PriceList.ProductPrice(2L, new BigDecimal("40000"), new BigDecimal("40000"), List.of()));
+        when(stockReservationService.reserve(eq(7L), any())).thenReturn("res-1");
+
+        CreditScore creditScore = new CreditScore();
+        creditScore.setScore(650);
+        creditScore.setCreditLimit(new BigDecimal("1000000"));
+        when(creditScoreRepository.findByUserId(7L)).thenReturn(creditScore);
+
+        when(orderService.createOrder(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(42L);
+            order.setOrderNumber("ORD-0042");
+            return order;
+        });
+        when(paymentPlanService.createPlan(eq(42L), eq(7L), any(), any(Integer.class))).thenReturn(Map.of("id", 5L));
+
+        cart.put(1L, 2);
+        cart.put(2L, 1);
+    }
+
+    @Test
+    void checkoutRunsEveryStepWithServerSidePrices() {
+        when(jdbcTemplate.queryForList(startsWith("UPDATE users SET remaining_to_pay"), eq(BigDecimal.class),
+                any(Object[].class))).thenReturn(List.of(new BigDecimal("310000")));
+
+        Map<String, Object> result = checkoutService.checkout(7L, cart, 3, 9L);
+
+        BigDecimal total = new BigDecimal("310000");
+        Order order = (Order) result.get("order");
+        assertThat(order.getTotalAmount()).isEqualByComparingTo(total);
+        assertThat(order.getDeliveryAddressId()).isEqualTo(9L);
+
+        InOrder calls = inOrder(stockReservationService, jdbcTemplate, orderService, paymentPlanService);
+        calls.verify(stockReservationService).reserve(7L, cart);
+        calls.verify(jdbcTemplate).queryForList(startsWith("UPDATE users SET remaining_to_pay"), eq(BigDecimal.class),
+                any(Object[].class));
+        calls.verify(orderService).createOrder(order);
+        calls.verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_items"), anyList());
+        calls.verify(paymentPlanService).createPlan(42L, 7L, total, 3);
+        calls.verify(stockReservationService).commit("res-1", 42L);
+    }
+
+    @Test
+    void itemsAreInsertedInOneBatchWhateverTheCartSize() {
+        when(jdbcTemplate.queryForList(anyString(), eq(BigDecimal.class), any(Object[].class)))
+                .thenReturn(List.of(new BigDecimal("310000")));
+
+        checkoutService.checkout(7L, cart, 1, null);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_items"), rows.capture());
+        assertThat(rows.getValue()).hasSize(2);
+        Object[] phone = rows.getValue().get(0);
+        assertThat(phone[0]).isEqualTo(2);
+        assertThat((BigDecimal) phone[1]).isEqualByComparingTo("135000");
+        assertThat((BigDecimal) phone[2]).isEqualByComparingTo("270000");
+        assertThat(phone[3]).isEqualTo(42L);
+    }
+
+    @Test
+    void refusedCreditStopsBeforeTheOrderIsCreated() {
+        when(jdbcTemplate.queryForList(anyString(), eq(BigDecimal.class), any(Object[].class))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> checkoutService.checkout(7L, cart, 1, null))
+                .hasMessageContaining("Crédit insuffisant");
+        verify(orderService, never()).createOrder(any(Order.class));
+        verify(stockReservationService, never()).commit(any(), any());
+    }
+
+    @Test
+    void invalidInstallmentsAreRejectedBeforeAnyWork() {
+        assertThatThrownBy(() -> checkoutService.checkout(7L, cart, 7, null))
+                .hasMessageContaining("Nombre d'échéances invalide");
+        verifyNoInteractions(productRepository, stockReservationService, jdbcTemplate, orderService);
+    }
+
+    @Test
+    void unknownProductIsRejectedBeforeReservingStock() {
+        cart.put(99L, 1);
+
+        assertThatThrownBy(() -> checkoutService.checkout(7L, cart, 1, null))
+                .hasMessageContaining("Produit non trouvé: 99");
+        verifyNoInteractions(stockReservationService, orderService);
+    }
+}
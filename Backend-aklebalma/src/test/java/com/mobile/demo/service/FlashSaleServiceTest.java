@@ -0,0 +1,277 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// Vente flash : parts d'instance et achats inscrits en base, reprise après redémarrage
+class FlashSaleServiceTest {
+
+    private static final long PRODUCT = 1L;
+
+    private FakeDatabase db;
+    private FlashSaleService service;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        service = newInstance(db);
+    }
+
+    private static FlashSaleService newInstance(FakeDatabase db) {
+        FlashSaleService service = new FlashSaleService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", db);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "productService", mock(ProductService.class));
+        ReflectionTestUtils.setField(service, "stripes", 4);
+        ReflectionTestUtils.setField(service, "allocationBatch", 100);
+        ReflectionTestUtils.setField(service, "nodeId", 0L);
+        return service;
+    }
+
+    @Test
+    void concurrentEnableTakesOneBatch() throws Exception {
+        db.stock = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(pool.submit(() -> {
+                start.await();
+                return service.enable(PRODUCT);
+            }));
+        }
+        start.countDown();
+        for (Future<?> call : calls) {
+            call.get();
+        }
+        pool.shutdown();
+
+        assertThat(db.takes.get()).isEqualTo(1);
+        assertThat(db.allocated).isEqualTo(100L);
+        assertThat(db.stock).isEqualTo(900);
+        assertThat(service.getAvailable(PRODUCT)).isEqualTo(1000L);
+    }
+
+    @Test
+    void claimsRefillFromSharedStockAndNeverOversell() throws Exception {
+        db.stock = 250;
+        service.enable(PRODUCT);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            calls.add(pool.submit(() -> {
+                if (service.claim(PRODUCT, 1)) {
+                    sold.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> call : calls) {
+            call.get();
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold.get()).isEqualTo(250);
+        assertThat(db.stock).isZero();
+        assertThat(db.claimed()).isEqualTo(250);
+    }
+
+    @Test
+    void claimThatCannotBeRecordedGivesUnitsBack() {
+        db.stock = 50;
+        service.enable(PRODUCT);
+        db.failClaims = true;
+
+        assertThatThrownBy(() -> service.claim(PRODUCT, 5)).isInstanceOf(RuntimeException.class);
+        assertThat(service.getAvailable(PRODUCT)).isEqualTo(50L);
+    }
+
+    @Test
+    void restartRebuildsCountersFromTheNodeShare() {
+        db.flag = true;
+        db.allocated = 60L;
+        db.claims.add(10);
+
+        service.recover();
+
+        assertThat(service.isActive(PRODUCT)).isTrue();
+        assertThat(service.getAvailable(PRODUCT)).isEqualTo(50L);
+        assertThat(db.allocated).isEqualTo(50L);
+        assertThat(db.claims).isEmpty();
+    }
+
+    @Test
+    void restartReturnsTheShareOfAFinishedSale() {
+        db.stock = 7;
+        db.allocated = 60L;
+        db.claims.add(10);
+
+        service.recover();
+
+        assertThat(service.isActive(PRODUCT)).isFalse();
+        assertThat(db.stock).isEqualTo(57);
+        assertThat(db.allocated).isNull();
+    }
+
+    @Test
+    void disableReturnsUnsoldUnits() {
+        db.stock = 1000;
+        service.enable(PRODUCT);
+        assertThat(service.claim(PRODUCT, 30)).isTrue();
+
+        service.disable(PRODUCT);
+
+        assertThat(db.flag).isFalse();
+        assertThat(db.stock).isEqualTo(970);
+        assertThat(db.allocated).isNull();
+        assertThat(service.isActive(PRODUCT)).isFalse();
+    }
+
+    @Test
+    void saleEnabledByAnotherInstanceIsServedAfterRefresh() {
+        db.stock = 20;
+        db.flag = true;
+
+        assertThat(service.isActive(PRODUCT)).isFalse();
+        assertThat(service.refreshFlag(PRODUCT)).isTrue();
+        assertThat(service.claim(PRODUCT, 3)).isTrue();
+        assertThat(db.stock).isZero();
+        assertThat(db.allocated).isEqualTo(20L);
+        assertThat(db.claimed()).isEqualTo(3);
+    }
+
+    @Test
+    void restartKeepsTheUnsoldShareOfThisInstance() {
+        db.stock = 300;
+        service.enable(PRODUCT);
+        service.claim(PRODUCT, 40);
+
+        // Redémarrage : nouvelle instance sur la même base
+        FlashSaleService restarted = newInstance(db);
+        restarted.recover();
+
+        assertThat(restarted.getAvailable(PRODUCT)).isEqualTo(60L);
+        assertThat(restarted.claim(PRODUCT, 60)).isTrue();
+        assertThat(restarted.claim(PRODUCT, 200)).isTrue();
+        assertThat(restarted.claim(PRODUCT, 1)).isFalse();
+        assertThat(db.claimed()).isEqualTo(300);
+    }
+
+    // Un seul produit, requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private long stock;
+        private boolean flag;
+        private Long allocated;
+        private final List<Integer> claims = new ArrayList<>();
+        private final List<Integer> compacted = new ArrayList<>();
+        private final AtomicInteger takes = new AtomicInteger();
+        private volatile boolean failClaims;
+
+        synchronized int claimed() {
+            return claims.stream().mapToInt(Integer::intValue).sum()
+                    + compacted.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType) {
+            return queryForList(sql, elementType, new Object[0]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            if (sql.startsWith("SELECT id FROM products WHERE flash_sale")) {
+                return flag ? (List<T>) List.of(PRODUCT) : List.of();
+            }
+            if (sql.startsWith("SELECT flash_sale FROM products")) {
+                return (List<T>) List.of(flag);
+            }
+            if (sql.startsWith("UPDATE products SET flash_sale = true")) {
+                flag = true;
+                return (List<T>) List.of((int) stock);
+            }
+            if (sql.startsWith("SELECT product_id FROM flash_sale_allocations")) {
+                return allocated == null ? List.of() : (List<T>) List.of(PRODUCT);
+            }
+            if (sql.startsWith("WITH moved AS")) {
+                if (allocated == null) {
+                    return List.of();
+                }
+                int sum = claims.stream().mapToInt(Integer::intValue).sum();
+                allocated -= sum;
+                compacted.addAll(claims);
+                claims.clear();
+                return (List<T>) List.of(allocated);
+            }
+            if (sql.startsWith("WITH part AS")) {
+                long units = ((Number) args[0]).longValue();
+                allocated -= units;
+                stock += units;
+                return (List<T>) List.of(stock);
+            }
+            throw new IllegalArgumentException(sql);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (sql.startsWith("UPDATE products p SET stock_quantity = p.stock_quantity - t.taken")) {
+                if (!flag) {
+                    return List.of();
+                }
+                takes.incrementAndGet();
+                long taken = Math.min(stock, ((Number) args[0]).longValue());
+                stock -= taken;
+                return (List<T>) List.of(new long[]{taken, stock});
+            }
+            throw new IllegalArgumentException(sql);
+        }
+
+        @Override
+        public synchronized int update(String sql, Object... args) {
+            if (sql.startsWith("UPDATE products SET flash_sale = false")) {
+                boolean was = flag;
+                flag = false;
+                return was ? 1 : 0;
+            }
+            if (sql.startsWith("INSERT INTO flash_sale_allocations")) {
+                allocated = (allocated == null ? 0 : allocated) + ((Number) args[2]).longValue();
+                return 1;
+            }
+            if (sql.startsWith("INSERT INTO flash_sale_claims")) {
+                if (failClaims) {
+                    throw new IllegalStateException("insertion refusée");
+                }
+                claims.add((Integer) args[2]);
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM flash_sale_allocations")) {
+                if (allocated != null && allocated == 0) {
+                    allocated = null;
+                    return 1;
+                }
+                return 0;
+            }
+            throw new IllegalArgumentException(sql);
+        }
+    }
+}
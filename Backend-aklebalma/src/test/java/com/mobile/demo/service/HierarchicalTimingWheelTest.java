@@ -0,0 +1,115 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Roue temporelle : chaque minuteur part une seule fois, jamais avant son échéance ni plus d'un tick après
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void timerFiresAtTheEndOfItsTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, 0);
+        wheel.add(25, "a");
+
+        assertThat(wheel.advance(29)).isEmpty();
+        assertThat(wheel.advance(30)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void farTimersCascadeDownToTheFinestLevel() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, 0);
+        wheel.add(75, "niveau 0");
+        wheel.add(555, "niveau 1");
+        wheel.add(4005, "niveau 2");
+
+        assertThat(wheel.advance(549)).containsExactly("niveau 0");
+        assertThat(wheel.advance(559)).isEmpty();
+        assertThat(wheel.advance(560)).containsExactly("niveau 1");
+        assertThat(wheel.advance(4009)).isEmpty();
+        assertThat(wheel.advance(4010)).containsExactly("niveau 2");
+    }
+
+    @Test
+    void dueOrOutOfRangeTimersAreRefused() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, 100);
+
+        assertThat(wheel.span()).isEqualTo(TICK * 8 * 8 * 7);
+        assertThat(wheel.add(100 + wheel.span(), "limite")).isTrue();
+        assertThat(wheel.add(100, "échu")).isFalse();
+        assertThat(wheel.add(99, "passé")).isFalse();
+        assertThatThrownBy(() -> wheel.add(100 + TICK * 8 * 8 * 8, "trop loin"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void randomTimersFireOnceWithinOneTickOfTheirDeadline() {
+        Random random = new Random(42);
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Map<Integer, Long> firedAt = new HashMap<>();
+        Map<Integer, Long> previousAdvance = new HashMap<>();
+        long now = 0;
+        int next = 0;
+
+        while (now < 50_000) {
+            // Nouveaux minuteurs à toute distance couverte par la roue
+            for (int i = random.nextInt(5); i > 0; i--) {
+                long expiresAt = now + 1 + random.nextInt((int) (wheel.span() - 2 * TICK));
+                if (wheel.add(expiresAt, next)) {
+                    deadlines.put(next, expiresAt);
+                }
+                next++;
+            }
+            long before = now;
+            now += random.nextInt(120);
+            List<Integer> expired = wheel.advance(now);
+            for (Integer id : expired) {
+                assertThat(firedAt.put(id, now)).as("minuteur %d déjà parti", id).isNull();
+                previousAdvance.put(id, before);
+            }
+        }
+        now += wheel.span() + TICK;
+        for (Integer id : wheel.advance(now)) {
+            assertThat(firedAt.put(id, now)).isNull();
+            previousAdvance.put(id, now - wheel.span() - TICK);
+        }
+
+        assertThat(firedAt.keySet()).isEqualTo(deadlines.keySet());
+        assertThat(wheel.size()).isZero();
+        for (Map.Entry<Integer, Long> fired : firedAt.entrySet()) {
+            long deadline = deadlines.get(fired.getKey());
+            long endOfTick = deadline - Math.floorMod(deadline, TICK) + TICK;
+            // Jamais avant l'échéance, et au plus tard à l'avance qui franchit la fin de sa case
+            assertThat(fired.getValue()).isGreaterThanOrEqualTo(deadline);
+            assertThat(previousAdvance.get(fired.getKey())).isLessThan(endOfTick);
+        }
+    }
+
+    @Test
+    void advancingStepByStepNeverFiresLate() {
+        Random random = new Random(7);
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, 4, 4, 0);
+        for (int i = 0; i < 2000; i++) {
+            long expiresAt = 1 + random.nextInt((int) (wheel.span() - TICK));
+            wheel.add(expiresAt, expiresAt);
+        }
+
+        for (long now = TICK; now <= wheel.span() + TICK; now += TICK) {
+            for (Long expiresAt : wheel.advance(now)) {
+                assertThat(expiresAt).isLessThanOrEqualTo(now).isGreaterThanOrEqualTo(now - TICK);
+            }
+        }
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,128 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Idempotency-Key sur PostgreSQL : prise de clé par INSERT ... ON CONFLICT, partagée entre instances
+// (chaque instance a son propre cache), reprise d'une clé expirée, libération après un échec
+class IdempotencyServicePostgresTest extends PostgresTestSupport {
+
+    private static final String SCOPE = IdempotencyService.scope("POST /api/orders", 7L);
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        truncate("idempotency_keys");
+    }
+
+    private IdempotencyService newInstance() {
+        IdempotencyService service = new IdempotencyService(100);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "lockTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", 10_000L);
+        return service;
+    }
+
+    private ResponseEntity<?> createOrder() {
+        int order = executions.incrementAndGet();
+        return ResponseEntity.status(201).body(Map.of("order", order));
+    }
+
+    private String status(String key) {
+        return jdbcTemplate.queryForObject(
+                "SELECT status FROM idempotency_keys WHERE scope = ? AND idempotency_key = ?", String.class, SCOPE, key);
+    }
+
+    @Test
+    void secondInstanceReplaysTheStoredResponse() {
+        newInstance().execute(SCOPE, "key-1", Map.of("total", 100), this::createOrder);
+
+        ResponseEntity<?> retry = newInstance().execute(SCOPE, "key-1", Map.of("total", 100), this::createOrder);
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retry.getStatusCode().value()).isEqualTo(201);
+        assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat((String) retry.getBody()).isEqualTo("{\"order\":1}");
+        assertThat(status("key-1")).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void duplicateOnAnotherInstanceWaitsForTheRunningExecution() throws Exception {
+        IdempotencyService first = newInstance();
+        IdempotencyService second = newInstance();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<?>> original = executor.submit(() ->
+                    first.execute(SCOPE, "key-1", Map.of("total", 100), () -> {
+                        running.countDown();
+                        try {
+                            finish.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return createOrder();
+                    }));
+            assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(status("key-1")).isEqualTo("IN_PROGRESS");
+
+            // La première exécution se termine pendant que le doublon relit la table
+            CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS).execute(finish::countDown);
+            ResponseEntity<?> duplicate = second.execute(SCOPE, "key-1", Map.of("total", 100), this::createOrder);
+
+            assertThat(original.get(10, TimeUnit.SECONDS).getStatusCode().value()).isEqualTo(201);
+            assertThat(duplicate.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+            assertThat(executions.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void abandonedExecutionIsTakenOverOnceItsLockExpires() {
+        LocalDateTime startedAt = LocalDateTime.now().minusMinutes(5);
+        jdbcTemplate.update("INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, status, created_at, expires_at) " +
+                        "VALUES (?, 'key-1', 'ancien', 'IN_PROGRESS', ?, ?)",
+                SCOPE, Timestamp.valueOf(startedAt), Timestamp.valueOf(startedAt.plusSeconds(60)));
+
+        ResponseEntity<?> response = newInstance().execute(SCOPE, "key-1", Map.of("total", 100), this::createOrder);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(status("key-1")).isEqualTo("COMPLETED");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void failedExecutionReleasesTheKey() {
+        ResponseEntity<?> failed = newInstance().execute(SCOPE, "key-1", Map.of("total", 100),
+                () -> ResponseEntity.status(400).body(Map.of("message", "Stock insuffisant")));
+
+        assertThat(failed.getStatusCode().value()).isEqualTo(400);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys", Integer.class)).isZero();
+
+        newInstance().execute(SCOPE, "key-1", Map.of("total", 100), this::createOrder);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+}
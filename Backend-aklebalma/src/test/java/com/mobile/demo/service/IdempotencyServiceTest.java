@@ -0,0 +1,181 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Idempotency-Key : une seule exécution par utilisateur et par clé, les nouvelles tentatives rejouent la réponse
+class IdempotencyServiceTest {
+
+    private static final String ENDPOINT = "POST /api/orders";
+
+    private FakeDatabase db;
+    private IdempotencyService service;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        service = newInstance(db);
+        executions = new AtomicInteger();
+    }
+
+    private static IdempotencyService newInstance(FakeDatabase db) {
+        IdempotencyService service = new IdempotencyService(100);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", db);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "lockTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", 500L);
+        return service;
+    }
+
+    @Test
+    void retryReplaysTheFirstResponseWithoutRunningAgain() {
+        ResponseEntity<?> first = place(7L, "key-1", Map.of("total", 100));
+        ResponseEntity<?> retry = place(7L, "key-1", Map.of("total", 100));
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(first.getStatusCode().value()).isEqualTo(201);
+        assertThat(retry.getStatusCode().value()).isEqualTo(201);
+        assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat((String) retry.getBody()).contains("\"order\":1");
+    }
+
+    @Test
+    void replayAlsoWorksFromTheTableAfterARestart() {
+        place(7L, "key-1", Map.of("total", 100));
+
+        ResponseEntity<?> retry = newInstance(db).execute(IdempotencyService.scope(ENDPOINT, 7L), "key-1",
+                Map.of("total", 100), this::createOrder);
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+    }
+
+    @Test
+    void sameKeyFromAnotherUserIsANewRequest() {
+        place(7L, "key-1", Map.of("total", 100));
+        ResponseEntity<?> other = place(8L, "key-1", Map.of("total", 100));
+
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(other.getHeaders().getFirst("Idempotent-Replayed")).isNull();
+    }
+
+    @Test
+    void sameKeyWithAnotherBodyIsRejected() {
+        place(7L, "key-1", Map.of("total", 100));
+        ResponseEntity<?> reused = place(7L, "key-1", Map.of("total", 999));
+
+        assertThat(reused.getStatusCode().value()).isEqualTo(422);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedExecutionReleasesTheKey() {
+        ResponseEntity<?> failed = service.execute(IdempotencyService.scope(ENDPOINT, 7L), "key-2",
+                Map.of("total", 100), () -> ResponseEntity.badRequest().body(Map.of("error", "stock")));
+        ResponseEntity<?> retry = place(7L, "key-2", Map.of("total", 100));
+
+        assertThat(failed.getStatusCode().value()).isEqualTo(400);
+        assertThat(retry.getStatusCode().value()).isEqualTo(201);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requestWithoutKeyAlwaysRuns() {
+        place(7L, null, Map.of("total", 100));
+        place(7L, null, Map.of("total", 100));
+
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(db.rows).isEmpty();
+    }
+
+    private ResponseEntity<?> place(Long userId, String key, Map<String, Object> body) {
+        return service.execute(IdempotencyService.scope(ENDPOINT, userId), key, body, this::createOrder);
+    }
+
+    private ResponseEntity<?> createOrder() {
+        return ResponseEntity.status(201).body(Map.of("order", executions.incrementAndGet()));
+    }
+
+    // Table idempotency_keys en mémoire, requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private final Map<String, Object[]> rows = new HashMap<>();
+
+        @Override
+        public synchronized int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT INTO idempotency_keys")) {
+                String id = args[0] + "|" + args[1];
+                if (rows.containsKey(id)) {
+                    return 0;
+                }
+                rows.put(id, new Object[]{args[2], "IN_PROGRESS", null, null, args[4]});
+                return 1;
+            }
+            if (sql.startsWith("UPDATE idempotency_keys SET status = 'COMPLETED'")) {
+                Object[] row = rows.get(args[3] + "|" + args[4]);
+                row[1] = "COMPLETED";
+                row[2] = args[0];
+                row[3] = args[1];
+                row[4] = args[2];
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM idempotency_keys WHERE scope")) {
+                String id = args[0] + "|" + args[1];
+                Object[] row = rows.get(id);
+                if (row != null && "IN_PROGRESS".equals(row[1])) {
+                    rows.remove(id);
+                    return 1;
+                }
+                return 0;
+            }
+            throw new IllegalArgumentException(sql);
+        }
+
+        @Override
+        public synchronized <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.startsWith("SELECT request_hash")) {
+                throw new IllegalArgumentException(sql);
+            }
+            Object[] row = rows.get(args[0] + "|" + args[1]);
+            if (row == null) {
+                return List.of();
+            }
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("request_hash")).thenReturn((String) row[0]);
+                when(rs.getString("status")).thenReturn((String) row[1]);
+                when(rs.getInt("response_status")).thenReturn(row[2] == null ? 0 : (Integer) row[2]);
+                when(rs.getString("response_body")).thenReturn((String) row[3]);
+                when(rs.getTimestamp("expires_at")).thenReturn((Timestamp) row[4]);
+                return List.of(rowMapper.mapRow(rs, 0));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Export comptable : CSV et NDJSON écrits ligne à ligne depuis un curseur en lecture seule, gzip en option
+class OrderExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 4, 1, 0, 0);
+
+    private FakeDatabase db;
+    private PlatformTransactionManager transactionManager;
+    private OrderExportService service;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        service = new OrderExportService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", db);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "fetchSize", 500);
+    }
+
+    @Test
+    void csvQuotesOnlyWhenNeededAndLeavesNullsEmpty() throws IOException {
+        db.rows.add(row(1L, "CMD-1", 7L, "150000.00", null));
+        db.rows.add(row(2L, "CMD,\"2\"", null, "99.50", LocalDateTime.of(2026, 3, 20, 10, 0)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.export(FROM, TO, OrderExportService.FORMAT_CSV, false, out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "id,orderNumber,orderDate,userId,status,paymentStatus,totalAmount,deliveryDate,deliveryAddressId",
+                "1,CMD-1,2026-03-17T14:42,7,PENDING,PENDING,150000.00,,3",
+                "2,\"CMD,\"\"2\"\"\",2026-03-17T14:42,,PENDING,PENDING,99.50,2026-03-20T10:00,3");
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLineWithAmountsAsText() throws IOException {
+        db.rows.add(row(1L, "CMD-1", null, "150000.10", null));
+        db.rows.add(row(2L, "CMD-2", 7L, "20", null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(FROM, TO, OrderExportService.FORMAT_NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertThat(first.get("totalAmount").isTextual()).isTrue();
+        assertThat(first.get("totalAmount").asText()).isEqualTo("150000.10");
+        assertThat(first.get("userId").isNull()).isTrue();
+        assertThat(new ObjectMapper().readTree(lines[1]).get("userId").asLong()).isEqualTo(7L);
+    }
+
+    @Test
+    void gzipOutputInflatesToTheSameExport() throws IOException {
+        db.rows.add(row(1L, "CMD-1", 7L, "150000.00", null));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+
+        service.export(FROM, TO, OrderExportService.FORMAT_CSV, false, plain);
+        service.export(FROM, TO, OrderExportService.FORMAT_CSV, true, zipped);
+
+        byte[] inflated = new GZIPInputStream(new ByteArrayInputStream(zipped.toByteArray())).readAllBytes();
+        assertThat(inflated).isEqualTo(plain.toByteArray());
+    }
+
+    @Test
+    void emptyPeriodGivesTheHeaderOnly() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        assertThat(service.export(FROM, TO, OrderExportService.FORMAT_CSV, false, csv)).isZero();
+        service.export(FROM, TO, OrderExportService.FORMAT_NDJSON, false, ndjson);
+
+        assertThat(csv.toString(StandardCharsets.UTF_8)).startsWith("id,orderNumber").hasLineCount(1);
+        assertThat(ndjson.size()).isZero();
+    }
+
+    @Test
+    void rowsAreReadWithAFetchSizeInsideAReadOnlyTransaction() throws IOException, SQLException {
+        service.export(FROM, TO, OrderExportService.FORMAT_CSV, false, new ByteArrayOutputStream());
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+        verify(db.statement).setFetchSize(500);
+        verify(db.statement).setTimestamp(1, Timestamp.valueOf(FROM));
+        verify(db.statement).setTimestamp(2, Timestamp.valueOf(TO));
+    }
+
+    @Test
+    void disconnectedClientStopsTheRead() {
+        for (long id = 1; id <= 20_000; id++) {
+            db.rows.add(row(id, "CMD-" + id, 7L, "150000.00", null));
+        }
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> service.export(FROM, TO, OrderExportService.FORMAT_CSV, false, closed))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+        assertThat(db.rowsRead).isLessThan(db.rows.size());
+    }
+
+    private static ResultSet row(Long id, String orderNumber, Long userId, String totalAmount,
+                                 LocalDateTime deliveryDate) {
+        try {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(id);
+            when(rs.getString("order_number")).thenReturn(orderNumber);
+            when(rs.getTimestamp("order_date")).thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 3, 17, 14, 42)));
+            when(rs.getObject("user_id")).thenReturn(userId);
+            when(rs.getLong("user_id")).thenReturn(userId == null ? 0L : userId);
+            when(rs.getString("status")).thenReturn("PENDING");
+            when(rs.getString("payment_status")).thenReturn("PENDING");
+            when(rs.getBigDecimal("total_amount")).thenReturn(new BigDecimal(totalAmount));
+            when(rs.getTimestamp("delivery_date")).thenReturn(deliveryDate == null ? null : Timestamp.valueOf(deliveryDate));
+            when(rs.getObject("delivery_address_id")).thenReturn(3L);
+            when(rs.getLong("delivery_address_id")).thenReturn(3L);
+            // wasNull suit l'ordre de lecture du NDJSON : user_id puis delivery_address_id
+            when(rs.wasNull()).thenReturn(userId == null, false);
+            return rs;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Curseur JDBC simulé : les lignes sont poussées une à une au gestionnaire
+    private static final class FakeDatabase extends JdbcTemplate {
+        private final List<ResultSet> rows = new ArrayList<>();
+        private PreparedStatement statement;
+        private int rowsRead;
+
+        @Override
+        public void query(PreparedStatementCreator creator, RowCallbackHandler handler) throws DataAccessException {
+            try {
+                Connection connection = mock(Connection.class);
+                statement = mock(PreparedStatement.class);
+                when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+                creator.createPreparedStatement(connection);
+                for (ResultSet row : rows) {
+                    rowsRead++;
+                    handler.processRow(row);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Numéros de commande : unicité sous concurrence, jamais d'horodatage pris en avance sur l'horloge
+class OrderNumberGeneratorTest {
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final long NOW = EPOCH + 1_000_000L;
+
+    @Test
+    void twoMillionConcurrentIdsAreUnique() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(3);
+        int threads = 8;
+        int perThread = 250_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> batches = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            batches.add(pool.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> batch : batches) {
+            long[] ids = batch.get();
+            // Croissants dans chaque thread
+            for (int i = 1; i < ids.length; i++) {
+                assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertThat(all[i]).isNotEqualTo(all[i - 1]);
+        }
+    }
+
+    @Test
+    void exhaustedSequenceWaitsForTheNextMillisecond() {
+        AtomicLong calls = new AtomicLong();
+        // L'horloge reste sur NOW pendant 10 000 lectures, puis passe à la milliseconde suivante
+        OrderNumberGenerator generator = new OrderNumberGenerator(1,
+                () -> calls.incrementAndGet() > 10_000 ? NOW + 1 : NOW);
+
+        for (int i = 0; i < 4096; i++) {
+            assertThat(timestampOf(generator.nextId())).isEqualTo(NOW - EPOCH);
+        }
+        long overflow = generator.nextId();
+
+        assertThat(calls.get()).isGreaterThan(10_000);
+        assertThat(timestampOf(overflow)).isEqualTo(NOW + 1 - EPOCH);
+        assertThat(overflow & 0xFFF).isZero();
+    }
+
+    @Test
+    void clockGoingBackwardsKeepsIdsIncreasing() {
+        AtomicLong time = new AtomicLong(NOW);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, time::get);
+
+        long before = generator.nextId();
+        time.set(NOW - 50);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(timestampOf(after)).isEqualTo(NOW - EPOCH);
+    }
+
+    @Test
+    void clockFarBehindWithExhaustedSequenceFailsInsteadOfBlocking() {
+        AtomicLong time = new AtomicLong(NOW);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, time::get);
+        generator.nextId();
+        time.set(NOW - 60_000);
+        for (int i = 0; i < 4095; i++) {
+            generator.nextId();
+        }
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void numbersHaveAFixedLengthAndSortLikeIds() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        String a = OrderNumberGenerator.format(first);
+        String b = OrderNumberGenerator.format(second);
+        assertThat(a).startsWith(OrderNumberGenerator.PREFIX).hasSize(b.length());
+        assertThat(a.compareTo(b)).isNegative();
+        assertThat((first >>> 12) & 0x3FF).isEqualTo(7L);
+    }
+
+    @Test
+    void nodeIdOutOfRangeIsRejected() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new OrderNumberGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long timestampOf(long id) {
+        return id >>> 22;
+    }
+}
@@ -0,0 +1,169 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.enums.OutboxEventType;
+import com.mobile.demo.enums.RollupGranularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Agrégats de chiffre d'affaires : mises à jour incrémentales, tranches, rattrapage et événements déjà comptés
+class OrderRollupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private OrderRollupService orderRollupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void bucketsStartAtHourDayAndMonth() {
+        LocalDateTime instant = LocalDateTime.of(2026, 3, 17, 14, 42, 5);
+
+        assertThat(OrderRollupService.bucketStart(RollupGranularity.HOUR, instant))
+                .isEqualTo(LocalDateTime.of(2026, 3, 17, 14, 0));
+        assertThat(OrderRollupService.bucketStart(RollupGranularity.DAY, instant))
+                .isEqualTo(LocalDateTime.of(2026, 3, 17, 0, 0));
+        assertThat(OrderRollupService.bucketStart(RollupGranularity.MONTH, instant))
+                .isEqualTo(LocalDateTime.of(2026, 3, 1, 0, 0));
+    }
+
+    @Test
+    void creationAddsOneOrderToEachBucketInOneBatch() {
+        orderRollupService.recordCreated(LocalDateTime.of(2026, 3, 17, 14, 42), OrderStatus.PENDING,
+                new BigDecimal("150000"));
+
+        List<Object[]> rows = upsertedRows();
+        assertThat(rows).hasSize(3);
+        assertThat(rows).extracting(row -> row[0]).containsExactly("DAY", "HOUR", "MONTH");
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row[2]).isEqualTo("PENDING");
+            assertThat(row[3]).isEqualTo(1L);
+            assertThat(row[4]).isEqualTo(new BigDecimal("150000"));
+        });
+        assertThat(rows.get(1)[1]).isEqualTo(Timestamp.valueOf(LocalDateTime.of(2026, 3, 17, 14, 0)));
+    }
+
+    @Test
+    void statusChangeMovesTheOrderBetweenStatusRows() {
+        orderRollupService.recordStatusChange(LocalDateTime.of(2026, 3, 17, 14, 42), new BigDecimal("150000"),
+                OrderStatus.PENDING, OrderStatus.CONFIRMED);
+
+        List<Object[]> rows = upsertedRows();
+        assertThat(rows).hasSize(6);
+        // Tri par (granularité, tranche, statut) : même ordre de verrouillage pour toutes les transactions
+        assertThat(rows).extracting(row -> row[0] + "/" + row[2]).containsExactly(
+                "DAY/CONFIRMED", "DAY/PENDING", "HOUR/CONFIRMED", "HOUR/PENDING", "MONTH/CONFIRMED", "MONTH/PENDING");
+        assertThat(rows.get(0)[3]).isEqualTo(1L);
+        assertThat(rows.get(1)[3]).isEqualTo(-1L);
+        assertThat(rows.get(1)[4]).isEqualTo(new BigDecimal("-150000"));
+    }
+
+    @Test
+    void unchangedStatusWritesNothing() {
+        orderRollupService.recordStatusChange(LocalDateTime.of(2026, 3, 17, 14, 42), new BigDecimal("150000"),
+                OrderStatus.PENDING, OrderStatus.PENDING);
+        orderRollupService.recordStatusChange(LocalDateTime.of(2026, 3, 17, 14, 42), new BigDecimal("150000"),
+                null, OrderStatus.PENDING);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void backfillRecordsPendingEventsUnderTheLockBeforeRecomputing() {
+        orderRollupService.backfill(LocalDateTime.of(2026, 3, 17, 14, 42));
+
+        InOrder calls = inOrder(jdbcTemplate);
+        calls.verify(jdbcTemplate).execute("LOCK TABLE order_revenue_rollups IN EXCLUSIVE MODE");
+        calls.verify(jdbcTemplate).update(startsWith("INSERT INTO order_rollup_skipped_events"), any(Object[].class));
+        calls.verify(jdbcTemplate).update(startsWith("DELETE FROM order_revenue_rollups"), any(Object[].class));
+        calls.verify(jdbcTemplate, times(3)).update(startsWith("INSERT INTO order_revenue_rollups"), any(Object[].class));
+    }
+
+    @Test
+    void handlerIgnoresAnEventAlreadyCountedByABackfill() {
+        OrderRollupService service = mock(OrderRollupService.class);
+        OrderRollupHandler handler = handlerFor(service);
+        when(service.skipIfBackfilled(5L)).thenReturn(true);
+
+        handler.handle(event(5L, OutboxEventType.ORDER_CREATED), payload(null, "PENDING"));
+
+        verify(service, never()).recordCreated(any(), any(), any());
+    }
+
+    @Test
+    void handlerAppliesCreationAndStatusChanges() {
+        OrderRollupService service = mock(OrderRollupService.class);
+        OrderRollupHandler handler = handlerFor(service);
+        when(service.skipIfBackfilled(anyLong())).thenReturn(false);
+
+        handler.handle(event(6L, OutboxEventType.ORDER_CREATED), payload(null, "PENDING"));
+        handler.handle(event(7L, OutboxEventType.ORDER_STATUS_CHANGED), payload("PENDING", "CONFIRMED"));
+
+        LocalDateTime orderDate = LocalDateTime.of(2026, 3, 17, 14, 42);
+        verify(service).recordCreated(orderDate, OrderStatus.PENDING, new BigDecimal("150000"));
+        verify(service).recordStatusChange(orderDate, new BigDecimal("150000"), OrderStatus.PENDING, OrderStatus.CONFIRMED);
+    }
+
+    private List<Object[]> upsertedRows() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_revenue_rollups"), rows.capture());
+        return rows.getValue();
+    }
+
+    private static OrderRollupHandler handlerFor(OrderRollupService service) {
+        OrderRollupHandler handler = new OrderRollupHandler();
+        ReflectionTestUtils.setField(handler, "orderRollupService", service);
+        return handler;
+    }
+
+    private static OutboxEvent event(Long id, OutboxEventType type) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType("ORDER");
+        event.setEventType(type);
+        return event;
+    }
+
+    private static Map<String, Object> payload(String previousStatus, String status) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("orderDate", "2026-03-17T14:42");
+        payload.put("totalAmount", "150000");
+        payload.put("status", status);
+        payload.put("previousStatus", previousStatus);
+        return payload;
+    }
+}
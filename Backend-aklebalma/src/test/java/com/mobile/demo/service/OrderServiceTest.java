@@ -0,0 +1,154 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.repository.OrderRepository;
+import com.mobile.demo.repository.OrderRepositoryCustom;
+import com.mobile.demo.repository.OrderStatusStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Création de commande : un seul chemin (API, checkout, données de test) ; statistiques par statut
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private OrderTrackingService orderTrackingService;
+
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(orderNumberGenerator.next()).thenReturn("ORD-0001");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(42L);
+            return order;
+        });
+    }
+
+    @Test
+    void createOrderNumbersSavesAndRecordsEventAndTracking() {
+        Order saved = orderService.createOrder(new Order(7L, new BigDecimal("150000")));
+
+        assertThat(saved.getId()).isEqualTo(42L);
+        assertThat(saved.getOrderNumber()).isEqualTo("ORD-0001");
+        var calls = inOrder(orderRepository, outboxService, orderTrackingService);
+        calls.verify(orderRepository).save(saved);
+        calls.verify(outboxService).orderCreated(saved);
+        calls.verify(orderTrackingService).recordTransition(saved, null, null, null);
+    }
+
+    @Test
+    void createOrderKeepsAnExistingNumber() {
+        Order order = new Order(7L, new BigDecimal("150000"));
+        order.setOrderNumber("IMPORT-12");
+
+        assertThat(orderService.createOrder(order).getOrderNumber()).isEqualTo("IMPORT-12");
+        verify(orderNumberGenerator, never()).next();
+    }
+
+    @Test
+    void createOrderRejectsAnOrderThatAlreadyExists() {
+        Order order = new Order(7L, new BigDecimal("150000"));
+        order.setId(5L);
+
+        assertThatThrownBy(() -> orderService.createOrder(order)).isInstanceOf(RuntimeException.class);
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService, never()).orderCreated(any(Order.class));
+    }
+
+    @Test
+    void createOrderFromRequestGoesThroughTheSamePath() {
+        Order saved = orderService.createOrder(Map.of("userId", 7, "totalAmount", "85000", "deliveryAddressId", 3));
+
+        assertThat(saved.getDeliveryAddressId()).isEqualTo(3L);
+        assertThat(saved.getOrderNumber()).isEqualTo("ORD-0001");
+        verify(outboxService).orderCreated(saved);
+        verify(orderTrackingService).recordTransition(saved, null, null, null);
+    }
+
+    @Test
+    void statisticsKeepCountAndRevenuePerStatus() {
+        when(orderRepository.aggregateByStatusSince(any(LocalDateTime.class))).thenReturn(List.of(
+                stats(OrderStatus.DELIVERED, 3L, "450000"),
+                stats(OrderStatus.CANCELLED, 1L, "85000")));
+
+        Map<String, Object> result = orderService.getOrderStatistics("month");
+
+        assertThat(result.get("totalOrders")).isEqualTo(4L);
+        assertThat(result.get("totalRevenue")).isEqualTo(new BigDecimal("535000"));
+        @SuppressWarnings("unchecked")
+        Map<String, BigDecimal> revenue = (Map<String, BigDecimal>) result.get("revenueByStatus");
+        assertThat(revenue.get("DELIVERED")).isEqualTo(new BigDecimal("450000"));
+        assertThat(revenue.get("CANCELLED")).isEqualTo(new BigDecimal("85000"));
+        assertThat(revenue.get("PENDING")).isEqualTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void userOrdersUseAnOffsetOnlyWithoutCursor() {
+        when(orderRepository.findUserOrderPage(anyLong(), any(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
+        orderService.listUserOrders(7L, null, "desc", null, 3, 20);
+        orderService.listUserOrders(7L, "totalAmount", "asc", "abc", 3, 20);
+
+        verify(orderRepository).findUserOrderPage(7L, OrderRepositoryCustom.SORT_ORDER_DATE, true, null, 40, 20);
+        verify(orderRepository).findUserOrderPage(7L, "totalAmount", false, "abc", 0, 20);
+    }
+
+    @Test
+    void searchRejectsAnInvertedPeriodOrAmountRangeBeforeQuerying() {
+        LocalDateTime march = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+        assertThatThrownBy(() -> orderService.searchOrders(null, null, null, march, march,
+                null, null, null, null, 20)).hasMessage("Période invalide");
+        assertThatThrownBy(() -> orderService.searchOrders(null, null, null, null, null,
+                new BigDecimal("5000"), new BigDecimal("1000"), null, null, 20))
+                .hasMessage("Fourchette de montant invalide");
+        verify(orderRepository, never()).searchOrders(any(), any(), anyInt());
+    }
+
+    private static OrderStatusStats stats(OrderStatus status, Long count, String revenue) {
+        return new OrderStatusStats() {
+            @Override
+            public OrderStatus getStatus() { return status; }
+
+            @Override
+            public Long getOrderCount() { return count; }
+
+            @Override
+            public BigDecimal getRevenue() { return new BigDecimal(revenue); }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Machine à états sur PostgreSQL : UPDATE ... RETURNING, previous_status lu avant la mise à jour, un seul gagnant
+class OrderStateMachinePostgresTest extends PostgresTestSupport {
+
+    @Autowired
+    private OrderStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        truncate("orders");
+    }
+
+    private long order(String number, OrderStatus status) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO orders (order_number, order_date, total_amount, status, payment_status, user_id) " +
+                "VALUES (?, ?, 150000, ?, 'PENDING', 7) RETURNING id",
+                Long.class, number, Timestamp.valueOf(LocalDateTime.now()), status.name());
+    }
+
+    @Test
+    void transitionReturnsTheUpdatedRowWithItsPreviousStatus() {
+        long id = order("AKL-1", OrderStatus.SHIPPED);
+
+        Order delivered = stateMachine.transition(id, OrderStatus.DELIVERED).orElseThrow();
+
+        assertThat(delivered.getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(delivered.getPreviousStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(delivered.getDeliveryDate()).isNotNull();
+        assertThat(delivered.getOrderNumber()).isEqualTo("AKL-1");
+        assertThat(delivered.getUserId()).isEqualTo(7L);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, id))
+                .isEqualTo("DELIVERED");
+    }
+
+    @Test
+    void refusedTransitionLeavesTheRowUntouched() {
+        long id = order("AKL-1", OrderStatus.DELIVERED);
+
+        assertThat(stateMachine.transition(id, OrderStatus.CANCELLED)).isEmpty();
+        assertThat(stateMachine.transition(999L, OrderStatus.CONFIRMED)).isEmpty();
+        assertThat(stateMachine.describeRejection(id, OrderStatus.CANCELLED))
+                .isEqualTo("Impossible d'annuler une commande déjà livrée");
+        assertThat(jdbcTemplate.queryForObject("SELECT previous_status FROM orders WHERE id = ?", String.class, id))
+                .isNull();
+    }
+
+    @Test
+    void batchTransitionUpdatesOnlyEligibleOrders() {
+        long confirmed = order("AKL-1", OrderStatus.CONFIRMED);
+        long pending = order("AKL-2", OrderStatus.PENDING);
+        long alsoConfirmed = order("AKL-3", OrderStatus.CONFIRMED);
+
+        List<Order> shipped = stateMachine.transitionAll(List.of(confirmed, pending, alsoConfirmed, 999L),
+                OrderStatus.SHIPPED);
+
+        assertThat(shipped).extracting(Order::getId).containsExactlyInAnyOrder(confirmed, alsoConfirmed);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, pending))
+                .isEqualTo("PENDING");
+    }
+
+    @Test
+    void concurrentTransitionsHaveASingleWinner() throws Exception {
+        long id = order("AKL-1", OrderStatus.PENDING);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<Order>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return stateMachine.transition(id, OrderStatus.CONFIRMED);
+                }));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Optional<Order>> result : results) {
+                if (result.get(10, TimeUnit.SECONDS).isPresent()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject("SELECT previous_status FROM orders WHERE id = ?", String.class, id))
+                    .isEqualTo("PENDING");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
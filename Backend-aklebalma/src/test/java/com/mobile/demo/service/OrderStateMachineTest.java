@@ -0,0 +1,183 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Machine à états des commandes : transitions autorisées, UPDATE conditionnel, un seul gagnant en concurrence
+class OrderStateMachineTest {
+
+    private FakeDatabase db;
+    private OrderStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        stateMachine = new OrderStateMachine();
+        ReflectionTestUtils.setField(stateMachine, "jdbcTemplate", db);
+    }
+
+    @Test
+    void transitionTableFollowsTheOrderLifecycle() {
+        assertThat(OrderStateMachine.canTransition(OrderStatus.PENDING, OrderStatus.CONFIRMED)).isTrue();
+        assertThat(OrderStateMachine.canTransition(OrderStatus.CONFIRMED, OrderStatus.SHIPPED)).isTrue();
+        assertThat(OrderStateMachine.canTransition(OrderStatus.SHIPPED, OrderStatus.DELIVERED)).isTrue();
+        assertThat(OrderStateMachine.canTransition(OrderStatus.SHIPPED, OrderStatus.CANCELLED)).isTrue();
+
+        assertThat(OrderStateMachine.canTransition(OrderStatus.PENDING, OrderStatus.SHIPPED)).isFalse();
+        assertThat(OrderStateMachine.canTransition(OrderStatus.DELIVERED, OrderStatus.CANCELLED)).isFalse();
+        assertThat(OrderStateMachine.canTransition(OrderStatus.CANCELLED, OrderStatus.CONFIRMED)).isFalse();
+        assertThat(OrderStateMachine.allowedFrom(OrderStatus.PENDING)).isEmpty();
+    }
+
+    @Test
+    void allowedTransitionUpdatesAndReturnsTheOrder() {
+        db.orders.put(1L, OrderStatus.SHIPPED);
+
+        Optional<Order> delivered = stateMachine.transition(1L, OrderStatus.DELIVERED);
+
+        assertThat(delivered).isPresent();
+        assertThat(delivered.get().getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(delivered.get().getPreviousStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(delivered.get().getDeliveryDate()).isNotNull();
+        assertThat(db.orders.get(1L)).isEqualTo(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void forbiddenTransitionLeavesTheOrderUntouched() {
+        db.orders.put(1L, OrderStatus.DELIVERED);
+
+        assertThat(stateMachine.transition(1L, OrderStatus.CANCELLED)).isEmpty();
+        assertThat(stateMachine.transition(2L, OrderStatus.CANCELLED)).isEmpty();
+        assertThat(db.orders.get(1L)).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(stateMachine.describeRejection(1L, OrderStatus.CANCELLED))
+                .isEqualTo("Impossible d'annuler une commande déjà livrée");
+        assertThat(stateMachine.describeRejection(2L, OrderStatus.CANCELLED)).contains("non trouvée");
+    }
+
+    @Test
+    void backToPendingNeverReachesTheDatabase() {
+        db.orders.put(1L, OrderStatus.CONFIRMED);
+
+        assertThat(stateMachine.transition(1L, OrderStatus.PENDING)).isEmpty();
+        assertThat(db.updates).isZero();
+    }
+
+    @Test
+    void concurrentConfirmationsHaveExactlyOneWinner() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (long id = 1; id <= 200; id++) {
+            db.orders.put(id, OrderStatus.PENDING);
+        }
+        for (long id = 1; id <= 200; id++) {
+            long orderId = id;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Optional<Order>>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    return stateMachine.transition(orderId, OrderStatus.CONFIRMED);
+                }));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Optional<Order>> attempt : attempts) {
+                if (attempt.get().isPresent()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+            assertThat(db.orders.get(orderId)).isEqualTo(OrderStatus.CONFIRMED);
+        }
+        pool.shutdown();
+    }
+
+    // Table orders en mémoire : l'UPDATE conditionnel est appliqué atomiquement, comme en base
+    private static final class FakeDatabase extends JdbcTemplate {
+        private static final Pattern TARGET = Pattern.compile("SET previous_status = status, status = '(\\w+)'");
+        private static final Pattern ALLOWED = Pattern.compile("status IN \\(([^)]*)\\)");
+
+        private final Map<Long, OrderStatus> orders = new HashMap<>();
+        private int updates;
+
+        @Override
+        public synchronized <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.startsWith("UPDATE orders SET previous_status = status")) {
+                throw new IllegalArgumentException(sql);
+            }
+            updates++;
+            OrderStatus target = OrderStatus.valueOf(group(TARGET, sql));
+            Long id = (Long) args[args.length - 1];
+            OrderStatus current = orders.get(id);
+            if (current == null || !group(ALLOWED, sql).contains("'" + current.name() + "'")) {
+                return List.of();
+            }
+            orders.put(id, target);
+            Timestamp deliveryDate = target == OrderStatus.DELIVERED ? (Timestamp) args[0] : null;
+            try {
+                return List.of(rowMapper.mapRow(row(id, target, current, deliveryDate), 0));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            if (!sql.startsWith("SELECT status FROM orders")) {
+                throw new IllegalArgumentException(sql);
+            }
+            OrderStatus current = orders.get((Long) args[0]);
+            return current == null ? List.of() : List.of((T) current.name());
+        }
+
+        private static String group(Pattern pattern, String sql) {
+            Matcher matcher = pattern.matcher(sql);
+            if (!matcher.find()) {
+                throw new IllegalArgumentException(sql);
+            }
+            return matcher.group(1);
+        }
+
+        private static ResultSet row(Long id, OrderStatus status, OrderStatus previous, Timestamp deliveryDate)
+                throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(id);
+            when(rs.getString("order_number")).thenReturn("CMD-" + id);
+            when(rs.getTimestamp("order_date")).thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 3, 17, 14, 42)));
+            when(rs.getBigDecimal("total_amount")).thenReturn(BigDecimal.TEN);
+            when(rs.getString("status")).thenReturn(status.name());
+            when(rs.getString("previous_status")).thenReturn(previous.name());
+            when(rs.getString("payment_status")).thenReturn("PENDING");
+            when(rs.getTimestamp("delivery_date")).thenReturn(deliveryDate);
+            when(rs.getObject("user_id", Long.class)).thenReturn(7L);
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Order;
+import com.mobile.demo.enums.OrderStatus;
+import com.mobile.demo.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Suivi de commande : journal et projection écrits avec la transition, cache mis à jour seulement après commit
+// et vérifié par sa version à chaque lecture
+class OrderTrackingServiceTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2026, 3, 17, 14, 42);
+
+    private FakeDatabase db;
+    private OrderRepository orderRepository;
+    private OrderTrackingService service;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        orderRepository = mock(OrderRepository.class);
+        service = newInstance();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    // Une instance de l'application ; toutes partagent la même base
+    private OrderTrackingService newInstance() {
+        OrderTrackingService instance = new OrderTrackingService(100);
+        ReflectionTestUtils.setField(instance, "jdbcTemplate", db);
+        ReflectionTestUtils.setField(instance, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(instance, "orderRepository", orderRepository);
+        return instance;
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void eachTransitionAppendsOneStepAndOneEvent() {
+        Order order = order(1L, OrderStatus.PENDING);
+        service.recordTransition(order, null, null, null);
+        order.setStatus(OrderStatus.SHIPPED);
+        service.recordTransition(order, OrderStatus.CONFIRMED, "TRK-42", "Transporteur A");
+        commit();
+
+        Map<String, Object> tracking = service.getTracking(1L);
+
+        assertThat(db.events).containsExactly("null->PENDING", "CONFIRMED->SHIPPED");
+        assertThat(tracking).containsEntry("statusCode", "SHIPPED").containsEntry("trackingNumber", "TRK-42");
+        assertThat(history(tracking)).extracting(step -> step.get("status")).containsExactly("PENDING", "SHIPPED");
+        assertThat(history(tracking).get(1).get("description")).endsWith(": Transporteur A");
+        assertThat(tracking.get("estimatedDelivery")).isEqualTo("22/03/2026");
+    }
+
+    @Test
+    void committedTransitionIsServedFromTheCacheWithoutReadingTheRow() {
+        Order order = order(1L, OrderStatus.PENDING);
+        service.recordTransition(order, null, null, null);
+        commit();
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "PENDING");
+        int rowsBefore = db.rowsRead;
+
+        order.setStatus(OrderStatus.CONFIRMED);
+        service.recordTransition(order, OrderStatus.PENDING, null, null);
+        commit();
+
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "CONFIRMED");
+        assertThat(db.rowsRead).isEqualTo(rowsBefore);
+    }
+
+    @Test
+    void transitionMadeByAnotherInstanceReplacesTheCachedProjection() {
+        Order order = order(1L, OrderStatus.PENDING);
+        service.recordTransition(order, null, null, null);
+        commit();
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "PENDING");
+
+        order.setStatus(OrderStatus.CONFIRMED);
+        newInstance().recordTransition(order, OrderStatus.PENDING, null, null);
+        commit();
+
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "CONFIRMED");
+        int rowsBefore = db.rowsRead;
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "CONFIRMED");
+        assertThat(db.rowsRead).isEqualTo(rowsBefore);
+    }
+
+    @Test
+    void olderProjectionNeverReplacesANewerOne() {
+        Order order = order(1L, OrderStatus.PENDING);
+        service.recordTransition(order, null, null, null);
+        List<TransactionSynchronization> first = takeSynchronizations();
+        order.setStatus(OrderStatus.CONFIRMED);
+        service.recordTransition(order, OrderStatus.PENDING, null, null);
+        List<TransactionSynchronization> second = takeSynchronizations();
+
+        // Les deux commits arrivent dans le désordre
+        second.forEach(TransactionSynchronization::afterCommit);
+        first.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(service.getTracking(1L)).containsEntry("statusCode", "CONFIRMED");
+    }
+
+    @Test
+    void orderOlderThanTheJournalGetsAMinimalProjection() {
+        Order legacy = order(5L, OrderStatus.DELIVERED);
+        legacy.setDeliveryDate(ORDER_DATE.plusDays(2));
+        when(orderRepository.findById(5L)).thenReturn(Optional.of(legacy));
+
+        Map<String, Object> tracking = service.getTracking(5L);
+
+        assertThat(history(tracking)).extracting(step -> step.get("status")).containsExactly("PENDING", "DELIVERED");
+        assertThat(tracking.get("estimatedDelivery")).isEqualTo("19/03/2026");
+        assertThat(db.rows).containsKey(5L);
+        assertThat(db.events).isEmpty();
+    }
+
+    @Test
+    void unknownOrderIsReported() {
+        when(orderRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getTracking(9L)).hasMessageContaining("non trouvée");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, String>> history(Map<String, Object> tracking) {
+        return (List<Map<String, String>>) tracking.get("history");
+    }
+
+    private static void commit() {
+        takeSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static List<TransactionSynchronization> takeSynchronizations() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        return synchronizations;
+    }
+
+    private static Order order(Long id, OrderStatus status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber("CMD-" + id);
+        order.setOrderDate(ORDER_DATE);
+        order.setTotalAmount(new BigDecimal("150000"));
+        order.setStatus(status);
+        return order;
+    }
+
+    // Tables order_status_events et order_tracking en mémoire, requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private static final TypeReference<List<Map<String, String>>> HISTORY = new TypeReference<>() {};
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final Map<Long, Object[]> rows = new HashMap<>();
+        private final List<String> events = new ArrayList<>();
+        private int rowsRead;
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT INTO order_status_events")) {
+                events.add(args[1] + "->" + args[2]);
+                return 1;
+            }
+            if (sql.startsWith("INSERT INTO order_tracking") && sql.endsWith("DO NOTHING")) {
+                if (rows.containsKey((Long) args[0])) {
+                    return 0;
+                }
+                rows.put((Long) args[0], new Object[]{args[1], args[2], null, args[3], args[4], 0L});
+                return 1;
+            }
+            throw new IllegalArgumentException(sql);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.startsWith("INSERT INTO order_tracking")) {
+                throw new IllegalArgumentException(sql);
+            }
+            Long orderId = (Long) args[0];
+            Object[] row = rows.get(orderId);
+            if (row == null) {
+                row = new Object[]{args[1], args[2], args[3], args[4], args[5], 1L};
+            } else {
+                List<Map<String, String>> history = read((String) row[4]);
+                List<Map<String, String>> steps = read((String) args[5]);
+                history.add(steps.get(steps.size() - 1));
+                row = new Object[]{row[0], args[2], args[3] != null ? args[3] : row[2], args[4], write(history),
+                        (Long) row[5] + 1};
+            }
+            rows.put(orderId, row);
+            return map(rowMapper, orderId, row);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.startsWith("SELECT order_id")) {
+                throw new IllegalArgumentException(sql);
+            }
+            Object[] row = rows.get((Long) args[0]);
+            // SELECT ... AND version > ? : rien si la version connue est à jour
+            if (row == null || (sql.endsWith("AND version > ?") && (Long) row[5] <= (Long) args[1])) {
+                return List.of();
+            }
+            rowsRead++;
+            return List.of(map(rowMapper, (Long) args[0], row));
+        }
+
+        private static <T> T map(RowMapper<T> rowMapper, Long orderId, Object[] row) {
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("order_id")).thenReturn(orderId);
+                when(rs.getString("order_number")).thenReturn((String) row[0]);
+                when(rs.getString("status")).thenReturn((String) row[1]);
+                when(rs.getString("tracking_number")).thenReturn((String) row[2]);
+                when(rs.getDate("estimated_delivery")).thenReturn((Date) row[3]);
+                when(rs.getString("history")).thenReturn((String) row[4]);
+                when(rs.getLong("version")).thenReturn((Long) row[5]);
+                return rowMapper.mapRow(rs, 0);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private List<Map<String, String>> read(String json) {
+            try {
+                return new ArrayList<>(objectMapper.readValue(json, HISTORY));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private String write(List<Map<String, String>> history) {
+            try {
+                return objectMapper.writeValueAsString(history);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
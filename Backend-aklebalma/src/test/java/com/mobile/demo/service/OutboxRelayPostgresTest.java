@@ -0,0 +1,120 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OutboxEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Relais de l'outbox sur PostgreSQL : un événement verrouillé par un autre relais est sauté (SKIP LOCKED)
+// puis traité au passage suivant ; un échec est compté sans bloquer le reste du lot
+class OutboxRelayPostgresTest extends PostgresTestSupport {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    private final List<Long> handled = new CopyOnWriteArrayList<>();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        truncate("outbox_events");
+        OutboxEventHandler orders = new OutboxEventHandler() {
+            @Override
+            public boolean supports(OutboxEvent event) {
+                return "ORDER".equals(event.getAggregateType());
+            }
+
+            @Override
+            public void handle(OutboxEvent event, Map<String, Object> payload) {
+                if (event.getAggregateId() == 2L) {
+                    throw new RuntimeException("consommateur indisponible");
+                }
+                handled.add(event.getAggregateId());
+            }
+        };
+
+        relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(relay, "outboxService", outboxService);
+        ReflectionTestUtils.setField(relay, "handlers", List.of(orders));
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+    }
+
+    private void append(long orderId) {
+        transactionTemplate.executeWithoutResult(status -> outboxService.append("ORDER", orderId,
+                OutboxEventType.ORDER_CREATED, Map.of("orderId", orderId)));
+    }
+
+    private boolean processed(long orderId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT processed_at IS NOT NULL FROM outbox_events WHERE aggregate_id = ?", Boolean.class, orderId);
+    }
+
+    @Test
+    void eventLockedByAnotherRelayIsSkippedThenProcessedOnce() throws Exception {
+        append(1L);
+        append(3L);
+        append(4L);
+
+        ExecutorService otherRelay = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> holder = otherRelay.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("SELECT id FROM outbox_events WHERE aggregate_id = 1 FOR UPDATE", Long.class);
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            relay.relay();
+            assertThat(handled).containsExactly(3L, 4L);
+            assertThat(processed(1L)).isFalse();
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            otherRelay.shutdownNow();
+        }
+
+        relay.relay();
+        assertThat(handled).containsExactly(3L, 4L, 1L);
+        assertThat(processed(1L)).isTrue();
+    }
+
+    @Test
+    void failingEventIsCountedWhileTheRestOfTheBatchIsMarkedProcessed() {
+        append(1L);
+        append(2L);
+        append(3L);
+
+        relay.relay();
+
+        assertThat(processed(1L)).isTrue();
+        assertThat(processed(3L)).isTrue();
+        assertThat(processed(2L)).isFalse();
+        Map<String, Object> failed = jdbcTemplate.queryForMap(
+                "SELECT attempts, last_error FROM outbox_events WHERE aggregate_id = 2");
+        assertThat(failed.get("attempts")).isEqualTo(1);
+        assertThat(failed.get("last_error")).isEqualTo("consommateur indisponible");
+    }
+}
@@ -0,0 +1,249 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.OutboxEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Relais de l'outbox : lots dans l'ordre des ids, chaque événement traité une fois, échecs isolés et comptés
+class OutboxRelayTest {
+
+    private FakeDatabase db;
+    private OutboxRelay relay;
+    private List<Long> handled;
+    private Set<Long> failing;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        handled = new ArrayList<>();
+        failing = new HashSet<>();
+
+        OutboxService outboxService = new OutboxService();
+        ReflectionTestUtils.setField(outboxService, "objectMapper", new ObjectMapper());
+
+        OutboxEventHandler orders = new OutboxEventHandler() {
+            @Override
+            public boolean supports(OutboxEvent event) {
+                return "ORDER".equals(event.getAggregateType());
+            }
+
+            @Override
+            public void handle(OutboxEvent event, Map<String, Object> payload) {
+                if (failing.contains(event.getId())) {
+                    throw new RuntimeException("consommateur indisponible");
+                }
+                handled.add(event.getId());
+            }
+        };
+
+        relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "jdbcTemplate", db);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", new TransactionTemplate(transactionManager()));
+        ReflectionTestUtils.setField(relay, "outboxService", outboxService);
+        ReflectionTestUtils.setField(relay, "handlers", List.of(orders));
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+    }
+
+    // Les écritures d'un consommateur sont annulées avec la transaction du lot, comme en base
+    private PlatformTransactionManager transactionManager() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        int[] handledAtBegin = new int[1];
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            handledAtBegin[0] = handled.size();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> {
+            handled.subList(handledAtBegin[0], handled.size()).clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+        return transactionManager;
+    }
+
+    @Test
+    void eventsAreDeliveredOnceInIdOrderAcrossBatches() {
+        for (long id = 1; id <= 5; id++) {
+            db.add(id, "ORDER", "{\"orderId\":" + id + "}");
+        }
+
+        relay.relay();
+        relay.relay();
+
+        assertThat(handled).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(db.pending()).isEmpty();
+    }
+
+    @Test
+    void eventsWithoutHandlerAreStillMarkedProcessed() {
+        db.add(1L, "PAYMENT", "{}");
+        db.add(2L, "ORDER", "{}");
+
+        relay.relay();
+
+        assertThat(handled).containsExactly(2L);
+        assertThat(db.pending()).isEmpty();
+    }
+
+    @Test
+    void failingEventDoesNotBlockTheOthersAndIsRetried() {
+        for (long id = 1; id <= 4; id++) {
+            db.add(id, "ORDER", "{}");
+        }
+        failing.add(2L);
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+
+        relay.relay();
+
+        assertThat(handled).containsExactly(1L, 3L, 4L);
+        assertThat(db.pending()).containsExactly(2L);
+        assertThat(db.rows.get(2L).attempts).isEqualTo(1);
+        assertThat(db.rows.get(2L).lastError).isEqualTo("consommateur indisponible");
+
+        failing.clear();
+        relay.relay();
+
+        assertThat(handled).containsExactly(1L, 3L, 4L, 2L);
+        assertThat(db.pending()).isEmpty();
+    }
+
+    @Test
+    void eventIsLeftAsideAfterMaxAttempts() {
+        db.add(1L, "ORDER", "pas du json");
+
+        relay.relay();
+        assertThat(db.rows.get(1L).attempts).isEqualTo(1);
+
+        for (int i = 0; i < 4; i++) {
+            relay.relay();
+        }
+
+        assertThat(db.rows.get(1L).attempts).isEqualTo(3);
+        assertThat(db.rows.get(1L).processedAt).isNull();
+        assertThat(handled).isEmpty();
+    }
+
+    // Table outbox_events en mémoire, requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private final Map<Long, Row> rows = new TreeMap<>();
+
+        void add(Long id, String aggregateType, String payload) {
+            rows.put(id, new Row(id, aggregateType, payload));
+        }
+
+        List<Long> pending() {
+            return rows.values().stream().filter(row -> row.processedAt == null).map(row -> row.id).toList();
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.startsWith("SELECT id, aggregate_type")) {
+                throw new IllegalArgumentException(sql);
+            }
+            int maxAttempts = (Integer) args[0];
+            long after = (Long) args[1];
+            int limit = (Integer) args[2];
+            List<T> events = new ArrayList<>();
+            try {
+                for (Row row : rows.values()) {
+                    if (events.size() < limit && row.processedAt == null && row.attempts < maxAttempts
+                            && row.id > after) {
+                        events.add(rowMapper.mapRow(row.resultSet(), events.size()));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return events;
+        }
+
+        @Override
+        public int update(PreparedStatementCreator creator) {
+            try {
+                Connection connection = mock(Connection.class);
+                PreparedStatement statement = mock(PreparedStatement.class);
+                Object[][] ids = new Object[1][];
+                when(connection.prepareStatement(anyString())).thenReturn(statement);
+                when(connection.createArrayOf(eq("bigint"), any())).thenAnswer(invocation -> {
+                    ids[0] = invocation.getArgument(1);
+                    return mock(Array.class);
+                });
+                creator.createPreparedStatement(connection);
+                for (Object id : ids[0]) {
+                    rows.get((Long) id).processedAt = LocalDateTime.now();
+                }
+                return ids[0].length;
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (!sql.startsWith("UPDATE outbox_events SET attempts = attempts + 1")) {
+                throw new IllegalArgumentException(sql);
+            }
+            Row row = rows.get((Long) args[1]);
+            row.attempts++;
+            row.lastError = (String) args[0];
+            return 1;
+        }
+    }
+
+    private static final class Row {
+        private final Long id;
+        private final String aggregateType;
+        private final String payload;
+        private int attempts;
+        private String lastError;
+        private LocalDateTime processedAt;
+
+        Row(Long id, String aggregateType, String payload) {
+            this.id = id;
+            this.aggregateType = aggregateType;
+            this.payload = payload;
+        }
+
+        ResultSet resultSet() throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(id);
+            when(rs.getString("aggregate_type")).thenReturn(aggregateType);
+            when(rs.getLong("aggregate_id")).thenReturn(id);
+            when(rs.getString("event_type")).thenReturn(OutboxEventType.ORDER_CREATED.name());
+            when(rs.getString("payload")).thenReturn(payload);
+            when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+            when(rs.getInt("attempts")).thenReturn(attempts);
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Balayage des échéances sur PostgreSQL : la requête à CTE par plage d'id, plages en parallèle sur le même plan,
+// un seul événement de défaut, puis son traitement par le relais (score de crédit et notification)
+class OverduePaymentSweeperPostgresTest extends PostgresTestSupport {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    private OverduePaymentSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        truncate("payments", "payment_plans", "outbox_events", "credit_scores", "notifications");
+        // Plages de deux ids traitées par deux threads : plusieurs plages touchent le même plan
+        sweeper = new OverduePaymentSweeper(2);
+        ReflectionTestUtils.setField(sweeper, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(sweeper, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(sweeper, "outboxService", outboxService);
+        ReflectionTestUtils.setField(sweeper, "chunkSize", 2L);
+        ReflectionTestUtils.setField(sweeper, "graceDays", 0);
+        ReflectionTestUtils.setField(sweeper, "defaultAfterInstallments", 2);
+        ReflectionTestUtils.setField(sweeper, "defaultAfterDays", 90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweeper.shutdown();
+    }
+
+    private long plan(long userId) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO payment_plans (number_of_installments, total_amount, installment_amount, start_date, status, " +
+                "order_id, user_id, paid_installments, amount_paid, remaining_amount, overdue_installments, overdue_amount) " +
+                "VALUES (6, 300000, 50000, ?, 'ACTIVE', 100, ?, 0, 0, 300000, 0, 0) RETURNING id",
+                Long.class, Timestamp.valueOf(LocalDateTime.now().minusMonths(3)), userId);
+    }
+
+    private void payment(long planId, long userId, String status, int dueInDays) {
+        jdbcTemplate.update("INSERT INTO payments (amount, due_date, status, payment_plan_id, user_id) " +
+                        "VALUES (50000, ?, ?, ?, ?)",
+                Timestamp.valueOf(LocalDateTime.now().plusDays(dueInDays)), status, planId, userId);
+    }
+
+    private Map<String, Object> planRow(long planId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT status, overdue_installments, overdue_amount FROM payment_plans WHERE id = ?", planId);
+    }
+
+    @Test
+    void overduePaymentsAreSweptAcrossChunksAndThePlanDefaultsOnce() {
+        long late = plan(7L);
+        payment(late, 7L, "PENDING", -40);
+        payment(late, 7L, "PENDING", -10);
+        payment(late, 7L, "PARTIAL", -5);
+        payment(late, 7L, "PENDING", 20);
+        long onTime = plan(8L);
+        payment(onTime, 8L, "PENDING", -3);
+        payment(onTime, 8L, "COMPLETED", -30);
+
+        Map<String, Object> result = sweeper.sweep();
+
+        assertThat(result.get("overduePayments")).isEqualTo(4);
+        assertThat(result.get("defaultedPlans")).isEqualTo(1);
+        assertThat(result.get("chunks")).isEqualTo(3);
+        // L'échéance PARTIAL compte comme échéance en retard, pas son montant
+        assertThat(planRow(late).get("status")).isEqualTo("DEFAULTED");
+        assertThat(planRow(late).get("overdue_installments")).isEqualTo(3);
+        assertThat((BigDecimal) planRow(late).get("overdue_amount")).isEqualByComparingTo("100000");
+        assertThat(planRow(onTime).get("status")).isEqualTo("ACTIVE");
+        assertThat(planRow(onTime).get("overdue_installments")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM payments WHERE status = 'OVERDUE'", Integer.class))
+                .isEqualTo(4);
+        assertThat(jdbcTemplate.queryForList("SELECT aggregate_id FROM outbox_events WHERE aggregate_type = 'PAYMENT_PLAN'",
+                Long.class)).containsExactly(late);
+
+        Map<String, Object> again = sweeper.sweep();
+        assertThat(again.get("overduePayments")).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void defaultEventLowersTheCreditScoreAndNotifiesTheUser() {
+        jdbcTemplate.update("INSERT INTO credit_scores (score, credit_limit, last_updated, risk_level, user_id) " +
+                "VALUES (650, 1000000, ?, 'LOW', 7)", Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        long late = plan(7L);
+        payment(late, 7L, "PENDING", -40);
+        payment(late, 7L, "PENDING", -10);
+
+        sweeper.sweep();
+        relay.relay();
+        relay.relay();
+
+        Map<String, Object> score = jdbcTemplate.queryForMap("SELECT score, risk_level FROM credit_scores WHERE user_id = 7");
+        assertThat(score.get("score")).isEqualTo(450);
+        assertThat(score.get("risk_level")).isEqualTo("HIGH");
+        assertThat(jdbcTemplate.queryForList("SELECT type FROM notifications WHERE user_id = 7 AND title = ?",
+                String.class, "Plan de paiement en défaut")).containsExactly("PAYMENT");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events WHERE processed_at IS NULL",
+                Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,130 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.enums.OutboxEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Échéances en retard : découpage en plages d'id et un seul événement par plan passé en défaut
+class OverduePaymentSweeperTest {
+
+    private FakeDatabase db;
+    private OutboxService outboxService;
+    private OverduePaymentSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        outboxService = mock(OutboxService.class);
+        sweeper = new OverduePaymentSweeper(3);
+        ReflectionTestUtils.setField(sweeper, "jdbcTemplate", db);
+        ReflectionTestUtils.setField(sweeper, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(sweeper, "outboxService", outboxService);
+        ReflectionTestUtils.setField(sweeper, "chunkSize", 5000L);
+        ReflectionTestUtils.setField(sweeper, "defaultAfterInstallments", 2);
+        ReflectionTestUtils.setField(sweeper, "defaultAfterDays", 90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweeper.shutdown();
+    }
+
+    @Test
+    void candidatesAreSplitIntoContiguousIdRanges() {
+        db.minId = 1L;
+        db.maxId = 12_000L;
+
+        Map<String, Object> result = sweeper.sweep();
+
+        assertThat(result.get("chunks")).isEqualTo(3);
+        assertThat(db.ranges).containsExactlyInAnyOrder(
+                List.of(1L, 5000L), List.of(5001L, 10000L), List.of(10001L, 12000L));
+    }
+
+    @Test
+    void nothingToSweepRunsNoRange() {
+        Map<String, Object> result = sweeper.sweep();
+
+        assertThat(result.get("chunks")).isEqualTo(0);
+        assertThat(db.ranges).isEmpty();
+    }
+
+    @Test
+    void onlyThePlanCrossingTheThresholdEmitsAnEvent() {
+        db.minId = 1L;
+        db.maxId = 100L;
+        // Plan 1 franchit le seuil dans cette plage, plan 2 était déjà au-delà
+        db.plans.add(plan(1L, "DEFAULTED", "ACTIVE", 2, 2));
+        db.plans.add(plan(2L, "DEFAULTED", "ACTIVE", 3, 1));
+        db.plans.add(plan(3L, "ACTIVE", "ACTIVE", 1, 1));
+
+        Map<String, Object> result = sweeper.sweep();
+
+        assertThat(result.get("overduePayments")).isEqualTo(4);
+        assertThat(result.get("defaultedPlans")).isEqualTo(1);
+        verify(outboxService, times(1)).append(eq("PAYMENT_PLAN"), eq(1L),
+                eq(OutboxEventType.PAYMENT_STATUS_CHANGED), anyMap());
+        verify(outboxService, times(1)).append(any(), any(), any(), anyMap());
+    }
+
+    private static Map<String, Object> plan(Long id, String status, String previous, int overdue, int swept) {
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("id", id);
+        plan.put("order_id", 10L + id);
+        plan.put("user_id", 7L);
+        plan.put("status", status);
+        plan.put("previous_status", previous);
+        plan.put("overdue_installments", overdue);
+        plan.put("swept", swept);
+        return plan;
+    }
+
+    // Requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private Long minId;
+        private Long maxId;
+        private final List<Map<String, Object>> plans = new ArrayList<>();
+        private final List<List<Long>> ranges = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Map<String, Object> queryForMap(String sql, Object... args) {
+            Map<String, Object> bounds = new HashMap<>();
+            bounds.put("min", minId);
+            bounds.put("max", maxId);
+            return bounds;
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            if (sql.startsWith("WITH overdue AS")) {
+                ranges.add(List.of((Long) args[0], (Long) args[1]));
+                // Les lignes de plan ne sont renvoyées que par la première plage
+                return (Long) args[0] == 1L ? plans : List.of();
+            }
+            if (sql.startsWith("UPDATE payment_plans p SET status = 'DEFAULTED'")) {
+                return List.of();
+            }
+            throw new IllegalArgumentException(sql);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.OutboxEvent;
+import com.mobile.demo.enums.NotificationType;
+import com.mobile.demo.enums.OutboxEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// Plan en défaut : notification de paiement et baisse du score de crédit, une fois par événement
+class PaymentPlanDefaultHandlerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private PaymentPlanDefaultHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(handler, "scorePenalty", 200);
+    }
+
+    @Test
+    void onlyPaymentPlanStatusEventsAreHandled() {
+        assertThat(handler.supports(event("PAYMENT_PLAN", OutboxEventType.PAYMENT_STATUS_CHANGED))).isTrue();
+        assertThat(handler.supports(event("ORDER", OutboxEventType.ORDER_STATUS_CHANGED))).isFalse();
+        assertThat(handler.supports(event("ORDER", OutboxEventType.ORDER_CANCELLED))).isFalse();
+    }
+
+    @Test
+    void defaultedPlanLowersTheScoreAndNotifiesTheUser() {
+        handler.handle(event("PAYMENT_PLAN", OutboxEventType.PAYMENT_STATUS_CHANGED), payload("DEFAULTED"));
+
+        verify(jdbcTemplate).update(startsWith("UPDATE credit_scores SET score = GREATEST(score - ?, 0)"),
+                eq(200), any(Timestamp.class), eq(7L));
+        verify(notificationService).createNotification(eq("Plan de paiement en défaut"), contains("45000"),
+                eq(NotificationType.PAYMENT), eq(7L), eq("HIGH"));
+    }
+
+    @Test
+    void otherStatusChangesAreIgnored() {
+        handler.handle(event("PAYMENT_PLAN", OutboxEventType.PAYMENT_STATUS_CHANGED), payload("ACTIVE"));
+
+        verifyNoInteractions(jdbcTemplate, notificationService);
+    }
+
+    private static OutboxEvent event(String aggregateType, OutboxEventType type) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(1L);
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(12L);
+        event.setEventType(type);
+        return event;
+    }
+
+    private static Map<String, Object> payload(String status) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("planId", 12);
+        payload.put("orderId", 30);
+        payload.put("userId", 7);
+        payload.put("status", status);
+        payload.put("previousStatus", "ACTIVE");
+        payload.put("overdueInstallments", 2);
+        payload.put("overdueAmount", "45000");
+        return payload;
+    }
+}
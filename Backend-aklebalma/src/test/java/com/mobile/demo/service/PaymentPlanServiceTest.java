@@ -0,0 +1,141 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Échéanciers : arrondi au centime inférieur, reste sur la dernière échéance, insertions par lots
+class PaymentPlanServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 31, 10, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PaymentPlanService paymentPlanService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(paymentPlanService, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(paymentPlanService, "importBatchSize", 2);
+    }
+
+    @Test
+    void remainderGoesToTheLastInstallment() {
+        List<PaymentPlanService.Installment> schedule =
+                PaymentPlanService.schedule(new BigDecimal("100.00"), 3, START);
+
+        assertThat(schedule).extracting(PaymentPlanService.Installment::getAmount)
+                .containsExactly(new BigDecimal("33.33"), new BigDecimal("33.33"), new BigDecimal("33.34"));
+        assertThat(sum(schedule)).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void everyAllowedCountAddsUpToTheTotal() {
+        for (String total : List.of("0.01", "999.99", "1250000", "1234567.89")) {
+            for (int installments : PaymentPlanService.ALLOWED_INSTALLMENTS) {
+                List<PaymentPlanService.Installment> schedule =
+                        PaymentPlanService.schedule(new BigDecimal(total), installments, START);
+
+                assertThat(schedule).hasSize(installments);
+                assertThat(sum(schedule)).isEqualByComparingTo(total);
+                // Toutes les échéances sauf la dernière sont égales et jamais supérieures à la dernière
+                BigDecimal regular = schedule.get(0).getAmount();
+                assertThat(schedule.subList(0, installments - 1))
+                        .allSatisfy(installment -> assertThat(installment.getAmount()).isEqualByComparingTo(regular));
+                assertThat(schedule.get(installments - 1).getAmount()).isGreaterThanOrEqualTo(regular);
+            }
+        }
+    }
+
+    @Test
+    void dueDatesAreMonthlyFromTheStartDate() {
+        List<PaymentPlanService.Installment> schedule =
+                PaymentPlanService.schedule(new BigDecimal("400"), 4, START);
+
+        assertThat(schedule).extracting(PaymentPlanService.Installment::getDueDate).containsExactly(
+                LocalDateTime.of(2026, 2, 28, 10, 0),
+                LocalDateTime.of(2026, 3, 31, 10, 0),
+                LocalDateTime.of(2026, 4, 30, 10, 0),
+                LocalDateTime.of(2026, 5, 31, 10, 0));
+        assertThat(schedule).extracting(PaymentPlanService.Installment::getNumber).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void planInsertsAllItsInstallmentsInOneBatch() {
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO payment_plans"), eq(Long.class), any(Object[].class)))
+                .thenReturn(42L);
+
+        Map<String, Object> plan = paymentPlanService.createPlan(5L, 7L, new BigDecimal("1000.00"), 6);
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO payments"), rows.capture());
+        assertThat(rows.getValue()).hasSize(6);
+        assertThat(rows.getValue()).allSatisfy(row -> assertThat(row[3]).isEqualTo(42L));
+        assertThat(plan.get("installmentAmount")).isEqualTo(new BigDecimal("166.66"));
+        assertThat((List<?>) plan.get("installments")).hasSize(6);
+    }
+
+    @Test
+    void importInsertsByBatchesOfTheConfiguredSize() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT nextval"), eq(Long.class), anyInt()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, (int) invocation.getArgument(2))
+                        .boxed().toList());
+        List<PaymentPlanService.NewPlan> plans = new ArrayList<>();
+        for (long i = 0; i < 5; i++) {
+            plans.add(new PaymentPlanService.NewPlan(i, 7L, new BigDecimal("300"), 3, START));
+        }
+
+        Map<String, Object> result = paymentPlanService.importPlans(plans);
+
+        assertThat(result).containsEntry("plans", 5).containsEntry("payments", 15).containsEntry("batches", 3);
+        verify(jdbcTemplate, times(3)).batchUpdate(startsWith("INSERT INTO payment_plans"), anyList());
+        verify(jdbcTemplate, times(3)).batchUpdate(startsWith("INSERT INTO payments"), anyList());
+    }
+
+    @Test
+    void invalidImportLineIsRejectedBeforeAnyInsert() {
+        List<PaymentPlanService.NewPlan> plans = List.of(
+                new PaymentPlanService.NewPlan(1L, 7L, new BigDecimal("300"), 3, START),
+                new PaymentPlanService.NewPlan(2L, 7L, new BigDecimal("300"), 7, START));
+
+        assertThatThrownBy(() -> paymentPlanService.importPlans(plans))
+                .hasMessageStartingWith("Ligne 2");
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+    }
+
+    private static BigDecimal sum(List<PaymentPlanService.Installment> schedule) {
+        return schedule.stream().map(PaymentPlanService.Installment::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,110 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rappels d'échéance sur PostgreSQL : lecture de la fenêtre avec les décalages déjà envoyés (ARRAY),
+// réservation par unnest ... ON CONFLICT DO NOTHING, aucun doublon après un redémarrage
+class PaymentReminderSchedulerPostgresTest extends PostgresTestSupport {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 17);
+
+    private long dueInThreeDays;
+    private long dueTomorrow;
+    private long dueToday;
+
+    @BeforeEach
+    void setUp() {
+        truncate("payments", "payment_reminders", "notifications");
+        // Rappels à 9 h : J-3, J-1 et jour J tombent tous aujourd'hui
+        dueInThreeDays = payment(7L, "45000", TODAY.plusDays(3));
+        dueTomorrow = payment(8L, "30000", TODAY.plusDays(1));
+        dueToday = payment(9L, "15000", TODAY);
+    }
+
+    private long payment(long userId, String amount, LocalDate dueDate) {
+        return jdbcTemplate.queryForObject("INSERT INTO payments (amount, due_date, status, user_id) " +
+                        "VALUES (CAST(? AS numeric), ?, 'PENDING', ?) RETURNING id",
+                Long.class, amount, Timestamp.valueOf(dueDate.atStartOfDay()), userId);
+    }
+
+    private PaymentReminderScheduler newInstance() {
+        PaymentReminderScheduler scheduler = new PaymentReminderScheduler();
+        ReflectionTestUtils.setField(scheduler, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(scheduler, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(scheduler, "offsetsDays", new int[]{3, 1, 0});
+        ReflectionTestUtils.setField(scheduler, "reminderHour", 9);
+        ReflectionTestUtils.setField(scheduler, "windowHours", 24L);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 2);
+        return scheduler;
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    @Test
+    void remindersAreClaimedNotifiedAndStampedAtTheirHour() {
+        PaymentReminderScheduler scheduler = newInstance();
+
+        scheduler.tick(TODAY.atTime(8, 0));
+        assertThat(count("SELECT count(*) FROM notifications")).isZero();
+
+        scheduler.tick(TODAY.atTime(9, 1));
+
+        assertThat(jdbcTemplate.queryForList("SELECT payment_id || ':' || offset_days FROM payment_reminders", String.class))
+                .containsExactlyInAnyOrder(dueInThreeDays + ":3", dueTomorrow + ":1", dueToday + ":0");
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM notifications WHERE type = 'PAYMENT'", Long.class))
+                .containsExactlyInAnyOrder(7L, 8L, 9L);
+        assertThat(jdbcTemplate.queryForList("SELECT message FROM notifications WHERE user_id = 9", String.class))
+                .containsExactly("Votre échéance de 15000.00 FCFA est due aujourd'hui");
+        assertThat(count("SELECT count(*) FROM payments WHERE reminder_sent_at IS NULL")).isZero();
+    }
+
+    @Test
+    void restartedInstanceSkipsRemindersAlreadySent() {
+        newInstance().tick(TODAY.atTime(9, 1));
+
+        PaymentReminderScheduler restarted = newInstance();
+        restarted.tick(TODAY.atTime(10, 0));
+        restarted.tick(TODAY.atTime(10, 1));
+
+        assertThat(count("SELECT count(*) FROM payment_reminders")).isEqualTo(3);
+        assertThat(count("SELECT count(*) FROM notifications")).isEqualTo(3);
+    }
+
+    @Test
+    void twoInstancesLoadingTheSameWindowSendEachReminderOnce() {
+        PaymentReminderScheduler first = newInstance();
+        PaymentReminderScheduler second = newInstance();
+        first.tick(TODAY.atTime(8, 0));
+        second.tick(TODAY.atTime(8, 0));
+
+        first.tick(TODAY.atTime(9, 1));
+        second.tick(TODAY.atTime(9, 1));
+
+        assertThat(count("SELECT count(*) FROM payment_reminders")).isEqualTo(3);
+        assertThat(count("SELECT count(*) FROM notifications")).isEqualTo(3);
+    }
+
+    @Test
+    void paymentSettledAfterTheWindowWasLoadedIsNotReminded() {
+        PaymentReminderScheduler scheduler = newInstance();
+        scheduler.tick(TODAY.atTime(8, 0));
+        jdbcTemplate.update("UPDATE payments SET status = 'COMPLETED' WHERE id = ?", dueTomorrow);
+
+        scheduler.tick(TODAY.atTime(9, 1));
+
+        assertThat(jdbcTemplate.queryForList("SELECT payment_id FROM payment_reminders", Long.class))
+                .containsExactlyInAnyOrder(dueInThreeDays, dueToday);
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM notifications", Long.class))
+                .containsExactlyInAnyOrder(7L, 9L);
+    }
+}
@@ -0,0 +1,277 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Rappels d'échéance : une lecture par fenêtre, envoi par lots à l'heure prévue,
+// rattrapage au redémarrage et réservation qui empêche tout doublon
+class PaymentReminderSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 17);
+
+    private FakeDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeDatabase();
+        // Rappels à 9 h : J-3, J-1 et jour J tombent tous aujourd'hui
+        db.payment(1L, 7L, "45000", TODAY.plusDays(3));
+        db.payment(2L, 8L, "30000", TODAY.plusDays(1));
+        db.payment(3L, 9L, "15000", TODAY);
+    }
+
+    private PaymentReminderScheduler newInstance(int batchSize) {
+        PaymentReminderScheduler scheduler = new PaymentReminderScheduler();
+        ReflectionTestUtils.setField(scheduler, "jdbcTemplate", db);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(scheduler, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(scheduler, "offsetsDays", new int[]{3, 1, 0});
+        ReflectionTestUtils.setField(scheduler, "reminderHour", 9);
+        ReflectionTestUtils.setField(scheduler, "windowHours", 24L);
+        ReflectionTestUtils.setField(scheduler, "batchSize", batchSize);
+        return scheduler;
+    }
+
+    @Test
+    void windowIsReadOnceAndRemindersLeaveAtTheirHour() {
+        PaymentReminderScheduler scheduler = newInstance(500);
+
+        scheduler.tick(TODAY.atTime(8, 0));
+        scheduler.tick(TODAY.atTime(8, 30));
+        assertThat(db.notifications).isEmpty();
+
+        scheduler.tick(TODAY.atTime(9, 1));
+        scheduler.tick(TODAY.atTime(9, 2));
+
+        assertThat(db.windowScans).isEqualTo(1);
+        assertThat(db.claims).containsExactlyInAnyOrder("1:3", "2:1", "3:0");
+        assertThat(db.notifications).extracting(row -> row[4]).containsExactlyInAnyOrder(7L, 8L, 9L);
+        assertThat(db.notifications).extracting(row -> (String) row[1])
+                .contains("Votre échéance de 15000 FCFA est due aujourd'hui", "Votre prochaine échéance de 45000 FCFA est due le 20/03/2026");
+        assertThat(db.remindedPaymentIds).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        // Fenêtre suivante lue une seule fois au passage de minuit
+        scheduler.tick(TODAY.plusDays(1).atTime(0, 0));
+        scheduler.tick(TODAY.plusDays(1).atTime(0, 1));
+        assertThat(db.windowScans).isEqualTo(2);
+    }
+
+    @Test
+    void restartAfterTheHourCatchesUpOnlyTheRemindersNotSentYet() {
+        // Avant l'arrêt, le rappel J-3 du paiement 1 est parti
+        db.claims.add("1:3");
+
+        newInstance(500).tick(TODAY.atTime(10, 0));
+
+        assertThat(db.claims).containsExactlyInAnyOrder("1:3", "2:1", "3:0");
+        assertThat(db.notifications).extracting(row -> row[4]).containsExactlyInAnyOrder(8L, 9L);
+    }
+
+    @Test
+    void twoInstancesSendEachReminderOnce() {
+        PaymentReminderScheduler first = newInstance(500);
+        PaymentReminderScheduler second = newInstance(500);
+        first.tick(TODAY.atTime(8, 0));
+        second.tick(TODAY.atTime(8, 0));
+
+        first.tick(TODAY.atTime(9, 1));
+        second.tick(TODAY.atTime(9, 1));
+
+        assertThat(db.notifications).hasSize(3);
+        assertThat(db.claimCalls).isEqualTo(2);
+    }
+
+    @Test
+    void remindersAreClaimedInBatchesAndAFailedBatchIsRetriedOnTheNextTick() {
+        PaymentReminderScheduler scheduler = newInstance(2);
+        scheduler.tick(TODAY.atTime(8, 0));
+        db.failNextClaim = true;
+
+        scheduler.tick(TODAY.atTime(9, 1));
+        assertThat(db.notifications).hasSize(1);
+
+        scheduler.tick(TODAY.atTime(9, 2));
+        assertThat(db.notifications).hasSize(3);
+        assertThat(db.claimCalls).isEqualTo(3);
+    }
+
+    @Test
+    void paidPaymentIsNotRemindedEvenIfAlreadyScheduled() {
+        PaymentReminderScheduler scheduler = newInstance(500);
+        scheduler.tick(TODAY.atTime(8, 0));
+        db.payments.get(2L).status = "COMPLETED";
+
+        scheduler.tick(TODAY.atTime(9, 1));
+
+        assertThat(db.notifications).extracting(row -> row[4]).containsExactlyInAnyOrder(7L, 9L);
+    }
+
+    // Tables payments, payment_reminders et notifications en mémoire, requêtes reconnues par leur début
+    private static final class FakeDatabase extends JdbcTemplate {
+        private final Map<Long, PaymentRow> payments = new LinkedHashMap<>();
+        private final Set<String> claims = new HashSet<>();
+        private final List<Object[]> notifications = new ArrayList<>();
+        private final Set<Long> remindedPaymentIds = new HashSet<>();
+        private int windowScans;
+        private int claimCalls;
+        private boolean failNextClaim;
+
+        private static final class PaymentRow {
+            private final long id;
+            private final Long userId;
+            private final BigDecimal amount;
+            private final LocalDateTime dueDate;
+            private String status = "PENDING";
+
+            PaymentRow(long id, Long userId, BigDecimal amount, LocalDateTime dueDate) {
+                this.id = id;
+                this.userId = userId;
+                this.amount = amount;
+                this.dueDate = dueDate;
+            }
+        }
+
+        void payment(long id, Long userId, String amount, LocalDate dueDate) {
+            payments.put(id, new PaymentRow(id, userId, new BigDecimal(amount), dueDate.atStartOfDay()));
+        }
+
+        private boolean due(PaymentRow payment) {
+            return payment.status.equals("PENDING") || payment.status.equals("PARTIAL");
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            if (!sql.startsWith("SELECT p.id, p.user_id")) {
+                throw new IllegalArgumentException(sql);
+            }
+            windowScans++;
+            LocalDateTime from = ((Timestamp) args[0]).toLocalDateTime();
+            LocalDateTime to = ((Timestamp) args[1]).toLocalDateTime();
+            try {
+                for (PaymentRow payment : payments.values()) {
+                    if (!due(payment) || payment.dueDate.isBefore(from) || !payment.dueDate.isBefore(to)) {
+                        continue;
+                    }
+                    List<Integer> sent = new ArrayList<>();
+                    for (String claim : claims) {
+                        if (claim.startsWith(payment.id + ":")) {
+                            sent.add(Integer.valueOf(claim.substring(claim.indexOf(':') + 1)));
+                        }
+                    }
+                    ResultSet rs = mock(ResultSet.class);
+                    Array array = mock(Array.class);
+                    when(array.getArray()).thenReturn(sent.toArray(new Integer[0]));
+                    when(rs.getArray("sent")).thenReturn(array);
+                    when(rs.getTimestamp("due_date")).thenReturn(Timestamp.valueOf(payment.dueDate));
+                    when(rs.getLong("id")).thenReturn(payment.id);
+                    when(rs.getObject("user_id", Long.class)).thenReturn(payment.userId);
+                    when(rs.getBigDecimal("amount")).thenReturn(payment.amount);
+                    handler.processRow(rs);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Réservation : INSERT ... SELECT FROM unnest(...) ON CONFLICT DO NOTHING RETURNING
+        @Override
+        public <T> List<T> query(PreparedStatementCreator creator, RowMapper<T> rowMapper) {
+            List<Object[]> arrays = run(creator, "INSERT INTO payment_reminders");
+            claimCalls++;
+            if (failNextClaim) {
+                failNextClaim = false;
+                throw new IllegalStateException("connexion perdue");
+            }
+            Object[] paymentIds = arrays.get(0);
+            Object[] offsets = arrays.get(1);
+            List<T> claimed = new ArrayList<>();
+            try {
+                for (int i = 0; i < paymentIds.length; i++) {
+                    PaymentRow payment = payments.get((Long) paymentIds[i]);
+                    String key = paymentIds[i] + ":" + offsets[i];
+                    if (payment == null || !due(payment) || !claims.add(key)) {
+                        continue;
+                    }
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong("payment_id")).thenReturn((Long) paymentIds[i]);
+                    when(rs.getInt("offset_days")).thenReturn((Integer) offsets[i]);
+                    claimed.add(rowMapper.mapRow(rs, claimed.size()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return claimed;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (!sql.startsWith("INSERT INTO notifications")) {
+                throw new IllegalArgumentException(sql);
+            }
+            notifications.addAll(batchArgs);
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public int update(PreparedStatementCreator creator) {
+            for (Object id : run(creator, "UPDATE payments SET reminder_sent_at").get(0)) {
+                remindedPaymentIds.add((Long) id);
+            }
+            return remindedPaymentIds.size();
+        }
+
+        // Exécute la préparation de la requête et renvoie les tableaux SQL qu'elle a créés
+        private static List<Object[]> run(PreparedStatementCreator creator, String expectedStart) {
+            List<Object[]> arrays = new ArrayList<>();
+            try {
+                Connection connection = mock(Connection.class);
+                when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+                    String sql = invocation.getArgument(0);
+                    if (!sql.startsWith(expectedStart)) {
+                        throw new IllegalArgumentException(sql);
+                    }
+                    return mock(PreparedStatement.class);
+                });
+                when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                    arrays.add(invocation.getArgument(1));
+                    return mock(Array.class);
+                });
+                creator.createPreparedStatement(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return arrays;
+        }
+    }
+}
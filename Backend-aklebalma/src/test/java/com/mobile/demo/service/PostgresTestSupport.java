@@ -0,0 +1,56 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Base des tests sur une vraie base PostgreSQL : les requêtes propres à PostgreSQL (RETURNING, ON CONFLICT,
+// CTE, unnest, SKIP LOCKED) y sont exécutées telles quelles. Schéma créé par Hibernate puis schema.sql, comme en prod.
+// Lancés seulement si TEST_DATABASE_URL pointe vers une base jetable : chaque test vide les tables qu'il utilise.
+//   TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/aklebalma_test mvn test
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // Tâches planifiées espacées : les tests appellent eux-mêmes les services
+        "outbox.relay-interval-ms=86400000",
+        "flashsale.flush-interval-ms=86400000",
+        "pricing.boundary-check-ms=86400000",
+        "stock.reservation.expiry-check-ms=86400000",
+        "idempotency.purge-interval-ms=86400000",
+        "payments.reminder-tick-ms=86400000"
+})
+abstract class PostgresTestSupport {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    // Sans base de test, les classes filles sont ignorées avant le démarrage du contexte
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(!env("TEST_DATABASE_URL", "").isEmpty(), "TEST_DATABASE_URL non défini");
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_DATABASE_URL"));
+        registry.add("spring.datasource.username", () -> env("TEST_DATABASE_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> env("TEST_DATABASE_PASSWORD", "postgres"));
+    }
+
+    protected void truncate(String... tables) {
+        jdbcTemplate.execute("TRUNCATE " + String.join(", ", tables) + " RESTART IDENTITY");
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
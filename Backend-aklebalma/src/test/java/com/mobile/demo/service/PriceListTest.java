@@ -0,0 +1,121 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.entity.Promotion;
+import com.mobile.demo.enums.PromotionScope;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Liste de prix : cumul des remises cumulables, meilleure remise exclusive, fin de validité aux bornes des campagnes
+class PriceListTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 11, 10, 12, 0);
+
+    @Test
+    void stackablePromotionsMultiply() {
+        PriceList prices = priceList(
+                promotion(1L, PromotionScope.BRAND, "10", true, 0),
+                promotion(2L, PromotionScope.CATEGORY, "20", true, 0));
+
+        PriceList.ProductPrice price = prices.get(1L);
+
+        assertThat(price.getEffectivePrice()).isEqualByComparingTo("72000.00");
+        assertThat(price.getDiscount()).isEqualByComparingTo("28000.00");
+        assertThat(price.getPromotionIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void exclusivePromotionWinsOnlyWhenItIsCheaper() {
+        PriceList cheaperExclusive = priceList(
+                promotion(1L, PromotionScope.BRAND, "10", true, 0),
+                promotion(2L, PromotionScope.PRODUCT, "25", false, 0));
+        PriceList cheaperStack = priceList(
+                promotion(1L, PromotionScope.BRAND, "20", true, 0),
+                promotion(2L, PromotionScope.CATEGORY, "20", true, 0),
+                promotion(3L, PromotionScope.PRODUCT, "30", false, 0));
+
+        assertThat(cheaperExclusive.get(1L).getPromotionIds()).containsExactly(2L);
+        assertThat(cheaperExclusive.get(1L).getEffectivePrice()).isEqualByComparingTo("75000.00");
+        assertThat(cheaperStack.get(1L).getPromotionIds()).containsExactly(1L, 2L);
+        assertThat(cheaperStack.get(1L).getEffectivePrice()).isEqualByComparingTo("64000.00");
+    }
+
+    @Test
+    void amongExclusivesTheBiggestDiscountThenThePriorityWins() {
+        PriceList prices = priceList(
+                promotion(1L, PromotionScope.BRAND, "15", false, 9),
+                promotion(2L, PromotionScope.CATEGORY, "15", false, 1),
+                promotion(3L, PromotionScope.PRODUCT, "5", false, 99));
+
+        assertThat(prices.get(1L).getPromotionIds()).containsExactly(1L);
+    }
+
+    @Test
+    void otherProductsAndInactivePromotionsAreIgnored() {
+        Promotion inactive = promotion(1L, PromotionScope.BRAND, "50", true, 0);
+        inactive.setActive(false);
+        Promotion otherProduct = promotion(2L, PromotionScope.PRODUCT, "50", true, 0);
+        otherProduct.setTargetId(2L);
+
+        PriceList.ProductPrice price = priceList(inactive, otherProduct).get(1L);
+
+        assertThat(price.getEffectivePrice()).isEqualByComparingTo("100000.00");
+        assertThat(price.getPromotionIds()).isEmpty();
+    }
+
+    @Test
+    void pricesAreRoundedHalfUpToTheCent() {
+        Product product = galaxy();
+        product.setPrice(new BigDecimal("99.99"));
+        PriceList prices = new PriceList(1, 1, NOW, List.of(product),
+                List.of(promotion(1L, PromotionScope.BRAND, "33.5", true, 0)));
+
+        assertThat(prices.get(1L).getEffectivePrice()).isEqualTo(new BigDecimal("66.49"));
+    }
+
+    @Test
+    void listExpiresAtTheNextCampaignStartOrEnd() {
+        Promotion running = promotion(1L, PromotionScope.BRAND, "10", true, 0);
+        running.setEndsAt(NOW.plusDays(3));
+        Promotion upcoming = promotion(2L, PromotionScope.BRAND, "10", true, 0);
+        upcoming.setStartsAt(NOW.plusDays(1));
+        upcoming.setEndsAt(NOW.plusDays(5));
+
+        PriceList prices = priceList(running, upcoming);
+
+        assertThat(prices.get(1L).getPromotionIds()).containsExactly(1L);
+        assertThat(prices.isExpiredAt(NOW.plusDays(1).minusSeconds(1))).isFalse();
+        assertThat(prices.isExpiredAt(NOW.plusDays(1))).isTrue();
+        assertThat(priceList().isExpiredAt(NOW.plusYears(1))).isFalse();
+    }
+
+    private static PriceList priceList(Promotion... promotions) {
+        return new PriceList(1, 1, NOW, List.of(galaxy()), List.of(promotions));
+    }
+
+    private static Product galaxy() {
+        return product(1L).name("Galaxy A15").brand("Samsung").category(10L).build();
+    }
+
+    private static Promotion promotion(Long id, PromotionScope scope, String percentage, boolean stackable, int priority) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setName("Promo " + id);
+        promotion.setScope(scope);
+        promotion.setTargetId(scope == PromotionScope.PRODUCT ? 1L : 10L);
+        promotion.setTargetBrand("samsung ");
+        promotion.setDiscountPercentage(new BigDecimal(percentage));
+        promotion.setStackable(stackable);
+        promotion.setPriority(priority);
+        promotion.setActive(true);
+        promotion.setStartsAt(NOW.minusDays(1));
+        promotion.setEndsAt(NOW.plusDays(10));
+        return promotion;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mobile.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.demo.entity.Product;
+import com.mobile.demo.entity.Promotion;
+import com.mobile.demo.enums.PromotionScope;
+import com.mobile.demo.repository.PromotionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Lectures du catalogue : prix effectif pris dans la liste de prix, prix catalogue pour un produit absent
+class PricingServiceTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @InjectMocks
+    private PricingService pricingService;
+
+    private Product phone;
+    private Product tablet;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        phone = product(1L).category(10L).build();
+        tablet = product(2L).category(20L).price("200000").addedDaysAgo(1).build();
+        when(productService.getCatalog()).thenReturn(new CatalogSnapshot(1L, List.of(phone, tablet)));
+
+        Promotion promotion = new Promotion();
+        promotion.setId(5L);
+        promotion.setScope(PromotionScope.CATEGORY);
+        promotion.setTargetId(10L);
+        promotion.setDiscountPercentage(new BigDecimal("10"));
+        promotion.setStackable(true);
+        promotion.setPriority(0);
+        promotion.setActive(true);
+        promotion.setStartsAt(LocalDateTime.now().minusDays(1));
+        promotion.setEndsAt(LocalDateTime.now().plusDays(10));
+        when(promotionRepository.findCurrentAndUpcoming(any(LocalDateTime.class))).thenReturn(List.of(promotion));
+    }
+
+    @Test
+    void productsCarryTheirEffectivePriceFromOnePriceList() {
+        List<PricedProduct> priced = pricingService.withEffectivePrices(List.of(phone, tablet));
+
+        assertThat(priced).extracting(PricedProduct::getProduct).containsExactly(phone, tablet);
+        assertThat(priced.get(0).getEffectivePrice()).isEqualByComparingTo("90000");
+        assertThat(priced.get(1).getEffectivePrice()).isEqualByComparingTo("200000");
+        verify(promotionRepository, times(1)).findCurrentAndUpcoming(any(LocalDateTime.class));
+    }
+
+    @Test
+    void productMissingFromThePriceListKeepsItsCatalogPrice() {
+        Product created = product(3L).category(10L).price("50000").build();
+
+        assertThat(pricingService.withEffectivePrice(created).getEffectivePrice()).isEqualByComparingTo("50000");
+    }
+
+    @Test
+    void summariesAreCopiedWithTheirEffectivePrice() {
+        ProductSummary summary = new ProductSummary(phone);
+
+        ProductSummary priced = pricingService.summariesWithEffectivePrices(List.of(summary)).get(0);
+
+        assertThat(priced.getEffectivePrice()).isEqualByComparingTo("90000");
+        assertThat(priced.getPrice()).isEqualByComparingTo("100000");
+        assertThat(summary.getEffectivePrice()).isEqualByComparingTo("100000");
+    }
+
+    @Test
+    void pricedProductSerializesAsTheProductPlusItsEffectivePrice() {
+        JsonNode json = new ObjectMapper().findAndRegisterModules()
+                .valueToTree(pricingService.withEffectivePrice(phone));
+
+        assertThat(json.get("id").asLong()).isEqualTo(1L);
+        assertThat(json.get("price").decimalValue()).isEqualByComparingTo("100000");
+        assertThat(json.get("effectivePrice").decimalValue()).isEqualByComparingTo("90000");
+        assertThat(json.has("product")).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Filtres à facettes : mêmes résultats et compteurs qu'un parcours naïf du catalogue
+class ProductFacetIndexTest {
+
+    private static final List<String> BRANDS = List.of("Samsung", "Xiaomi", "Tecno", "Apple");
+    private static final long[] PRICES = {50_000, 99_999, 100_000, 250_000, 499_999, 500_000, 999_999, 1_000_000, 1_500_000};
+
+    @Test
+    void brandMatchingIgnoresCaseAndSurroundingSpaces() {
+        ProductFacetIndex index = new ProductFacetIndex(List.of(
+                product(1L).category(10L).brand(" Samsung ").price("150000").stock(3).build(),
+                product(2L).category(10L).brand("Xiaomi").price("150000").stock(3).build()));
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter();
+        filter.setBrands(List.of("SAMSUNG"));
+
+        ProductFacetIndex.FilterResult result = index.filter(filter, 0, 10);
+
+        assertThat(result.getItems()).extracting(ProductSummary::getId).containsExactly(1L);
+        assertThat(result.getBrandFacets()).containsEntry("Samsung", 1L).containsEntry("Xiaomi", 1L);
+    }
+
+    @Test
+    void priceBoundsAreInclusiveAcrossBucketEdges() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRICES.length; i++) {
+            products.add(product((long) i).category(10L).brand("Samsung").price(String.valueOf(PRICES[i])).stock(1).build());
+        }
+        ProductFacetIndex index = new ProductFacetIndex(products);
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter();
+        filter.setMinPrice(BigDecimal.valueOf(100_000));
+        filter.setMaxPrice(BigDecimal.valueOf(1_000_000));
+
+        ProductFacetIndex.FilterResult result = index.filter(filter, 0, 20);
+
+        assertThat(result.getItems()).extracting(ProductSummary::getPrice)
+                .extracting(BigDecimal::longValue)
+                .containsExactly(100_000L, 250_000L, 499_999L, 500_000L, 999_999L, 1_000_000L);
+        assertThat(result.getPriceFacets()).containsEntry("0-100000", 2L).containsEntry("1000000+", 2L);
+    }
+
+    @Test
+    void randomFiltersMatchANaiveScan() {
+        Random random = new Random(11);
+        List<Product> products = new ArrayList<>();
+        for (long id = 0; id < 400; id++) {
+            products.add(product(id)
+                    .category(random.nextBoolean() ? null : (long) random.nextInt(5))
+                    .brand(random.nextInt(6) == 0 ? null : BRANDS.get(random.nextInt(BRANDS.size())))
+                    .price(String.valueOf(PRICES[random.nextInt(PRICES.length)] + random.nextInt(3) - 1))
+                    .stock(random.nextInt(3))
+                    .build());
+        }
+        ProductFacetIndex index = new ProductFacetIndex(products);
+
+        for (int round = 0; round < 200; round++) {
+            ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter();
+            if (random.nextBoolean()) {
+                filter.setCategoryIds(Arrays.asList((long) random.nextInt(5), (long) random.nextInt(5)));
+            }
+            if (random.nextBoolean()) {
+                filter.setBrands(Arrays.asList(BRANDS.get(random.nextInt(BRANDS.size()))));
+            }
+            if (random.nextBoolean()) {
+                filter.setMinPrice(BigDecimal.valueOf(PRICES[random.nextInt(PRICES.length)] + random.nextInt(3) - 1));
+            }
+            if (random.nextBoolean()) {
+                filter.setMaxPrice(BigDecimal.valueOf(PRICES[random.nextInt(PRICES.length)] + random.nextInt(3) - 1));
+            }
+            filter.setInStockOnly(random.nextBoolean());
+
+            ProductFacetIndex.FilterResult result = index.filter(filter, 0, products.size());
+
+            List<Long> expected = products.stream().filter(matches(filter)).map(Product::getId).toList();
+            assertThat(result.getItems()).extracting(ProductSummary::getId).isEqualTo(expected);
+            assertThat(result.getTotalResults()).isEqualTo(expected.size());
+
+            // Facette de marque : tous les filtres sauf la marque
+            ProductFacetIndex.Filter withoutBrand = copyOf(filter);
+            withoutBrand.setBrands(null);
+            for (String brand : BRANDS) {
+                long count = products.stream().filter(matches(withoutBrand))
+                        .filter(product -> brand.equals(product.getBrand())).count();
+                assertThat(result.getBrandFacets().getOrDefault(brand, 0L)).as(brand).isEqualTo(count);
+            }
+            ProductFacetIndex.Filter withoutStock = copyOf(filter);
+            withoutStock.setInStockOnly(true);
+            assertThat(result.getInStockCount())
+                    .isEqualTo(products.stream().filter(matches(withoutStock)).count());
+        }
+    }
+
+    @Test
+    void stockUpdateMovesOnlyTheInStockBit() {
+        Product product = product(1L).category(10L).brand("Samsung").price("150000").stock(2).build();
+        ProductFacetIndex index = new ProductFacetIndex(List.of(product));
+        ProductFacetIndex.Filter inStock = new ProductFacetIndex.Filter();
+        inStock.setInStockOnly(true);
+
+        product.setStockQuantity(0);
+        index.updateStock(0);
+
+        assertThat(index.filter(inStock, 0, 10).getTotalResults()).isZero();
+        assertThat(index.filter(new ProductFacetIndex.Filter(), 0, 10).getTotalResults()).isEqualTo(1);
+    }
+
+    private static Predicate<Product> matches(ProductFacetIndex.Filter filter) {
+        return product -> (filter.getCategoryIds().isEmpty() || filter.getCategoryIds().contains(product.getCategoryId()))
+                && (filter.getBrands().isEmpty() || filter.getBrands().contains(product.getBrand()))
+                && (filter.getMinPrice() == null || product.getPrice().compareTo(filter.getMinPrice()) >= 0)
+                && (filter.getMaxPrice() == null || product.getPrice().compareTo(filter.getMaxPrice()) <= 0)
+                && (!filter.isInStockOnly() || product.getStockQuantity() > 0);
+    }
+
+    private static ProductFacetIndex.Filter copyOf(ProductFacetIndex.Filter filter) {
+        ProductFacetIndex.Filter copy = new ProductFacetIndex.Filter();
+        copy.setCategoryIds(filter.getCategoryIds());
+        copy.setBrands(filter.getBrands());
+        copy.setMinPrice(filter.getMinPrice());
+        copy.setMaxPrice(filter.getMaxPrice());
+        copy.setInStockOnly(filter.isInStockOnly());
+        return copy;
+    }
+}
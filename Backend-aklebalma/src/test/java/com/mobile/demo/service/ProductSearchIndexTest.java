@@ -0,0 +1,74 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Recherche plein texte : accents, mots vides, préfixe du dernier mot, classement et troncature
+class ProductSearchIndexTest {
+
+    private static final List<Product> CATALOG = List.of(
+            product(1L).name("Téléphone Galaxy A15").brand("Samsung").description("Écran 6,5 pouces").build(),
+            product(2L).name("Galaxy Tab S9").brand("Samsung").description("Tablette avec stylet").available(false).build(),
+            product(3L).name("Redmi Note 13").brand("Xiaomi").description("Téléphone de la gamme Note").build(),
+            product(4L).name("Galaxy Buds").brand("Samsung").description("Écouteurs").build());
+
+    @Test
+    void accentsCaseAndStopWordsAreIgnored() {
+        ProductSearchIndex index = new ProductSearchIndex(CATALOG);
+
+        assertThat(ids(index.search("TELEPHONE de", 0, 10))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ProductSearchIndex.tokenize("Le téléphone et l'écran")).containsExactly("telephone", "ecran");
+    }
+
+    @Test
+    void everyWordMustMatchAndTheLastOneMayBeAPrefix() {
+        ProductSearchIndex index = new ProductSearchIndex(CATALOG);
+
+        assertThat(ids(index.search("samsung gal", 0, 10))).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(ids(index.search("galaxy xiaomi", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void nameMatchesRankBeforeDescriptionMatches() {
+        ProductSearchIndex index = new ProductSearchIndex(CATALOG);
+
+        assertThat(ids(index.search("telephone", 0, 10))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void pagesSliceTheRankedListAndKeepTheTotal() {
+        ProductSearchIndex index = new ProductSearchIndex(CATALOG);
+
+        ProductSearchIndex.SearchResult second = index.search("galaxy", 1, 2);
+
+        assertThat(second.getTotalResults()).isEqualTo(3);
+        assertThat(second.getItems()).hasSize(1);
+        assertThat(second.isTruncated()).isFalse();
+    }
+
+    @Test
+    void tooManyPrefixExpansionsAreReportedAsTruncated() {
+        List<Product> products = new ArrayList<>();
+        for (long i = 0; i < 600; i++) {
+            products.add(product(i).name("Modele m" + i).build());
+        }
+        ProductSearchIndex index = new ProductSearchIndex(products);
+
+        ProductSearchIndex.SearchResult shortPrefix = index.search("m", 0, 10);
+        ProductSearchIndex.SearchResult fullWord = index.search("modele", 0, 10);
+
+        assertThat(shortPrefix.isTruncated()).isTrue();
+        assertThat(fullWord.isTruncated()).isFalse();
+        assertThat(fullWord.getTotalResults()).isEqualTo(600);
+    }
+
+    private static List<Long> ids(ProductSearchIndex.SearchResult result) {
+        return result.getItems().stream().map(Product::getId).toList();
+    }
+}
@@ -0,0 +1,142 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Instantané du catalogue : reconstruit après le commit d'une écriture, stock corrigé sur place sans reconstruction ;
+// vérification de stock d'un panier en une requête
+class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private FlashSaleService flashSaleService;
+
+    @InjectMocks
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L).name("Galaxy A15").brand("Samsung").price("150000").build(),
+                product(2L).name("Redmi 13").brand("Xiaomi").price("150000").stock(1).build()));
+    }
+
+    @Test
+    void stockChangeUpdatesTheSnapshotWithoutRebuild() {
+        CatalogSnapshot before = productService.getCatalog();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{2L, null, 0, false});
+        when(productRepository.findCategoryStates(anyCollection())).thenReturn(rows);
+
+        productService.invalidateStock(List.of(2L));
+        CatalogSnapshot after = productService.getCatalog();
+
+        assertThat(after).isSameAs(before);
+        assertThat(after.getVersion()).isEqualTo(before.getVersion());
+        verify(productRepository, times(1)).findAll();
+        verify(categoryService).stockChanged(List.of(2L));
+
+        assertThat(after.getById(2L).getStockQuantity()).isZero();
+        assertThat(after.getById(2L).getIsAvailable()).isFalse();
+        assertThat(after.list(CatalogSnapshot.SORT_RECENT, null, 10).getItems())
+                .filteredOn(summary -> summary.getId() == 2L)
+                .singleElement()
+                .satisfies(summary -> assertThat(summary.getStockQuantity()).isZero());
+
+        ProductFacetIndex.Filter inStock = new ProductFacetIndex.Filter();
+        inStock.setInStockOnly(true);
+        ProductFacetIndex.FilterResult result = after.filter(inStock, 0, 10);
+        assertThat(result.getTotalResults()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(ProductSummary::getId).containsExactly(1L);
+    }
+
+    @Test
+    void stockIsReadOnlyOnceForManyReads() {
+        productService.getCatalog();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, null, 4, true});
+        when(productRepository.findCategoryStates(anyCollection())).thenReturn(rows);
+
+        productService.invalidateStock(List.of(1L));
+        productService.getCatalog();
+        productService.getCatalog();
+
+        verify(productRepository, times(1)).findCategoryStates(anyCollection());
+        assertThat(productService.getCatalog().getById(1L).getStockQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void productWriteStillRebuilds() {
+        CatalogSnapshot before = productService.getCatalog();
+
+        productService.invalidateCatalog();
+
+        assertThat(productService.getCatalog()).isNotSameAs(before);
+        verify(productRepository, times(2)).findAll();
+        verify(productRepository, never()).findCategoryStates(anyCollection());
+    }
+
+    @Test
+    void writeInsideATransactionIsVisibleOnlyAfterCommit() {
+        CatalogSnapshot before = productService.getCatalog();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.invalidateCatalog();
+            assertThat(productService.getCatalog()).isSameAs(before);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        CatalogSnapshot after = productService.getCatalog();
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+    }
+
+    @Test
+    void stockCheckReadsTheWholeCartInOneQueryAndKeepsLineOrder() {
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(
+                product(1L).name("Galaxy A15").brand("Samsung").price("150000").build(),
+                product(2L).name("Redmi 13").brand("Xiaomi").price("150000").stock(1).build()));
+        when(flashSaleService.getAvailable(anyLong())).thenReturn(null);
+        when(flashSaleService.getAvailable(2L)).thenReturn(8L);
+
+        List<Map<String, Object>> lines = productService.checkStock(
+                List.of(2L, 9L, 1L, 1L), List.of(3, 1, 5, 6));
+
+        verify(productRepository, times(1)).findAllById(Set.of(1L, 2L, 9L));
+        assertThat(lines).extracting(line -> line.get("productId")).containsExactly(2L, 9L, 1L, 1L);
+        // Vente flash : le compteur en mémoire fait foi, pas la colonne
+        assertThat(lines.get(0)).containsEntry("currentStock", 8L).containsEntry("available", true);
+        assertThat(lines.get(1)).containsEntry("found", false).containsEntry("available", false);
+        assertThat(lines.get(2)).containsEntry("currentStock", 5L).containsEntry("available", true);
+        assertThat(lines.get(3)).containsEntry("available", false);
+    }
+}
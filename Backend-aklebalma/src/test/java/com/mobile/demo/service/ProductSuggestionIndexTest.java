@@ -0,0 +1,67 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mobile.demo.service.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Autocomplétion : marques d'abord, produits disponibles ensuite, tout mot du nom sert de préfixe
+class ProductSuggestionIndexTest {
+
+    @Test
+    void brandComesFirstThenAvailableProducts() {
+        ProductSuggestionIndex index = ProductSuggestionIndex.build(List.of(
+                product(1L).name("Galaxy A15").brand("Samsung").stock(0).available(false).build(),
+                product(2L).name("Galaxy S24").brand("Samsung").build(),
+                product(3L).name("Sony Xperia").brand("Sony").build()));
+
+        assertThat(texts(index.suggest("sa", 10))).containsExactly("Samsung");
+        assertThat(texts(index.suggest("s", 10))).containsExactly("Samsung", "Sony", "Galaxy S24", "Sony Xperia");
+        assertThat(texts(index.suggest("gal", 10))).containsExactly("Galaxy S24", "Galaxy A15");
+        assertThat(index.suggest("sa", 10).get(0).getWeight()).isEqualTo(2);
+    }
+
+    @Test
+    void anyWordOfTheNameMatchesIgnoringAccentsAndCase() {
+        ProductSuggestionIndex index = ProductSuggestionIndex.build(List.of(
+                product(1L).name("Téléphone Redmi Note").brand("Xiaomi").build()));
+
+        assertThat(texts(index.suggest("NOTE", 10))).containsExactly("Téléphone Redmi Note");
+        assertThat(texts(index.suggest("tele", 10))).containsExactly("Téléphone Redmi Note");
+        assertThat(index.suggest("iphone", 10)).isEmpty();
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void limitAndTopTenAreRespected() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            products.add(product(id).name("Modele " + id).brand(null).build());
+        }
+        ProductSuggestionIndex index = ProductSuggestionIndex.build(products);
+
+        assertThat(index.suggest("mod", 3)).hasSize(3);
+        assertThat(index.suggest("mod", 50)).hasSize(10);
+        assertThat(index.suggest("mod", 0)).isEmpty();
+    }
+
+    @Test
+    void reindexingTheSameProductIsANoOpButARenameNeedsARebuild() {
+        Product product = product(1L).name("Galaxy A15").brand("Samsung").build();
+        ProductSuggestionIndex index = ProductSuggestionIndex.build(List.of(product));
+
+        assertThat(index.add(product)).isTrue();
+        assertThat(index.suggest("sam", 10).get(0).getWeight()).isEqualTo(1);
+
+        product.setName("Galaxy A16");
+        assertThat(index.add(product)).isFalse();
+    }
+
+    private static List<String> texts(List<ProductSuggestionIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestionIndex.Suggestion::getText).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Réservation de stock : décrément tout ou rien et durée de vie bornée
+class StockReservationServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private FlashSaleService flashSaleService;
+
+    @InjectMocks
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockReservationService, "defaultTtlMinutes", 15L);
+        ReflectionTestUtils.setField(stockReservationService, "maxTtlMinutes", 60L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+    }
+
+    @Test
+    void requestedTtlIsClampedToTheMaximum() {
+        stockReservationService.reserve(7L, Map.of(1L, 2), Duration.ofDays(30));
+
+        assertThat(expiry()).isEqualTo(Duration.ofMinutes(60));
+    }
+
+    @Test
+    void shorterTtlIsKept() {
+        stockReservationService.reserve(7L, Map.of(1L, 2), Duration.ofMinutes(5));
+
+        assertThat(expiry()).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void nonPositiveTtlIsRejectedBeforeTouchingStock() {
+        assertThatThrownBy(() -> stockReservationService.reserve(7L, Map.of(1L, 2), Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockReservationService.reserve(7L, Map.of(1L, 2), Duration.ofMinutes(-5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void missingStockFailsTheWholeCart() {
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE products"), anyList())).thenReturn(new int[]{1, 0});
+
+        assertThatThrownBy(() -> stockReservationService.reserve(7L, Map.of(1L, 2, 2L, 1)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("2");
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO stock_reservations"), anyList());
+    }
+
+    // Écart entre created_at et expires_at des lignes insérées
+    @SuppressWarnings("unchecked")
+    private Duration expiry() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO stock_reservations"), rows.capture());
+        Object[] row = rows.getValue().get(0);
+        return Duration.between(((Timestamp) row[4]).toLocalDateTime(), ((Timestamp) row[5]).toLocalDateTime());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mobile.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compteur réparti : jamais plus d'unités vendues que de stock chargé
+class StripedStockCounterTest {
+
+    @Test
+    void initialStockIsSpreadWithoutLoss() {
+        StripedStockCounter counter = new StripedStockCounter(1003, 16);
+
+        assertThat(counter.available()).isEqualTo(1003);
+        assertThat(counter.getStripes()).isEqualTo(16);
+    }
+
+    @Test
+    void claimGathersUnitsFromSeveralStripesAtTheEndOfStock() {
+        StripedStockCounter counter = new StripedStockCounter(16, 16);
+
+        assertThat(counter.tryClaim(10)).isTrue();
+        assertThat(counter.tryClaim(7)).isFalse();
+        assertThat(counter.available()).isEqualTo(6);
+        assertThat(counter.tryClaim(6)).isTrue();
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void releaseAndDrainReturnUnits() {
+        StripedStockCounter counter = new StripedStockCounter(5, 4);
+        counter.tryClaim(5);
+        counter.release(3);
+
+        assertThat(counter.drain()).isEqualTo(3);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void concurrentClaimsNeverOversell() throws Exception {
+        long stock = 10_000;
+        StripedStockCounter counter = new StripedStockCounter(stock, 16);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long sold = 0;
+                for (int i = 0; i < 5_000; i++) {
+                    int quantity = 1 + i % 3;
+                    if (counter.tryClaim(quantity)) {
+                        sold += quantity;
+                    }
+                }
+                return sold;
+            }));
+        }
+        start.countDown();
+        long sold = 0;
+        for (Future<Long> result : results) {
+            sold += result.get();
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold).isLessThanOrEqualTo(stock);
+        assertThat(sold + counter.available()).isEqualTo(stock);
+    }
+}
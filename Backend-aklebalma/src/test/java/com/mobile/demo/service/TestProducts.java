@@ -0,0 +1,77 @@
+package com.mobile.demo.service;
+
+import com.mobile.demo.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Produits de test partagés : valeurs par défaut communes, chaque test ne précise que ce qu'il vérifie
+final class TestProducts {
+
+    // Date d'ajout de référence ; addedDaysAgo recule à partir d'elle
+    static final LocalDateTime ADDED_AT = LocalDateTime.of(2026, 3, 17, 12, 0);
+
+    private TestProducts() {
+    }
+
+    // « Produit <id> », marque « Marque », 100 000 FCFA, 5 en stock, disponible
+    static Builder product(Long id) {
+        return new Builder(id);
+    }
+
+    static final class Builder {
+        private final Product product;
+
+        private Builder(Long id) {
+            product = new Product("Produit " + id, null, new BigDecimal("100000"), 5);
+            product.setId(id);
+            product.setBrand("Marque");
+            product.setIsAvailable(true);
+            product.setDateAdded(ADDED_AT);
+        }
+
+        Builder name(String name) {
+            product.setName(name);
+            return this;
+        }
+
+        Builder description(String description) {
+            product.setDescription(description);
+            return this;
+        }
+
+        Builder brand(String brand) {
+            product.setBrand(brand);
+            return this;
+        }
+
+        Builder category(Long categoryId) {
+            product.setCategoryId(categoryId);
+            return this;
+        }
+
+        Builder price(String price) {
+            product.setPrice(new BigDecimal(price));
+            return this;
+        }
+
+        Builder stock(int stockQuantity) {
+            product.setStockQuantity(stockQuantity);
+            return this;
+        }
+
+        Builder available(boolean available) {
+            product.setIsAvailable(available);
+            return this;
+        }
+
+        Builder addedDaysAgo(int days) {
+            product.setDateAdded(ADDED_AT.minusDays(days));
+            return this;
+        }
+
+        Product build() {
+            return product;
+        }
+    }
+}